@@ -0,0 +1,156 @@
+   package mars.mips.instructions;
+   import mars.*;
+   import mars.util.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Self-test for DecodeTable.  Decodes every BasicInstruction encoding, with random bits
+ * in its operand fields, and a run of random words both through the DecodeTable and 
+ * through a plain search that tries each opcode mask in order of decreasing number of
+ * 1 bits, the way binary instructions were decoded before DecodeTable.  Any binary on 
+ * which the two disagree is listed, and the exit status is 1 if there were any.
+ * <p>
+ * It is a developer tool, kept out of the MARS jar under devtools, in the package of
+ * DecodeTable so it can reach it.  From the directory holding Mars.java, with MARS
+ * compiled there, build and run it with:
+ * <pre>
+ * javac -cp . -d devtools devtools/mars/mips/instructions/DecodeTableCheck.java
+ * java -cp devtools:. mars.mips.instructions.DecodeTableCheck [randomWords [seed]]
+ * </pre>
+ *
+ * @see DecodeTable
+ */
+
+    public class DecodeTableCheck {
+      private static final int OPERAND_TRIALS = 1000;  // random operand bits per instruction
+      private static final int REPORT_LIMIT = 20;      // most disagreements listed
+   
+      private final DecodeTable table;
+      private final int[] searchMasks;   // opcode masks in the order searched
+      private final ArrayList<HashMap<Integer, BasicInstruction>> searchMaps; // match to instruction, per mask
+      private int checked;
+      private int disagreements;
+   
+   	/**
+   	 * Build both decoders for the given instructions.
+   	 *
+   	 * @param instructions list of Instruction; only the BasicInstructions are used.
+   	 */
+       DecodeTableCheck(List<?> instructions) {
+         table = new DecodeTable(instructions);
+         TreeMap<Integer, HashMap<Integer, BasicInstruction>> byMask = 
+                new TreeMap<Integer, HashMap<Integer, BasicInstruction>>(
+                   new Comparator<Integer>() {
+                      public int compare(Integer a, Integer b) {
+                        int d = Integer.bitCount(b.intValue()) - Integer.bitCount(a.intValue());
+                        return (d != 0) ? d : a.intValue() - b.intValue();
+                     }
+                  });
+         for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.get(i) instanceof BasicInstruction) {
+               BasicInstruction basic = (BasicInstruction) instructions.get(i);
+               HashMap<Integer, BasicInstruction> matchMap = byMask.get(Integer.valueOf(basic.getOpcodeMask()));
+               if (matchMap == null) {
+                  matchMap = new HashMap<Integer, BasicInstruction>();
+                  byMask.put(Integer.valueOf(basic.getOpcodeMask()), matchMap);
+               }
+               matchMap.put(Integer.valueOf(basic.getOpcodeMatch()), basic);
+            }
+         }
+         searchMasks = new int[byMask.size()];
+         searchMaps = new ArrayList<HashMap<Integer, BasicInstruction>>(byMask.values());
+         int i = 0;
+         for (Integer mask : byMask.keySet()) {
+            searchMasks[i++] = mask.intValue();
+         }
+      }
+   
+   	/**
+   	 * Runs the check on the MARS instruction set.
+   	 *
+   	 * @param args optional number of random words to decode (default 1000000), and
+   	 * optional seed for the random numbers.
+   	 */
+       public static void main(String[] args) {
+         int randomWords = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+         long seed = (args.length > 1) ? Long.parseLong(args[1]) : System.currentTimeMillis();
+         Globals.initialize(false);
+         ArrayList<?> instructions = Globals.instructionSet.getInstructionList();
+         DecodeTableCheck check = new DecodeTableCheck(instructions);
+         Random random = new Random(seed);
+         for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.get(i) instanceof BasicInstruction) {
+               BasicInstruction basic = (BasicInstruction) instructions.get(i);
+               check.compare(basic.getOpcodeMatch());
+               for (int trial = 0; trial < OPERAND_TRIALS; trial++) {
+                  check.compare(basic.getOpcodeMatch() | (random.nextInt() & ~basic.getOpcodeMask()));
+               }
+            }
+         }
+         for (int i = 0; i < randomWords; i++) {
+            check.compare(random.nextInt());
+         }
+         System.out.println("DecodeTableCheck: " + check.checked + " binaries checked, " 
+                            + check.disagreements + " disagreements (seed " + seed + ")");
+         if (check.disagreements > 0) {
+            System.exit(1);
+         }
+      }
+   
+      // Decode the binary both ways and report if the results differ.
+       private void compare(int binary) {
+         checked++;
+         BasicInstruction expected = search(binary);
+         BasicInstruction actual = table.find(binary);
+         if (actual != expected) {
+            if (disagreements < REPORT_LIMIT) {
+               System.out.println(Binary.intToHexString(binary) + ": table gives " + describe(actual) 
+                                  + ", search gives " + describe(expected));
+            }
+            disagreements++;
+         }
+      }
+   
+      // The first instruction whose opcode matches, trying masks with more 1 bits first.
+       private BasicInstruction search(int binary) {
+         for (int i = 0; i < searchMasks.length; i++) {
+            BasicInstruction found = searchMaps.get(i).get(Integer.valueOf(binary & searchMasks[i]));
+            if (found != null) {
+               return found;
+            }
+         }
+         return null;
+      }
+   
+       private static String describe(BasicInstruction instruction) {
+         return (instruction == null) ? "none" : instruction.getExampleFormat();
+      }
+   }
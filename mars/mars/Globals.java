@@ -54,7 +54,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       public static MIPSprogram program;
    /** Symbol table for file currently being assembled. **/
       public static SymbolTable symbolTable;
-    /** Simulated MIPS memory component. **/
+    /** Simulated MIPS memory component, that of the default MachineContext. **/
       public static Memory memory;
     /** Lock variable used at head of synchronized block to guard MIPS memory and registers **/
       public static Object memoryAndRegistersLock = new Object();
@@ -83,6 +83,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       public static final int maximumErrorMessages = getErrorLimit();
     /** Maximum number of back-step operations to buffer */
       public static final int maximumBacksteps = getBackstepLimit();
+    /** Maximum number of back-step operations to keep, counting those spilled to disk.  No spilling if not greater than maximumBacksteps. */
+      public static final int maximumSpilledBacksteps = getBackstepSpillLimit();
+    /** Number of instructions between checkpoints of machine state.  No checkpoints if 0. */
+      public static final int checkpointInterval = getCheckpointInterval();
    	/** MARS copyright years */
       public static final String copyrightYears = getCopyrightYears();
    	/** MARS copyright holders */
@@ -120,7 +124,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      
        public static void initialize(boolean gui) {
          if (!initialized) {
-            memory = Memory.getInstance();  //clients can use Memory.getInstance instead of Globals.memory
+            memory = MachineContext.getDefault().getMemory();  //clients can use Memory.getInstance instead of Globals.memory
             instructionSet = new InstructionSet();
             instructionSet.populate();    
             symbolTable = new SymbolTable("global");
@@ -145,6 +149,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private static int getBackstepLimit() {
          return getIntegerProperty(configPropertiesFile, "BackstepLimit", 1000);
       } 
+   
+   	// Read limit on back-step operations kept when older ones are spilled to disk, from properties file.
+       private static int getBackstepSpillLimit() {
+         return getIntegerProperty(configPropertiesFile, "BackstepSpillLimit", 0);
+      } 
+   
+   	// Read number of instructions between checkpoints, from properties file.
+       private static int getCheckpointInterval() {
+         return getIntegerProperty(configPropertiesFile, "CheckpointInterval", 1000000);
+      } 
 		
    	// Read ASCII default display character for non-printing characters, from properties file.
        public static String getAsciiNonPrint() {
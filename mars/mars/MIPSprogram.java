@@ -58,6 +58,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private ArrayList parsedList;
       private ArrayList machineList;
       private BackStepper backStepper;
+      private Checkpointer checkpointer;
       private SymbolTable localSymbolTable;
       private MacroPool macroPool;
       private ArrayList<SourceLine> sourceLineList;
@@ -169,6 +170,26 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return backStepper;
       }
    
+   /**
+    * Discards the steps recorded by this program's BackStepper, if any, including any
+    * spilled to a file, which is deleted.  Called when the program is replaced.
+    **/
+    
+       public void discardBackSteps() {
+         if (backStepper != null) {
+            backStepper.clear();
+         }
+      }
+   
+   /**
+    * Returns Checkpointer associated with this program.  It is created upon successful assembly.
+    * @return Checkpointer object, null if there is none.
+    **/
+    
+       public Checkpointer getCheckpointer() {
+         return checkpointer;
+      }
+   
    /**
     * Returns SymbolTable associated with this program.  It is created at assembly time,
     * and stores local labels (those not declared using .globl directive).
@@ -313,10 +334,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
        public ErrorList assemble(ArrayList MIPSprogramsToAssemble, boolean extendedAssemblerEnabled,
               boolean warningsAreErrors) throws ProcessingException {
+         discardBackSteps();
          this.backStepper = null;
+         this.checkpointer = null;
          Assembler asm = new Assembler();
          this.machineList = asm.assemble(MIPSprogramsToAssemble, extendedAssemblerEnabled, warningsAreErrors);
          this.backStepper = new BackStepper();
+         this.checkpointer = new Checkpointer();
          return asm.getErrorList();
       }
    
@@ -363,6 +387,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return sim.simulate(this, RegisterFile.getProgramCounter(), maxSteps, breakPoints, a);
       }
    
+   /**
+    * Simulates execution of the MIPS program. Program must have already been assembled.
+    * Begins simulation at current program counter address and continues until stopped,
+    * paused, maximum steps exceeded, or exception occurs.  Changes to the breakpoints
+    * made during the run take effect immediately.
+    * @param breakPoints breakpoints to stop at.  Can be null.
+    * @param maxSteps maximum number of instruction executions.  Default -1 means no maximum.
+    * @param a the GUI component responsible for this call (GO normally).  set to null if none.
+    * @return true if execution completed and false otherwise
+    * @throws ProcessingException Will throw exception if errors occured while simulating.
+    **/	
+       public boolean simulateFromPCWithBreakpoints(Breakpoints breakPoints, int maxSteps, AbstractAction a) throws ProcessingException {
+         steppedExecution = false;
+         Simulator sim = Simulator.getInstance();
+         return sim.simulateWithBreakpoints(this, RegisterFile.getProgramCounter(), maxSteps, breakPoints, a);
+      }
+   
    
    
    /**
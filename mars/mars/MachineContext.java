@@ -0,0 +1,345 @@
+   package mars;
+   import mars.assembler.*;
+   import mars.mips.hardware.*;
+   import mars.simulator.*;
+   import mars.util.*;
+   import java.io.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * The state of one simulated MIPS machine: memory, the registers of the CPU and both
+ * coprocessors, the pending delayed branch, the files opened by the MIPS program, its
+ * random number streams and console, and the simulator that runs it.  Any number of
+ * contexts can exist in one JVM, and each can assemble and run its own program on its
+ * own thread.
+ * <p>
+ * Classes holding machine state keep their static methods (RegisterFile.getValue(),
+ * Memory.getInstance(), SystemIO.openFile() and so on), which now apply to the current 
+ * context: the one bound to the calling thread by run(), or otherwise the default 
+ * context.  Threads started while a context is bound, the simulator's among them, 
+ * inherit it.  The default context is the machine used by the IDE and its tools, and
+ * its program, symbol table and exit code are those in Globals.
+ * <p>
+ * Contexts share the instruction set, settings and memory configuration.  They are meant
+ * for running programs from code, as MarsLaunch does; only the default context drives 
+ * the IDE.
+ */
+    public class MachineContext {
+      private static final MachineContext defaultContext = new MachineContext(true);
+      private static final InheritableThreadLocal<MachineContext> boundContext = new InheritableThreadLocal<MachineContext>();
+      // Set once any context has been bound to a thread.  Until then there is no need to
+      // look at the thread local, which saves time on every register and memory access.
+      private static volatile boolean contextsBound = false;
+   
+      private final boolean isDefault;
+      private final Object lock;
+      private final Memory memory;
+      private final RegisterFile registerFile;
+      private final Coprocessor0 coprocessor0;
+      private final Coprocessor1 coprocessor1;
+      private final DelayedBranch delayedBranch;
+      private final SystemIO.FileIOData files;
+      private final HashMap<Integer, Random> randomStreams;
+      private Simulator simulator;
+      private MIPSprogram program;
+      private SymbolTable symbolTable;
+      private int exitCode;
+      private InputStream input;
+      private PrintStream output;
+      private PrintStream error;
+      private BufferedReader inputReader;
+      private InputScanner inputScanner;
+   
+      /**
+   	* Create a machine with cleared memory and registers, no program, and the console
+   	* of the JVM (System.in, System.out and System.err).
+   	*/
+       public MachineContext() {
+         this(false);
+      }
+   
+       private MachineContext(boolean isDefault) {
+         this.isDefault = isDefault;
+         this.lock = (isDefault) ? Globals.memoryAndRegistersLock : new Object();
+         this.memory = new Memory();
+         this.registerFile = new RegisterFile();
+         this.coprocessor0 = new Coprocessor0();
+         this.coprocessor1 = new Coprocessor1();
+         this.delayedBranch = new DelayedBranch();
+         this.files = new SystemIO.FileIOData(this);
+         this.randomStreams = new HashMap<Integer, Random>();
+         this.symbolTable = (isDefault) ? null : new SymbolTable("global");
+         this.exitCode = 0;
+      }
+   
+      /**
+   	* Get the current context: the one bound to this thread, or the default context if none is.
+   	* @return the current MachineContext
+   	*/
+       public static MachineContext current() {
+         if (!contextsBound) {
+            return defaultContext;
+         }
+         MachineContext context = boundContext.get();
+         return (context == null) ? defaultContext : context;
+      }
+   
+      /**
+   	* Get the default context, used by the IDE and whenever no other context is bound.
+   	* @return the default MachineContext
+   	*/
+       public static MachineContext getDefault() {
+         return defaultContext;
+      }
+   
+      /**
+   	* Determine whether this is the default context.
+   	* @return true if this is the default context, false otherwise
+   	*/
+       public boolean isDefault() {
+         return isDefault;
+      }
+   
+      /**
+   	* Run the given task with this context bound to the calling thread, and to any thread it
+   	* starts.  The context bound before, if any, is bound again afterwards.
+   	* @param task the task to run, typically one that assembles and simulates a program
+   	*/
+       public void run(Runnable task) {
+         MachineContext previous = boundContext.get();
+         contextsBound = true;
+         boundContext.set(this);
+         try {
+            task.run();
+         } 
+         finally {
+            boundContext.set(previous);
+         }
+      }
+   
+      /**
+   	* Determine whether syscall I/O of this context goes through the IDE.  That is the case
+   	* only for the default context while the IDE is running.
+   	* @return true if console I/O uses the IDE, false if it uses this context's streams
+   	*/
+       public boolean usesGui() {
+         return isDefault && Globals.getGui() != null;
+      }
+   
+      /**
+   	* Get the object synchronized on while the simulator, or anyone else, accesses this
+   	* machine's memory and registers.  For the default context it is Globals.memoryAndRegistersLock.
+   	* @return the lock object
+   	*/
+       public Object getLock() {
+         return lock;
+      }
+   
+      /**
+   	* Get the memory of this machine.
+   	* @return the Memory
+   	*/
+       public Memory getMemory() {
+         return memory;
+      }
+   
+      /**
+   	* Get the CPU registers of this machine.
+   	* @return the RegisterFile
+   	*/
+       public RegisterFile getRegisterFile() {
+         return registerFile;
+      }
+   
+      /**
+   	* Get the Coprocessor 0 registers of this machine.
+   	* @return the Coprocessor0
+   	*/
+       public Coprocessor0 getCoprocessor0() {
+         return coprocessor0;
+      }
+   
+      /**
+   	* Get the floating point registers and condition flags of this machine.
+   	* @return the Coprocessor1
+   	*/
+       public Coprocessor1 getCoprocessor1() {
+         return coprocessor1;
+      }
+   
+      /**
+   	* Get the delayed branch, if any, pending on this machine.
+   	* @return the DelayedBranch
+   	*/
+       public DelayedBranch getDelayedBranch() {
+         return delayedBranch;
+      }
+   
+      /**
+   	* Get the file descriptor table of this machine.
+   	* @return the table of files opened by the MIPS program
+   	*/
+       public SystemIO.FileIOData getFiles() {
+         return files;
+      }
+   
+      /**
+   	* Get the random number streams of this machine, by stream number.
+   	* @return the HashMap of Random objects
+   	*/
+       public HashMap<Integer, Random> getRandomStreams() {
+         return randomStreams;
+      }
+   
+      /**
+   	* Get the simulator of this machine, which is created on first use.
+   	* @return the Simulator
+   	*/
+       public synchronized Simulator getSimulator() {
+         if (simulator == null) {
+            simulator = new Simulator(this);
+         }
+         return simulator;
+      }
+   
+      /**
+   	* Get the program being simulated.  Backstepping is done only for this program.
+   	* @return the MIPSprogram, or null if none.  For the default context, Globals.program.
+   	*/
+       public MIPSprogram getProgram() {
+         return (isDefault) ? Globals.program : program;
+      }
+   
+      /**
+   	* Set the program being simulated.
+   	* @param program the MIPSprogram.  For the default context, this sets Globals.program.
+   	*/
+       public void setProgram(MIPSprogram program) {
+         if (isDefault) {
+            Globals.program = program;
+         } 
+         else {
+            this.program = program;
+         }
+      }
+   
+      /**
+   	* Get the global symbol table of the program being assembled.
+   	* @return the SymbolTable.  For the default context, Globals.symbolTable.
+   	*/
+       public SymbolTable getSymbolTable() {
+         return (isDefault) ? Globals.symbolTable : symbolTable;
+      }
+   
+      /**
+   	* Get the exit code given by the program through syscall 17 when run without the IDE.
+   	* @return the exit code.  For the default context, Globals.exitCode.
+   	*/
+       public int getExitCode() {
+         return (isDefault) ? Globals.exitCode : exitCode;
+      }
+   
+      /**
+   	* Set the exit code of the program.
+   	* @param exitCode the exit code.  For the default context, this sets Globals.exitCode.
+   	*/
+       public void setExitCode(int exitCode) {
+         if (isDefault) {
+            Globals.exitCode = exitCode;
+         } 
+         else {
+            this.exitCode = exitCode;
+         }
+      }
+   
+      /**
+   	* Set the console of this machine, used for syscall I/O and for STDIN, STDOUT and STDERR.
+   	* Call before the program runs.  A null stream means that of the JVM.
+   	* @param input the stream console input is read from
+   	* @param output the stream console output is written to
+   	* @param error the stream written through the STDERR file descriptor
+   	*/
+       public void setConsole(InputStream input, PrintStream output, PrintStream error) {
+         this.input = input;
+         this.output = output;
+         this.error = error;
+         this.inputReader = null;
+         this.inputScanner = null;
+      }
+   
+      /**
+   	* Get the stream console input is read from.
+   	* @return the console input stream, System.in unless set by setConsole()
+   	*/
+       public InputStream getInput() {
+         return (input == null) ? System.in : input;
+      }
+   
+      /**
+   	* Get the stream console output is written to.
+   	* @return the console output stream, System.out unless set by setConsole()
+   	*/
+       public PrintStream getOutput() {
+         return (output == null) ? System.out : output;
+      }
+   
+      /**
+   	* Get the stream written through the STDERR file descriptor.
+   	* @return the console error stream, System.err unless set by setConsole()
+   	*/
+       public PrintStream getError() {
+         return (error == null) ? System.err : error;
+      }
+   
+      /**
+   	* Get the reader used for all console input read a line at a time, which is
+   	* created on first use.
+   	* @return the BufferedReader over the console input stream
+   	*/
+       public BufferedReader getInputReader() {
+         if (inputReader == null) {
+            inputReader = new BufferedReader(new InputStreamReader(getInput()));
+         }
+         return inputReader;
+      }
+   
+      /**
+   	* Get the scanner of console input read in full, if console input is so read.  See
+   	* InputScanner.setEnabled().  Created when first asked for.
+   	* @return the InputScanner over the console input stream, or null if input is read a line at a time
+   	*/
+       public InputScanner getInputScanner() {
+         if (inputScanner == null && InputScanner.isEnabled()) {
+            inputScanner = new InputScanner(getInput());
+         }
+         return inputScanner;
+      }
+   }
@@ -0,0 +1,511 @@
+   package mars;
+   import mars.mips.hardware.*;
+   import mars.simulator.*;
+   import mars.util.*;
+   import java.io.*;
+   import java.util.*;
+   import java.util.concurrent.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Batch mode of the MARS command, for running many programs against many inputs in one
+ * JVM.  Every submission is run once for every test, several runs at a time, each in its
+ * own MachineContext.  Runs have an instruction limit and a wall-clock timeout, and their
+ * results are written to a summary file.
+ * <p>
+ * The batch is described by a manifest in properties format.  Relative paths are taken
+ * from the manifest's directory.
+ * <ul>
+ * <li><tt>submissions</tt> -- directory of programs to run.  Each assembly file in it is one
+ * program, and each subdirectory is a program made of all the assembly files in it.  The
+ * first file in name order is the main file; use the <tt>sm</tt> option to start at main.</li>
+ * <li><tt>tests</tt> -- optional directory of tests.  Test <i>name</i> reads console input 
+ * from <i>name</i>.in and expects the console output in <i>name</i>.out.  Either file may be 
+ * absent.  Without this key each program is run once with no input.</li>
+ * <li><tt>summary</tt> -- file to write results to, default <tt>summary.jsonl</tt>.</li>
+ * <li><tt>steps</tt> -- maximum number of instructions for each run.  Default is the 
+ * command's <i>n</i> option; none if 0 or negative.</li>
+ * <li><tt>timeout</tt> -- maximum seconds for each run.  None if 0 (the default).</li>
+ * <li><tt>threads</tt> -- number of runs at once, default the number of processors.</li>
+ * </ul>
+ * Output is compared with that expected line by line, ignoring line ends at the end, so 
+ * expected output can be captured by running the MARS command with the <tt>nc</tt> option.
+ * The summary has one line per run, in submission and test order, each a JSON object
+ * holding the submission and test names, the status, the exit code given to syscall 17,
+ * the number of instructions executed, the run time in milliseconds, the first difference
+ * between actual and expected output, and any error message.  The status is one of
+ * <tt>passed</tt>, <tt>failed</tt> (output differs), <tt>completed</tt> (no expected 
+ * output), <tt>assemble-error</tt>, <tt>runtime-error</tt>, <tt>step-limit</tt> or 
+ * <tt>timeout</tt>.
+ */
+    public class MarsBatch {
+      private static final String INPUT_EXTENSION = ".in";
+      private static final String EXPECTED_EXTENSION = ".out";
+      private static final String CHARSET = "ISO-8859-1"; // one char per byte, as in MIPS memory
+      private static final int MAXIMUM_DIFF_LENGTH = 200;
+   
+      private File summaryFile;
+      private int maxSteps;
+      private long timeout;
+      private int threads;
+      private boolean pseudo;
+      private boolean warningsAreErrors;
+      private boolean startAtMain;
+      private ArrayList<Submission> submissions;
+      private ArrayList<Test> tests;
+      private Timer timer;
+   
+      /**
+   	* Read the manifest and list the submissions and tests it names.
+   	* @param manifest the manifest file
+   	* @param maxSteps instruction limit if the manifest gives none, 0 or less for none
+   	* @param pseudo true if pseudo instructions are allowed
+   	* @param warningsAreErrors true if assembler warnings are treated as errors
+   	* @param startAtMain true if execution starts at the global label main
+   	* @throws IOException if the manifest or a directory it names cannot be read
+   	* @throws IllegalArgumentException if the manifest has a missing or invalid value
+   	*/
+       public MarsBatch(File manifest, int maxSteps, boolean pseudo, boolean warningsAreErrors, boolean startAtMain) 
+                     throws IOException {
+         Properties properties = new Properties();
+         InputStream in = new FileInputStream(manifest);
+         try {
+            properties.load(in);
+         } 
+         finally {
+            in.close();
+         }
+         File base = manifest.getAbsoluteFile().getParentFile();
+         String submissionsPath = properties.getProperty("submissions");
+         if (submissionsPath == null) {
+            throw new IllegalArgumentException("manifest does not give a submissions directory");
+         }
+         String testsPath = properties.getProperty("tests");
+         this.summaryFile = resolve(base, properties.getProperty("summary", "summary.jsonl"));
+         this.maxSteps = getInteger(properties, "steps", maxSteps);
+         this.timeout = getInteger(properties, "timeout", 0) * 1000L;
+         this.threads = getInteger(properties, "threads", Runtime.getRuntime().availableProcessors());
+         if (this.threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+         }
+         this.pseudo = pseudo;
+         this.warningsAreErrors = warningsAreErrors;
+         this.startAtMain = startAtMain;
+         this.submissions = findSubmissions(resolve(base, submissionsPath));
+         this.tests = (testsPath == null) ? findNoTests() : findTests(resolve(base, testsPath));
+      }
+   
+      /**
+   	* Get the file the summary is written to.
+   	* @return the summary file
+   	*/
+       public File getSummaryFile() {
+         return summaryFile;
+      }
+   
+      /**
+   	* Get the number of runs in the batch, one for each submission and test.
+   	* @return number of runs
+   	*/
+       public int getRunCount() {
+         return submissions.size() * tests.size();
+      }
+   
+      /**
+   	* Run every submission against every test and write the summary.
+   	* @return the number of runs of each status, by status name
+   	* @throws IOException if the summary cannot be written
+   	* @throws InterruptedException if interrupted while waiting for the runs
+   	*/
+       public TreeMap<String, Integer> run() throws IOException, InterruptedException {
+         timer = new Timer("MARS batch timeout", true);
+         ExecutorService pool = Executors.newFixedThreadPool(threads);
+         ArrayList<Future<Result>> futures = new ArrayList<Future<Result>>();
+         for (int i = 0; i < submissions.size(); i++) {
+            for (int j = 0; j < tests.size(); j++) {
+               final Submission submission = submissions.get(i);
+               final Test test = tests.get(j);
+               futures.add(pool.submit(
+                     new Callable<Result>() {
+                        public Result call() {
+                           return runOne(submission, test);
+                        }
+                     }));
+            }
+         }
+         pool.shutdown();
+         TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+         PrintStream summary = new PrintStream(new FileOutputStream(summaryFile), false, "UTF-8");
+         try {
+            for (int i = 0; i < futures.size(); i++) {
+               Result result;
+               try {
+                  result = futures.get(i).get();
+               } 
+                  catch (ExecutionException e) {
+                     Submission submission = submissions.get(i / tests.size());
+                     Test test = tests.get(i % tests.size());
+                     result = new Result(submission, test);
+                     result.status = "runtime-error";
+                     result.error = String.valueOf(e.getCause());
+                  }
+               summary.println(result.toJson());
+               Integer count = counts.get(result.status);
+               counts.put(result.status, Integer.valueOf((count == null) ? 1 : count.intValue() + 1));
+            }
+         } 
+         finally {
+            summary.close();
+            timer.cancel();
+         }
+         return counts;
+      }
+   
+      // Assemble and run one submission with the input of one test, in a context of its own.
+       private Result runOne(final Submission submission, final Test test) {
+         final Result result = new Result(submission, test);
+         final ByteArrayOutputStream output = new ByteArrayOutputStream();
+         final MachineContext context = new MachineContext();
+         try {
+            PrintStream console = new PrintStream(output, true, CHARSET);
+            context.setConsole(new ByteArrayInputStream(test.input), console, console);
+         } 
+            catch (UnsupportedEncodingException e) {
+               throw new IllegalStateException(e.toString());
+            }
+         long start = System.currentTimeMillis();
+         context.run(
+               new Runnable() {
+                  public void run() {
+                     simulate(submission, result);
+                  }
+               });
+         result.milliseconds = System.currentTimeMillis() - start;
+         result.exitCode = context.getExitCode();
+         if (result.status == null) {
+            try {
+               compare(output.toString(CHARSET), test.expected, result);
+            } 
+               catch (UnsupportedEncodingException e) {
+                  throw new IllegalStateException(e.toString());
+               }
+         }
+         return result;
+      }
+   
+      // Assemble and run the submission in the current context.  Leaves the result status
+      // null if the program completed.
+       private void simulate(Submission submission, Result result) {
+         MIPSprogram program = new MIPSprogram();
+         try {
+            ArrayList<?> programsToAssemble = program.prepareFilesForAssembly(submission.files, submission.leadFile, null);
+            program.assemble(programsToAssemble, pseudo, warningsAreErrors);
+         } 
+            catch (ProcessingException e) {
+               result.status = "assemble-error";
+               result.error = e.errors().generateErrorReport();
+               return;
+            }
+         RegisterFile.initializeProgramCounter(startAtMain);
+         final Simulator simulator = Simulator.getInstance();
+         final boolean[] timedOut = new boolean[1];
+         TimerTask stopper = null;
+         if (timeout > 0) {
+            stopper = 
+               new TimerTask() {
+                  public void run() {
+                     synchronized (timedOut) {
+                        timedOut[0] = true;
+                     }
+                     simulator.stopExecution(null);
+                  }
+               };
+            timer.schedule(stopper, timeout);
+         }
+         boolean done = false;
+         try {
+            done = program.simulate(maxSteps);
+         } 
+            catch (ProcessingException e) {
+               result.status = "runtime-error";
+               result.error = e.errors().generateErrorReport();
+            } 
+         finally {
+            if (stopper != null) {
+               stopper.cancel();
+            }
+         }
+         result.instructions = simulator.getInstructionCount();
+         synchronized (timedOut) {
+            if (timedOut[0]) {
+               result.status = "timeout";
+            }
+         }
+         if (result.status == null && !done) {
+            // Without an error, a run ends unfinished only at the step limit or if the
+            // simulator itself failed.
+            if (maxSteps > 0 && result.instructions >= maxSteps) {
+               result.status = "step-limit";
+            } 
+            else {
+               result.status = "runtime-error";
+               result.error = "simulation ended abnormally";
+            }
+         }
+      }
+   
+      // Set the status of a completed run by comparing its output with that expected, and
+      // describe the first line that differs.  Line ends at the end are not compared, since
+      // the MARS command adds one to the program's output.
+       private static void compare(String actual, String expected, Result result) {
+         if (expected == null) {
+            result.status = "completed";
+            return;
+         }
+         actual = trimLineEnds(actual.replace("\r\n", "\n"));
+         expected = trimLineEnds(expected.replace("\r\n", "\n"));
+         if (actual.equals(expected)) {
+            result.status = "passed";
+            return;
+         }
+         result.status = "failed";
+         String[] actualLines = actual.split("\n", -1);
+         String[] expectedLines = expected.split("\n", -1);
+         int line = 0;
+         while (line < actualLines.length && line < expectedLines.length && 
+                actualLines[line].equals(expectedLines[line])) {
+            line++;
+         }
+         result.diff = "line " + (line + 1) + ": expected " + describeLine(expectedLines, line) + 
+                       " but was " + describeLine(actualLines, line);
+      }
+   
+       private static String trimLineEnds(String s) {
+         int end = s.length();
+         while (end > 0 && s.charAt(end - 1) == '\n') {
+            end--;
+         }
+         return s.substring(0, end);
+      }
+   
+       private static String describeLine(String[] lines, int line) {
+         if (line >= lines.length) {
+            return "end of output";
+         }
+         String text = lines[line];
+         if (text.length() > MAXIMUM_DIFF_LENGTH) {
+            text = text.substring(0, MAXIMUM_DIFF_LENGTH) + "...";
+         }
+         return "\"" + text + "\"";
+      }
+   
+      // Each assembly file in the directory is a submission, as is each subdirectory.
+       private static ArrayList<Submission> findSubmissions(File directory) throws IOException {
+         File[] entries = listSorted(directory);
+         ArrayList<Submission> submissions = new ArrayList<Submission>();
+         for (int i = 0; i < entries.length; i++) {
+            ArrayList<String> files;
+            if (entries[i].isDirectory()) {
+               files = toStrings(FilenameFinder.getFilenameList(entries[i].getPath(), Globals.fileExtensions));
+               Collections.sort(files);
+            } 
+            else {
+               ArrayList<String> names = new ArrayList<String>();
+               names.add(entries[i].getPath());
+               files = toStrings(FilenameFinder.getFilenameList(names, Globals.fileExtensions));
+            }
+            if (files.size() > 0) {
+               submissions.add(new Submission(entries[i].getName(), files));
+            }
+         }
+         return submissions;
+      }
+   
+      // A test for each base name having a .in or .out file.
+       private static ArrayList<Test> findTests(File directory) throws IOException {
+         File[] entries = listSorted(directory);
+         TreeSet<String> names = new TreeSet<String>();
+         for (int i = 0; i < entries.length; i++) {
+            String name = entries[i].getName();
+            if (entries[i].isFile() && (name.endsWith(INPUT_EXTENSION) || name.endsWith(EXPECTED_EXTENSION))) {
+               names.add(name.substring(0, name.lastIndexOf('.')));
+            }
+         }
+         ArrayList<Test> tests = new ArrayList<Test>();
+         for (String name : names) {
+            File input = new File(directory, name + INPUT_EXTENSION);
+            File expected = new File(directory, name + EXPECTED_EXTENSION);
+            tests.add(new Test(name, 
+                               input.isFile() ? readFile(input) : new byte[0],
+                               expected.isFile() ? new String(readFile(expected), CHARSET) : null));
+         }
+         return tests;
+      }
+   
+       private static ArrayList<Test> findNoTests() {
+         ArrayList<Test> tests = new ArrayList<Test>();
+         tests.add(new Test("", new byte[0], null));
+         return tests;
+      }
+   
+      // The file names FilenameFinder returns, as a list of Strings.
+       private static ArrayList<String> toStrings(List<?> names) {
+         ArrayList<String> strings = new ArrayList<String>(names.size());
+         for (Object name : names) {
+            strings.add((String) name);
+         }
+         return strings;
+      }
+   
+       private static File[] listSorted(File directory) throws IOException {
+         File[] entries = directory.listFiles();
+         if (entries == null) {
+            throw new IOException("cannot list directory " + directory);
+         }
+         Arrays.sort(entries);
+         return entries;
+      }
+   
+       private static byte[] readFile(File file) throws IOException {
+         InputStream in = new FileInputStream(file);
+         try {
+            ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+               contents.write(buffer, 0, length);
+            }
+            return contents.toByteArray();
+         } 
+         finally {
+            in.close();
+         }
+      }
+   
+       private static File resolve(File base, String path) {
+         File file = new File(path);
+         return (file.isAbsolute()) ? file : new File(base, path);
+      }
+   
+       private static int getInteger(Properties properties, String key, int defaultValue) {
+         String value = properties.getProperty(key);
+         if (value == null) {
+            return defaultValue;
+         }
+         try {
+            return Integer.decode(value.trim()).intValue();
+         } 
+            catch (NumberFormatException e) {
+               throw new IllegalArgumentException("invalid " + key + " value: " + value);
+            }
+      }
+   
+      // Quote a string for the summary.
+       private static String quote(String s) {
+         if (s == null) {
+            return "null";
+         }
+         StringBuffer quoted = new StringBuffer(s.length() + 2);
+         quoted.append('"');
+         for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+               case '"' :  quoted.append("\\\""); 
+                  break;
+               case '\\' :  quoted.append("\\\\"); 
+                  break;
+               case '\n' :  quoted.append("\\n"); 
+                  break;
+               case '\r' :  quoted.append("\\r"); 
+                  break;
+               case '\t' :  quoted.append("\\t"); 
+                  break;
+               default :
+                  if (c < ' ') {
+                     quoted.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                  } 
+                  else {
+                     quoted.append(c);
+                  }
+            }
+         }
+         return quoted.append('"').toString();
+      }
+   
+      // One program to be run: a name and the files making it up, main file first.
+       private static class Submission {
+         private String name;
+         private ArrayList<String> files;
+         private String leadFile;
+          Submission(String name, ArrayList<String> files) {
+            this.name = name;
+            this.files = files;
+            this.leadFile = files.get(0);
+         }
+      }
+   
+      // One test: a name, console input, and the expected console output (null if none).
+       private static class Test {
+         private String name;
+         private byte[] input;
+         private String expected;
+          Test(String name, byte[] input, String expected) {
+            this.name = name;
+            this.input = input;
+            this.expected = expected;
+         }
+      }
+   
+      // Outcome of running one submission with one test.
+       private static class Result {
+         private Submission submission;
+         private Test test;
+         private String status;
+         private int exitCode;
+         private int instructions;
+         private long milliseconds;
+         private String diff;
+         private String error;
+          Result(Submission submission, Test test) {
+            this.submission = submission;
+            this.test = test;
+         }
+          String toJson() {
+            return "{\"submission\":" + quote(submission.name) + 
+                   ",\"test\":" + quote(test.name) +
+                   ",\"status\":" + quote(status) +
+                   ",\"exitCode\":" + exitCode +
+                   ",\"instructions\":" + instructions +
+                   ",\"milliseconds\":" + milliseconds +
+                   ",\"diff\":" + quote(diff) +
+                   ",\"error\":" + quote(error) + "}";
+         }
+      }
+   }
@@ -56,6 +56,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  ae<n>  -- terminate MARS with integer exit code <n> if an assemble error occurs.<br>
    	  ascii  -- display memory or register contents interpreted as ASCII
    		   b  -- brief - do not display register/memory address along with contents<br>
+        batch  -- run every program in a directory against every test in another, several<br>
+                  at once, and write a summary of results.  Option has 1 argument, the<br>
+                  manifest file naming the directories: <tt>batch &lt;manifest&gt;</tt>.  See<br>
+                  MarsBatch for its contents.  No filename is given.<br>
+           bb  -- Basic Block engine - run frequently executed straight-line code in compiled<br>
+                  blocks.  Faster for long-running programs; results are the same.<br>
    		   d  -- print debugging statements<br>
            da  -- both a and d<br>
            db  -- MIPS delayed branching is enabled.<br>
@@ -71,15 +77,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
            mc  -- set memory configuration.  Option has 1 argument, e.g.<br>
                   <tt>mc &lt;config$gt;</tt>, where &lt;config$gt; is <tt>Default</tt><br>
                   for the MARS default 32-bit address space, <tt>CompactDataAtZero</tt> for<br>
-                  a 32KB address space with data segment at address 0, or <tt>CompactTextAtZero</tt><br>
-                  for a 32KB address space with text segment at address 0.<br>
+                  a 32KB address space with data segment at address 0, <tt>CompactTextAtZero</tt><br>
+                  for a 32KB address space with text segment at address 0, or <tt>Large</tt><br>
+                  for the default address space with data segment and stack not limited to 4MB.<br>
            me  -- display MARS messages to standard err instead of standard out. Can separate via redirection.</br>
            nc  -- do not display copyright notice (for cleaner redirected/piped output).</br>
    		  np  -- No Pseudo-instructions allowed ("ne" will work also).<br>
    		   p  -- Project mode - assemble all files in the same directory as given file.<br>
+           pi  -- Pre-read Input - console input is read in full before the program runs, and<br>
+                  the read syscalls scan it from memory.  Same results, faster for large<br>
+                  redirected input; not for typing input at the keyboard.<br>
    	  se<n>  -- terminate MARS with integer exit code <n> if a simulation (run) error occurs.<br>
            sm  -- Start execution at Main - Execution will start at program statement globally labeled main.<br>
           smc  -- Self Modifying Code - Program can write and branch to either text or data segment<br>
+        vc<n>  -- Virtual Clock - Time and Sleep syscalls use simulated time, in which each<br>
+                  instruction takes one cycle of an <n> Hz clock (1000000 if <n> is omitted)<br>
+                  and Sleep returns at once.  Results do not depend on host speed.<br>
            we  -- assembler Warnings will be considered Errors<br>
           <n>  -- where <n> is an integer maximum count of steps to simulate.<br>
                   If 0, negative or not specified, there is no maximum.<br>
@@ -108,6 +121,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private boolean startAtMain; // Whether to start execution at statement labeled 'main' 
       private boolean countInstructions; // Whether to count and report number of instructions executed 
       private boolean selfModifyingCode; // Whether to allow self-modifying code (e.g. write to text segment)
+      private boolean basicBlockEngine; // Whether to compile hot straight-line code into basic blocks
+      private long virtualClockRate; // Instructions per second of virtual time for Time and Sleep syscalls, 0 for host time
+      private boolean preReadInput; // Whether console input is read in full and scanned, rather than a line at a time
       private static final String rangeSeparator = "-";
       private static final int splashDuration = 2000; // time in MS to show splash screen
       private static final int memoryWordsPerLine = 4; // display 4 memory words, tab separated, per line
@@ -122,6 +138,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private int instructionCount;
       private PrintStream out; // stream for display of command line output
       private ArrayList dumpTriples = null; // each element holds 3 arguments for dump option
+      private String batchManifest = null; // manifest file given with batch option
       private ArrayList programArgumentList; // optional program args for MIPS program (becomes argc, argv)
       private int assembleErrorExitCode;  // MARS command exit code to return if assemble error occurs
       private int simulateErrorExitCode;// MARS command exit code to return if simulation error occurs
@@ -145,6 +162,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             startAtMain = false;
             countInstructions = false;
 				selfModifyingCode = false;
+            basicBlockEngine = false;
+            virtualClockRate = 0;
+            preReadInput = false;
             instructionCount = 0;
             assembleErrorExitCode = 0;
             simulateErrorExitCode = 0;
@@ -157,12 +177,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             maxSteps = -1;
             out = System.out;  
             if (parseCommandArgs(args)) {
-               if (runCommand()) {
-                  displayMiscellaneousPostMortem();
-                  displayRegistersPostMortem();
-                  displayMemoryPostMortem();
+               if (batchManifest != null) {
+                  runBatch();
+               } 
+               else {
+                  if (runCommand()) {
+                     displayMiscellaneousPostMortem();
+                     displayRegistersPostMortem();
+                     displayMemoryPostMortem();
+                  }
+                  dumpSegments();
                }
-               dumpSegments();
             }
             System.exit(Globals.exitCode);
          }
@@ -208,7 +233,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                continue;
             }
             try {
-               int highAddress = Globals.memory.getAddressOfFirstNull(segInfo[0].intValue(), segInfo[1].intValue())- Memory.WORD_LENGTH_BYTES;
+               int highAddress = Memory.getInstance().getAddressOfFirstNull(segInfo[0].intValue(), segInfo[1].intValue())- Memory.WORD_LENGTH_BYTES;
                if (highAddress < segInfo[0].intValue()) {
                   out.println("This segment has not been written to, there is nothing to dump.");
                   continue;
@@ -311,6 +336,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                }
                continue;
             } 
+            if (args[i].toLowerCase().equals("batch")) {
+               if (args.length <= (i+1)) {
+                  out.println("Batch command line argument requires a manifest file name.");
+                  argsOK = false;
+               } 
+               else {
+                  batchManifest = args[++i];
+               }
+               continue;
+            } 
             if (args[i].toLowerCase().equals("mc")) {
                String configName = args[++i];
                MemoryConfiguration config = MemoryConfigurations.getConfigurationByName(configName);
@@ -363,6 +398,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                assembleProject = true;
                continue;
             }
+            if (args[i].toLowerCase().equals("pi")) {
+               preReadInput = true;
+               continue;
+            }
             if (args[i].toLowerCase().equals("dec")) {
                displayFormat = DECIMAL;
                continue;
@@ -399,10 +438,27 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                selfModifyingCode = true;
                continue;
             }
+            if (args[i].toLowerCase().equals("bb")) {
+               basicBlockEngine = true;
+               continue;
+            }
             if (args[i].toLowerCase().equals("ic")) { // added 19-Jul-2012 DPS
                countInstructions = true;
                continue;
             }
+         	// Virtual clock, with optional clock rate
+            if (args[i].toLowerCase().indexOf("vc")==0) {
+               String s = args[i].substring(2);
+               try {
+                  virtualClockRate = (s.length() == 0) ? VirtualClock.DEFAULT_CLOCK_RATE : Long.decode(s).longValue();
+                  if (virtualClockRate > 0) {
+                     continue;
+                  }
+               }              
+                  catch (NumberFormatException nfe) {
+                   // Let it fall thru and get handled by catch-all
+                  }
+            }
          
          
             if (args[i].indexOf("$") == 0) {
@@ -467,6 +523,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          try {
             Globals.getSettings().setBooleanSettingNonPersistent(Settings.DELAYED_BRANCHING_ENABLED, delayedBranching);
             Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, selfModifyingCode);
+            Globals.getSettings().setBooleanSettingNonPersistent(Settings.BASIC_BLOCK_ENGINE_ENABLED, basicBlockEngine);
+            VirtualClock.setClockRate(virtualClockRate);
+            InputScanner.setEnabled(preReadInput);
             File mainFile = new File((String) filenameList.get(0)).getAbsoluteFile();// First file is "main" file
             ArrayList filesToAssemble;
             if (assembleProject) { 
@@ -533,6 +592,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    
+   	//////////////////////////////////////////////////////////////////////
+   	// Carry out the batch option: run every submission against every test
+   	// listed by the manifest and write the summary.  See MarsBatch.
+   	
+      private void runBatch() {
+         Globals.getSettings().setBooleanSettingNonPersistent(Settings.DELAYED_BRANCHING_ENABLED, delayedBranching);
+         Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, selfModifyingCode);
+         Globals.getSettings().setBooleanSettingNonPersistent(Settings.BASIC_BLOCK_ENGINE_ENABLED, basicBlockEngine);
+         VirtualClock.setClockRate(virtualClockRate);
+         InputScanner.setEnabled(preReadInput);
+         try {
+            MarsBatch batch = new MarsBatch(new File(batchManifest), maxSteps, pseudo, warningsAreErrors, startAtMain);
+            TreeMap<String, Integer> counts = batch.run();
+            out.println(batch.getRunCount() + " runs " + counts + ", summary in " + batch.getSummaryFile());
+         } 
+            catch (IOException e) {
+               out.println("Batch error: " + e.getMessage());
+            } 
+            catch (IllegalArgumentException e) {
+               out.println("Batch manifest " + batchManifest + " is invalid: " + e.getMessage());
+            } 
+            catch (InterruptedException e) {
+               out.println("Batch interrupted");
+            }
+      }
+   
    	//////////////////////////////////////////////////////////////////////
       // Check for memory address subrange.  Has to be two integers separated
       // by "-"; no embedded spaces.  e.g. 0x00400000-0x00400010
@@ -563,27 +648,28 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// DPS 19 July 2012
       private void establishObserver() { 
          if (countInstructions) {
-            Observer instructionCounter = 
-               new Observer() {
-                  private int lastAddress = 0;
-                  public void update(Observable o, Object obj) { 
-                     if (obj instanceof AccessNotice) {
-                        AccessNotice notice = (AccessNotice) obj;
-                        if (!notice.accessIsFromMIPS()) 
-                           return;
-                        if (notice.getAccessType() != AccessNotice.READ) 
-                           return;
-                        MemoryAccessNotice m = (MemoryAccessNotice) notice;
-                        int a = m.getAddress();
-                        if (a == lastAddress) 
-                           return;
-                        lastAddress = a;
-                        instructionCount++;				  
-                     }
+            // Implements MemoryAccessListener so memory does not create a notice for every
+            // instruction fetch.  Accesses from the MIPS program are on the "MIPS" thread.
+            class InstructionCountObserver implements Observer, MemoryAccessListener {
+               private int lastAddress = 0;
+               public void memoryAccessed(int type, int address, int length, int value) {
+                  if (type != AccessNotice.READ || !Thread.currentThread().getName().startsWith("MIPS")) 
+                     return;
+                  if (address == lastAddress) 
+                     return;
+                  lastAddress = address;
+                  instructionCount++;				  
+               }
+               public void update(Observable o, Object obj) { 
+                  if (obj instanceof MemoryAccessNotice) {
+                     MemoryAccessNotice m = (MemoryAccessNotice) obj;
+                     memoryAccessed(m.getAccessType(), m.getAddress(), m.getLength(), m.getValue());
                   }
-               };
+               }
+            }
+            Observer instructionCounter = new InstructionCountObserver();
             try {
-               Globals.memory.addObserver(instructionCounter, Memory.textBaseAddress, Memory.textLimitAddress);
+               Memory.getInstance().addObserver(instructionCounter, Memory.textBaseAddress, Memory.textLimitAddress);
             } 
                catch (AddressErrorException aee) {
                   out.println("Internal error: MarsLaunch uses incorrect text segment address for instruction observer");
@@ -722,11 +808,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                try {
                   // Allow display of binary text segment (machine code) DPS 14-July-2008
                   if (Memory.inTextSegment(addr) || Memory.inKernelTextSegment(addr)) {
-                     Integer iValue = Globals.memory.getRawWordOrNull(addr);
+                     Integer iValue = Memory.getInstance().getRawWordOrNull(addr);
                      value = (iValue==null) ? 0 : iValue.intValue();
                   } 
                   else {
-                     value = Globals.memory.getWord(addr);
+                     value = Memory.getInstance().getWord(addr);
                   }
                   out.print( formatIntForDisplay(value)+"\t");
                }
@@ -792,6 +878,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          out.println("  ae<n>  -- terminate MARS with integer exit code <n> if an assemble error occurs.");
          out.println("  ascii  -- display memory or register contents interpreted as ASCII codes.");
          out.println("      b  -- brief - do not display register/memory address along with contents");
+         out.println("  batch <manifest>  -- run every program in a directory against every test in");
+         out.println("            another, several at once, and write a summary file of results.");
+         out.println("            The manifest is a properties file with keys submissions (directory");
+         out.println("            of programs, each a file or a subdirectory), tests (directory of");
+         out.println("            <name>.in input and <name>.out expected output files), summary");
+         out.println("            (result file, one JSON object per run), steps (instruction limit");
+         out.println("            per run, default <n>), timeout (seconds per run) and threads.");
+         out.println("            Use with no filename.");
+         out.println("     bb  -- Basic Block engine - run frequently executed straight-line code in");
+         out.println("            compiled blocks.  Faster for long-running programs; results are the same.");
          out.println("      d  -- display MARS debugging statements");
          out.println("     db  -- MIPS delayed branching is enabled");
          out.println("    dec  -- display memory or register contents in decimal.");
@@ -807,16 +903,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          out.println("     mc <config>  -- set memory configuration.  Argument <config> is");
          out.println("            case-sensitive and possible values are: Default for the default");
          out.println("            32-bit address space, CompactDataAtZero for a 32KB memory with");
-         out.println("            data segment at address 0, or CompactTextAtZero for a 32KB");
-         out.println("            memory with text segment at address 0.");
+         out.println("            data segment at address 0, CompactTextAtZero for a 32KB memory");
+         out.println("            with text segment at address 0, or Large for the default");
+         out.println("            address space with data segment and stack not limited to 4MB.");
          out.println("     me  -- display MARS messages to standard err instead of standard out. ");
          out.println("            Can separate messages from program output using redirection");
          out.println("     nc  -- do not display copyright notice (for cleaner redirected/piped output).");
          out.println("     np  -- use of pseudo instructions and formats not permitted");
          out.println("      p  -- Project mode - assemble all files in the same directory as given file.");
+         out.println("     pi  -- Pre-read Input - console input is read in full before the program runs, and");
+         out.println("            the read syscalls scan it from memory.  Same results, faster for large");
+         out.println("            redirected input; not for typing input at the keyboard.");
          out.println("  se<n>  -- terminate MARS with integer exit code <n> if a simulation (run) error occurs.");
          out.println("     sm  -- start execution at statement with global label main, if defined");
          out.println("    smc  -- Self Modifying Code - Program can write and branch to either text or data segment");
+         out.println("  vc<n>  -- Virtual Clock - Time and Sleep syscalls use simulated time, in which each");
+         out.println("            instruction takes one cycle of an <n> Hz clock (1000000 if <n> is omitted)");
+         out.println("            and Sleep returns at once.  Results do not depend on host speed.");
          out.println("    <n>  -- where <n> is an integer maximum count of steps to simulate.");
          out.println("            If 0, negative or not specified, there is no maximum.");
          out.println(" $<reg>  -- where <reg> is number or name (e.g. 5, t3, f10) of register whose ");
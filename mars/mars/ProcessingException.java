@@ -34,6 +34,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 /**
  * Class to represent error that occurs while assembling or running a MIPS program.
+ * <p>
+ * The simulator also throws one for normal program termination and for every runtime
+ * exception, most of which a program's exception handler catches and returns from.  
+ * So that a program trapping many times is not slowed by it, no stack trace is
+ * recorded and the error message for a runtime exception is not built until 
+ * errors() is called, which is only done if the program terminates with the error.
  * 
  * @author Pete Sanderson
  * @version August 2003
@@ -41,6 +47,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
     public class ProcessingException extends Exception {  
       private ErrorList errs;
+      // Runtime exception whose error list is yet to be built: statement, message, address.
+      private ProgramStatement statement;
+      private String message;
+      private int address;
    
    /**
     * Constructor for ProcessingException.
@@ -71,10 +81,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     * @param m a String containing specialized error message
     **/
        public ProcessingException(ProgramStatement ps, String m) {
-         errs = new ErrorList();
-         errs.add(new ErrorMessage(ps, "Runtime exception at "+
-            Binary.intToHexString(RegisterFile.getProgramCounter()-Instruction.INSTRUCTION_LENGTH)+ 
-            ": "+m));
+         statement = ps;
+         message = m;
+         address = RegisterFile.getProgramCounter()-Instruction.INSTRUCTION_LENGTH;
       		// Stopped using ps.getAddress() because of pseudo-instructions.  All instructions in
       		// the macro expansion point to the same ProgramStatement, and thus all will return the
       		// same value for getAddress(). But only the first such expanded instruction will 
@@ -121,13 +130,39 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    /**
     * Produce the list of error messages.
     * 
-    * @return Returns ErrorList of error messages.
+    * @return Returns ErrorList of error messages, or null for normal MIPS program termination.
     * @see ErrorList
     * @see ErrorMessage
     **/
     
        public ErrorList errors() {
+         if (errs == null && message != null) {
+            errs = new ErrorList();
+            errs.add(new ErrorMessage(statement, "Runtime exception at "+
+               Binary.intToHexString(address)+": "+message));
+         }
          return errs;
       }
    
+   /**
+    * Determine whether this represents an error, as opposed to normal MIPS program 
+    * termination, without building its error list.
+    * 
+    * @return true if errors() would return a list, false if it would return null.
+    **/
+    
+       public boolean isError() {
+         return errs != null || message != null;
+      }
+   
+   /**
+    * No stack trace is recorded; the location of interest is the MIPS statement.
+    * 
+    * @return this exception.
+    **/
+    
+       public Throwable fillInStackTrace() {
+         return this;
+      }
+   
    }
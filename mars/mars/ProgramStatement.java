@@ -55,7 +55,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private int sourceLine;
       private int binaryStatement;
       private boolean altered;
+      private BinaryDecoding decoding; // for statements built from binary code only
       private static final String invalidOperator = "<INVALID>";
+      // Decodings of binary statements, shared by all statements having the same binary 
+      // code (and, for jumps, the same 256MB region), so the code written by self-modifying 
+      // programs or fetched from the data segment is decoded once per distinct word.  
+      // Direct mapped; an entry is replaced when another word maps to the same index.
+      private static final int DECODING_CACHE_LENGTH = 4096;
+      private static final BinaryDecoding[] decodingCache = new BinaryDecoding[DECODING_CACHE_LENGTH];
     
     //////////////////////////////////////////////////////////////////////////////////
     /**
@@ -106,44 +113,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          this.originalTokenList = this.strippedTokenList = null;
          this.source = "";
          this.machineStatement = this.basicAssemblyStatement = null;
-         BasicInstruction instr = Globals.instructionSet.findByBinaryCode(binaryStatement);
-         if (instr == null) {
-            this.operands = null;
-            this.numOperands = 0;
-            this.instruction = (binaryStatement==0) // this is a "nop" statement
-               			? (Instruction) Globals.instructionSet.matchOperator("nop").get(0)
-               				 : null;
-         } 
-         else {
-            this.operands = new int[4];
-            this.numOperands = 0;
-            this.instruction = instr;
-         
-            String opandCodes = "fst";
-            String fmt = instr.getOperationMask();
-            BasicInstructionFormat instrFormat = instr.getInstructionFormat();
-            int numOps = 0;
-            for (int i = 0; i < opandCodes.length(); i++) {
-               int code = opandCodes.charAt(i);
-               int j = fmt.indexOf(code);
-               if (j >= 0) {
-                  int k0 = 31 - fmt.lastIndexOf(code);
-                  int k1 = 31 - j;
-                  int opand = (binaryStatement >> k0) & ((1 << (k1 - k0 + 1)) - 1);
-                  if (instrFormat.equals(BasicInstructionFormat.I_BRANCH_FORMAT) && numOps == 2) {
-                     opand = opand << 16 >> 16;
-                  } 
-                  else if (instrFormat.equals(BasicInstructionFormat.J_FORMAT) && numOps == 0) {
-                     opand |= (textAddress >> 2) & 0x3C000000;
-                  }
-                  this.operands[numOps] = opand;
-                  numOps++;
-               }
-            }
-            this.numOperands = numOps;
-         }
+         this.decoding = BinaryDecoding.of(binaryStatement, textAddress);
+         this.instruction = decoding.instruction;
+         this.operands = decoding.operands;
+         this.numOperands = decoding.numOperands;
          this.altered = false;
-         this.basicStatementList = buildBasicStatementListFromBinaryCode(binaryStatement, instr, operands, numOperands);
+         this.basicStatementList = null; // built when first needed, see getPrintableBasicAssemblyStatement()
       }
    	
    
@@ -499,6 +474,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      * @return The Basic Assembly statement.
      **/   
        public String getPrintableBasicAssemblyStatement() {
+         if (basicStatementList == null) {
+            basicStatementList = decoding.getBasicStatementList();
+         }
          return basicStatementList.toString();
       }
    	 
@@ -597,7 +575,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     *   used by the constructor that is given only the int address and binary code.  It is not
     *   intended to be used when source code is available.  DPS 11-July-2013
     */
-       private BasicStatementList buildBasicStatementListFromBinaryCode(int binary, BasicInstruction instr, int[] operands, int numOperands) {      
+       private static BasicStatementList buildBasicStatementListFromBinaryCode(int binary, BasicInstruction instr, int[] operands, int numOperands) {      
          BasicStatementList statementList = new BasicStatementList();
          int tokenListCounter = 1;  // index 0 is operator; operands start at index 1
          if (instr == null) {
@@ -652,6 +630,85 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
    
    
+       //////////////////////////////////////////////////////////
+   	 //
+   	 //  The decoding of a binary statement: its instruction and operands, and 
+   	 //  its basic statement list, which is built only when first needed.  Shared 
+   	 //  through decodingCache by statements with the same binary code.  Operands
+   	 //  of a J-format instruction take their upper bits from the text address, so
+   	 //  the decoding is also specific to the 256MB region of that address.
+   	 
+       private static final class BinaryDecoding {
+         final int binary;
+         final int region;
+         final Instruction instruction;
+         final int[] operands;
+         final int numOperands;
+         private volatile BasicStatementList basicStatementList;
+      
+         // Get the decoding of a binary statement at the given address, from the cache if possible.
+          static BinaryDecoding of(int binary, int textAddress) {
+            int region = textAddress & 0xF0000000;
+            int index = ((binary * 0x9E3779B9) ^ region) >>> 20;
+            BinaryDecoding decoding = decodingCache[index];
+            if (decoding == null || decoding.binary != binary || decoding.region != region) {
+               decoding = new BinaryDecoding(binary, textAddress);
+               decodingCache[index] = decoding;
+            }
+            return decoding;
+         }
+      
+          private BinaryDecoding(int binaryStatement, int textAddress) {
+            this.binary = binaryStatement;
+            this.region = textAddress & 0xF0000000;
+            BasicInstruction instr = Globals.instructionSet.findByBinaryCode(binaryStatement);
+            if (instr == null) {
+               this.operands = null;
+               this.numOperands = 0;
+               this.instruction = (binaryStatement==0) // this is a "nop" statement
+                  			? (Instruction) Globals.instructionSet.matchOperator("nop").get(0)
+                  				 : null;
+            } 
+            else {
+               int[] operands = new int[4];
+               String opandCodes = "fst";
+               String fmt = instr.getOperationMask();
+               BasicInstructionFormat instrFormat = instr.getInstructionFormat();
+               int numOps = 0;
+               for (int i = 0; i < opandCodes.length(); i++) {
+                  int code = opandCodes.charAt(i);
+                  int j = fmt.indexOf(code);
+                  if (j >= 0) {
+                     int k0 = 31 - fmt.lastIndexOf(code);
+                     int k1 = 31 - j;
+                     int opand = (binaryStatement >> k0) & ((1 << (k1 - k0 + 1)) - 1);
+                     if (instrFormat.equals(BasicInstructionFormat.I_BRANCH_FORMAT) && numOps == 2) {
+                        opand = opand << 16 >> 16;
+                     } 
+                     else if (instrFormat.equals(BasicInstructionFormat.J_FORMAT) && numOps == 0) {
+                        opand |= (textAddress >> 2) & 0x3C000000;
+                     }
+                     operands[numOps] = opand;
+                     numOps++;
+                  }
+               }
+               this.operands = operands;
+               this.numOperands = numOps;
+               this.instruction = instr;
+            }
+         }
+      
+          BasicStatementList getBasicStatementList() {
+            BasicStatementList list = basicStatementList;
+            if (list == null) {
+               BasicInstruction instr = (operands == null) ? null : (BasicInstruction) instruction;
+               list = buildBasicStatementListFromBinaryCode(binary, instr, operands, numOperands);
+               basicStatementList = list;
+            }
+            return list;
+         }
+      }
+   
        //////////////////////////////////////////////////////////
    	 //
    	 //  Little class to represent basic statement as list
@@ -667,7 +724,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 //
    	 //  DPS 29-July-2010
    	 
-       private class BasicStatementList {
+       private static class BasicStatementList {
       
          private ArrayList list;
       
@@ -715,7 +772,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return result.toString();
          }
       	
-          private class ListElement {
+          private static class ListElement {
             int type;
             String sValue;
             int iValue;
@@ -112,6 +112,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     /** Flag to determine whether a program can write binary code to the text or data segment and
         execute that code.  */
       public static final int SELF_MODIFYING_CODE_ENABLED = 20;	
+    /** Flag to determine whether the simulator will compile frequently executed straight-line
+        code into basic blocks that run without per-instruction checks.  */
+      public static final int BASIC_BLOCK_ENGINE_ENABLED = 21;	
    
       // NOTE: key sequence must match up with labels above which are used for array indexes!
       private static String[] booleanSettingsKeys = {"ExtendedAssembler", "BareMachine", "AssembleOnOpen", "AssembleAll",
@@ -120,7 +123,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          												"WarningsAreErrors", "ProgramArguments", "DataSegmentHighlighting",
          												"RegistersHighlighting", "StartAtMain", "EditorCurrentLineHighlighting",
          												"PopupInstructionGuidance", "PopupSyscallInput", "GenericTextEditor", 
-         												"AutoIndent", "SelfModifyingCode" };
+         												"AutoIndent", "SelfModifyingCode", "BasicBlockEngine" };
    
       /** Last resort default values for boolean settings; will use only  if neither
    	 *  the Preferences nor the properties file work. If you wish to change them, 
@@ -129,7 +132,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
       public static boolean[] defaultBooleanSettingsValues = { // match the above list by position
                                               true, false, false, false, false, true, true, false, false, 
-         												 true, false, false, true, true, false, true, true, false, false, true, false };
+         												 true, false, false, true, true, false, true, true, false, false, true, false, false };
    
       // STRING SETTINGS.  Each array position has associated name.
    	/** Current specified exception handler file (a MIPS assembly source file) */
@@ -305,7 +308,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      * @return true if backstepping is permitted, false otherwise.
      */
        public boolean getBackSteppingEnabled() {
-         return (Globals.program!=null && Globals.program.getBackStepper()!=null && Globals.program.getBackStepper().enabled());
+         MIPSprogram program = MachineContext.current().getProgram();
+         return (program!=null && program.getBackStepper()!=null && program.getBackStepper().enabled());
       }
    
    
@@ -78,7 +78,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          String string = null;
          try {
             for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               Integer temp = Globals.memory.getRawWordOrNull(address);
+               Integer temp = Memory.getInstance().getRawWordOrNull(address);
                if (temp == null) 
                   break;
                out.println(Binary.intToAscii(temp.intValue()));
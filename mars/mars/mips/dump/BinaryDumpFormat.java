@@ -68,7 +68,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          PrintStream out = new PrintStream(new FileOutputStream(file));
          try {
             for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               Integer temp = Globals.memory.getRawWordOrNull(address);
+               Integer temp = Memory.getInstance().getRawWordOrNull(address);
                if (temp == null) 
                   break;
                int word = temp.intValue();
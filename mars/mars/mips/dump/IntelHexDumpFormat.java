@@ -37,7 +37,7 @@
             String string = null;
             try {
                for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-                  Integer temp = Globals.memory.getRawWordOrNull(address);
+                  Integer temp = Memory.getInstance().getRawWordOrNull(address);
                   if (temp == null) 
                      break;
                   string = Integer.toHexString(temp.intValue());
@@ -31,7 +31,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 /**
  * Represents MIPS AddressErrorException. This is generated by the assembler when the
- * source code references a memory address not valid for the context.
+ * source code references a memory address not valid for the context.  The simulator
+ * also throws one for every invalid load, store or fetch, which the program's exception
+ * handler may well catch, so no stack trace is recorded and the message is not 
+ * formatted until asked for.
  * 
  * @author Pete Sanderson 
  * @version August 2003
@@ -39,6 +42,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 public class AddressErrorException extends Exception {  
    private int address;
 	private int type;  // Exceptions.ADDRESS_EXCEPTION_LOAD,Exceptions.ADDRESS_EXCEPTION_STORE 
+   private String message; // precedes the address in getMessage()
 
 
    /**
@@ -48,11 +52,29 @@ public class AddressErrorException extends Exception {
     **/
     
    public AddressErrorException(String message, int exceptType, int addr) {
-	   super(message+Binary.intToHexString(addr));
+	   this.message = message;
       address = addr;
 		type = exceptType;
    }
 
+   /**
+    * Get the error message, which ends with the erroneous memory address.
+    * 
+    * @return The error message.
+    **/
+   public String getMessage() {
+      return message+Binary.intToHexString(address);
+   }
+
+   /**
+    * No stack trace is recorded.
+    * 
+    * @return this exception.
+    **/
+   public Throwable fillInStackTrace() {
+      return this;
+   }
+
    /**
     * Get the erroneous memory address.
     * 
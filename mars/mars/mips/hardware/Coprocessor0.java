@@ -1,5 +1,6 @@
    package mars.mips.hardware;
    import mars.Globals;
+   import mars.MachineContext;
    import java.util.*;
 
 /*
@@ -49,12 +50,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 		// bit 1 (exception level) not set, bit 0 (interrupt enable) set.
 		public static final int DEFAULT_STATUS_VALUE = 0x0000FF11;
 		
-      private static Register [] registers = 
+   	// Each MachineContext has its own registers; the static methods use the current one's.
+      private final Register [] registers = 
           { new Register("$8 (vaddr)", 8, 0),  
             new Register("$12 (status)", 12, DEFAULT_STATUS_VALUE),
          	new Register("$13 (cause)", 13, 0),  
          	new Register("$14 (epc)", 14, 0)
            };
+   
+   	/**
+   	  *  Create the registers of a new MachineContext, holding their reset values.  Others
+   	  *  use the static methods, which apply to the registers of the current context.
+   	  **/
+   	  
+       public Coprocessor0() {
+      }
+   
+       private static Coprocessor0 current() {
+         return MachineContext.current().getCoprocessor0();
+      }
         												  
    	 
    	/**
@@ -62,10 +76,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/	 
    		 
        public static void showRegisters(){
-         for (int i=0; i< registers.length; i++){
-            System.out.println("Name: " + registers[i].getName());
-            System.out.println("Number: " + registers[i].getNumber());
-            System.out.println("Value: " + registers[i].getValue());	
+         Coprocessor0 cop0 = current();
+         for (int i=0; i< cop0.registers.length; i++){
+            System.out.println("Name: " + cop0.registers[i].getName());
+            System.out.println("Number: " + cop0.registers[i].getNumber());
+            System.out.println("Value: " + cop0.registers[i].getValue());	
             System.out.println(""); 
          }
       }
@@ -78,11 +93,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static int updateRegister(String n, int val){
+		   Coprocessor0 cop0 = current();
 		   int oldValue = 0;
-         for (int i=0; i< registers.length; i++){
-            if(("$"+registers[i].getNumber()).equals(n) || registers[i].getName().equals(n)) {
-				   oldValue = registers[i].getValue();
-               registers[i].setValue(val);
+         for (int i=0; i< cop0.registers.length; i++){
+            if(("$"+cop0.registers[i].getNumber()).equals(n) || cop0.registers[i].getName().equals(n)) {
+				   oldValue = cop0.registers[i].getValue();
+               cop0.registers[i].setValue(val);
                break;
             }
          }
@@ -96,12 +112,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 		  *   @return old value in register prior to update
    	  **/
        public static int updateRegister(int num, int val){
+         Coprocessor0 cop0 = current();
          int old = 0;
-         for (int i=0; i< registers.length; i++){
-            if(registers[i].getNumber()== num) {
+         for (int i=0; i< cop0.registers.length; i++){
+            if(cop0.registers[i].getNumber()== num) {
                old = (Globals.getSettings().getBackSteppingEnabled())
-                        ? Globals.program.getBackStepper().addCoprocessor0Restore(num,registers[i].setValue(val))
-                  		: registers[i].setValue(val);
+                        ? MachineContext.current().getProgram().getBackStepper().addCoprocessor0Restore(num,cop0.registers[i].setValue(val))
+                  		: cop0.registers[i].setValue(val);
                break;
             }
          }
@@ -116,9 +133,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static int getValue(int num){
-         for (int i=0; i< registers.length; i++){
-            if(registers[i].getNumber()== num) {
-               return registers[i].getValue();
+         Coprocessor0 cop0 = current();
+         for (int i=0; i< cop0.registers.length; i++){
+            if(cop0.registers[i].getNumber()== num) {
+               return cop0.registers[i].getValue();
             }
          }
          return 0;
@@ -131,9 +149,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    		  **/	
       		
        public static int getNumber(String n){
-         for (int i=0; i< registers.length; i++){
-            if(("$"+registers[i].getNumber()).equals(n) || registers[i].getName().equals(n)) {
-               return registers[i].getNumber();
+         Coprocessor0 cop0 = current();
+         for (int i=0; i< cop0.registers.length; i++){
+            if(("$"+cop0.registers[i].getNumber()).equals(n) || cop0.registers[i].getName().equals(n)) {
+               return cop0.registers[i].getNumber();
             }
          } 
          return -1;     
@@ -145,7 +164,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static Register[] getRegisters(){
-         return registers;
+         return current().registers;
       }
 
       
@@ -158,8 +177,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static int getRegisterPosition(Register r){
-         for (int i=0; i< registers.length; i++){
-            if(registers[i]==r) {
+         Coprocessor0 cop0 = current();
+         for (int i=0; i< cop0.registers.length; i++){
+            if(cop0.registers[i]==r) {
                return i;
             }
          } 
@@ -173,9 +193,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static Register getRegister(String rname) {
-         for (int i=0; i< registers.length; i++){
-            if(("$"+registers[i].getNumber()).equals(rname) || registers[i].getName().equals(rname)) {
-               return registers[i];
+         Coprocessor0 cop0 = current();
+         for (int i=0; i< cop0.registers.length; i++){
+            if(("$"+cop0.registers[i].getNumber()).equals(rname) || cop0.registers[i].getName().equals(rname)) {
+               return cop0.registers[i];
             }
          } 
          return null;
@@ -187,8 +208,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static void resetRegisters(){
-         for(int i=0; i< registers.length; i++){
-            registers[i].resetValue();
+         Coprocessor0 cop0 = current();
+         for(int i=0; i< cop0.registers.length; i++){
+            cop0.registers[i].resetValue();
          }
       }
       
@@ -197,8 +219,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  will add the given Observer to each one.  
    	 */
        public static void addRegistersObserver(Observer observer) {
-         for (int i=0; i<registers.length; i++) {
-            registers[i].addObserver(observer);
+         Coprocessor0 cop0 = current();
+         for (int i=0; i<cop0.registers.length; i++) {
+            cop0.registers[i].addObserver(observer);
          }
       }
       
@@ -207,9 +230,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  will delete the given Observer from each one.  
    	 */
        public static void deleteRegistersObserver(Observer observer) {
-         for (int i=0; i<registers.length; i++) {
-            registers[i].deleteObserver(observer);
+         Coprocessor0 cop0 = current();
+         for (int i=0; i<cop0.registers.length; i++) {
+            cop0.registers[i].deleteObserver(observer);
+         }
+      }
+      
+      /**
+   	 *  Determine whether any of the registers has an observer.
+   	 *  @return true if at least one register is observed.
+   	 */
+       public static boolean isObserved() {
+         Coprocessor0 cop0 = current();
+         for (int i=0; i<cop0.registers.length; i++) {
+            if (cop0.registers[i].isObserved()) {
+               return true;
+            }
          }
+         return false;
       }
 
    }
@@ -1,6 +1,7 @@
    package mars.mips.hardware;
    import mars.util.*;
    import mars.Globals;
+   import mars.MachineContext;
    import java.util.*;
 
 /*
@@ -48,7 +49,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 // storing into registers, and reassembled upon retrieval.
 
     public  class Coprocessor1 {
-      private static Register [] registers = 
+   	// Each MachineContext has its own registers; the static methods use the current one's.
+      private final Register [] registers = 
           { new Register("$f0", 0, 0),  new Register("$f1", 1, 0),
          	new Register("$f2", 2, 0),  new Register("$f3", 3, 0),
          	new Register("$f4", 4, 0),  new Register("$f5", 5, 0),
@@ -67,19 +69,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          	new Register("$f30", 30, 0),new Register("$f31", 31, 0)
            };
    	// The 8 condition flags will be stored in bits 0-7 for flags 0-7.
-      private static Register condition = new Register("cf",32, 0);	 
+      private final Register condition = new Register("cf",32, 0);	 
       private static int numConditionFlags = 8;
+   
+   	/**
+   	  *  Create the registers of a new MachineContext, holding their reset values.  Others
+   	  *  use the static methods, which apply to the registers of the current context.
+   	  **/
+   	  
+       public Coprocessor1() {
+      }
+   
+       private static Coprocessor1 current() {
+         return MachineContext.current().getCoprocessor1();
+      }
    	
    	/**
    	  *  Method for displaying the register values for debugging.
    	  **/	 
    		 
        public static void showRegisters(){
-         for (int i=0; i< registers.length; i++){
+         Coprocessor1 cop1 = current();
+         for (int i=0; i< cop1.registers.length; i++){
           
-            System.out.println("Name: " + registers[i].getName());
-            System.out.println("Number: " + registers[i].getNumber());
-            System.out.println("Value: " + registers[i].getValue());	
+            System.out.println("Name: " + cop1.registers[i].getName());
+            System.out.println("Number: " + cop1.registers[i].getNumber());
+            System.out.println("Value: " + cop1.registers[i].getValue());	
             System.out.println(""); 
          }
       }
@@ -102,8 +117,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	  
        public static void setRegisterToFloat(int reg, float val){
-         if(reg >= 0 && reg < registers.length) {
-            registers[reg].setValue(Float.floatToRawIntBits(val));
+         Coprocessor1 cop1 = current();
+         if(reg >= 0 && reg < cop1.registers.length) {
+            cop1.registers[reg].setValue(Float.floatToRawIntBits(val));
          }
       }
    
@@ -127,8 +143,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	  
        public static void setRegisterToInt(int reg, int val){
-         if(reg >= 0 && reg < registers.length) {
-            registers[reg].setValue(val);
+         Coprocessor1 cop1 = current();
+         if(reg >= 0 && reg < cop1.registers.length) {
+            cop1.registers[reg].setValue(val);
          }
       }
    
@@ -144,12 +161,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
        public static void setRegisterPairToDouble(int reg, double val) 
                                     throws InvalidRegisterAccessException {
+         Coprocessor1 cop1 = current();
          if (reg % 2 != 0) {
             throw new InvalidRegisterAccessException();
          } 
          long bits = Double.doubleToRawLongBits(val); 
-         registers[reg+1].setValue(Binary.highOrderLongToInt(bits));  // high order 32 bits
-         registers[reg].setValue(Binary.lowOrderLongToInt(bits)); // low order 32 bits
+         cop1.registers[reg+1].setValue(Binary.highOrderLongToInt(bits));  // high order 32 bits
+         cop1.registers[reg].setValue(Binary.lowOrderLongToInt(bits)); // low order 32 bits
       }
    
    
@@ -179,11 +197,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
        public static void setRegisterPairToLong(int reg, long val) 
                                     throws InvalidRegisterAccessException {
+         Coprocessor1 cop1 = current();
          if (reg % 2 != 0) {
             throw new InvalidRegisterAccessException();
          } 
-         registers[reg+1].setValue(Binary.highOrderLongToInt(val));  // high order 32 bits
-         registers[reg].setValue(Binary.lowOrderLongToInt(val)); // low order 32 bits
+         cop1.registers[reg+1].setValue(Binary.highOrderLongToInt(val));  // high order 32 bits
+         cop1.registers[reg].setValue(Binary.lowOrderLongToInt(val)); // low order 32 bits
       }
    
    
@@ -210,9 +229,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static float getFloatFromRegister(int reg){
+         Coprocessor1 cop1 = current();
          float result = 0F;
-         if(reg >= 0 && reg < registers.length) {
-            result = Float.intBitsToFloat(registers[reg].getValue());
+         if(reg >= 0 && reg < cop1.registers.length) {
+            result = Float.intBitsToFloat(cop1.registers[reg].getValue());
          }
          return result;
       }
@@ -236,9 +256,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static int getIntFromRegister(int reg){
+         Coprocessor1 cop1 = current();
          int result = 0;
-         if(reg >= 0 && reg < registers.length) {
-            result = registers[reg].getValue();
+         if(reg >= 0 && reg < cop1.registers.length) {
+            result = cop1.registers[reg].getValue();
          }
          return result;
       }
@@ -264,11 +285,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
        public static double getDoubleFromRegisterPair(int reg) 
                                     throws InvalidRegisterAccessException {
+         Coprocessor1 cop1 = current();
          double result = 0.0;
          if (reg % 2 != 0) {
             throw new InvalidRegisterAccessException();
          } 
-         long bits = Binary.twoIntsToLong(registers[reg+1].getValue(),registers[reg].getValue());
+         long bits = Binary.twoIntsToLong(cop1.registers[reg+1].getValue(),cop1.registers[reg].getValue());
          return Double.longBitsToDouble(bits);
       }
    
@@ -296,11 +318,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
        public static long getLongFromRegisterPair(int reg) 
                                     throws InvalidRegisterAccessException {
+         Coprocessor1 cop1 = current();
          double result = 0.0;
          if (reg % 2 != 0) {
             throw new InvalidRegisterAccessException();
          } 
-         return Binary.twoIntsToLong(registers[reg+1].getValue(),registers[reg].getValue());
+         return Binary.twoIntsToLong(cop1.registers[reg+1].getValue(),cop1.registers[reg].getValue());
       }
    
    
@@ -326,12 +349,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	  
        public static int updateRegister(int num, int val){
+         Coprocessor1 cop1 = current();
          int old = 0;
-         for (int i=0; i< registers.length; i++){
-            if(registers[i].getNumber()== num) {
+         for (int i=0; i< cop1.registers.length; i++){
+            if(cop1.registers[i].getNumber()== num) {
                old = (Globals.getSettings().getBackSteppingEnabled())
-                        ? Globals.program.getBackStepper().addCoprocessor1Restore(num,registers[i].setValue(val))
-                  		: registers[i].setValue(val);
+                        ? MachineContext.current().getProgram().getBackStepper().addCoprocessor1Restore(num,cop1.registers[i].setValue(val))
+                  		: cop1.registers[i].setValue(val);
                break;
             }
          }
@@ -347,7 +371,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static int getValue(int num){
-         return registers[num].getValue();
+         return current().registers[num].getValue();
       }
       		
       	/**
@@ -357,10 +381,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    		  **/	
       		
        public static int getRegisterNumber(String n){
+         Coprocessor1 cop1 = current();
          int j=-1;
-         for (int i=0; i< registers.length; i++){
-            if(registers[i].getName().equals(n)) {
-               j= registers[i].getNumber();
+         for (int i=0; i< cop1.registers.length; i++){
+            if(cop1.registers[i].getName().equals(n)) {
+               j= cop1.registers[i].getNumber();
                break;
             }
          } 
@@ -373,7 +398,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static Register[] getRegisters(){
-         return registers;
+         return current().registers;
       }
       
    	/**
@@ -383,11 +408,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static Register getRegister(String rName) {
+         Coprocessor1 cop1 = current();
          Register reg = null;
          if (rName.charAt(0) == '$' && rName.length() > 1 && rName.charAt(1) == 'f') {
             try {
                    // check for register number 0-31.
-               reg = registers[Binary.stringToInt(rName.substring(2))];    // KENV 1/6/05
+               reg = cop1.registers[Binary.stringToInt(rName.substring(2))];    // KENV 1/6/05
             }
                 catch (Exception e) {
                    // handles both NumberFormat and ArrayIndexOutOfBounds
@@ -403,8 +429,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static void resetRegisters(){
-         for(int i=0; i < registers.length; i++)
-            registers[i].resetValue();
+         Coprocessor1 cop1 = current();
+         for(int i=0; i < cop1.registers.length; i++)
+            cop1.registers[i].resetValue();
          clearConditionFlags();
       }
       
@@ -414,8 +441,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  will add the given Observer to each one.  
    	 */
        public static void addRegistersObserver(Observer observer) {
-         for (int i=0; i<registers.length; i++) {
-            registers[i].addObserver(observer);
+         Coprocessor1 cop1 = current();
+         for (int i=0; i<cop1.registers.length; i++) {
+            cop1.registers[i].addObserver(observer);
          }
       }
 
@@ -425,9 +453,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  will delete the given Observer from each one.  
    	 */
        public static void deleteRegistersObserver(Observer observer) {
-         for (int i=0; i<registers.length; i++) {
-            registers[i].deleteObserver(observer);
+         Coprocessor1 cop1 = current();
+         for (int i=0; i<cop1.registers.length; i++) {
+            cop1.registers[i].deleteObserver(observer);
+         }
+      }
+      
+      /**
+   	 *  Determine whether any of the registers has an observer.
+   	 *  @return true if at least one register is observed.
+   	 */
+       public static boolean isObserved() {
+         Coprocessor1 cop1 = current();
+         for (int i=0; i<cop1.registers.length; i++) {
+            if (cop1.registers[i].isObserved()) {
+               return true;
+            }
          }
+         return false;
       }
    	
    	/**
@@ -437,16 +480,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  @return previous flag setting (0 or 1)
    	 */
        public static int setConditionFlag(int flag) {
+         Coprocessor1 cop1 = current();
          int old = 0;
          if (flag >= 0 && flag < numConditionFlags) {
             old = getConditionFlag(flag);
-            condition.setValue(Binary.setBit(condition.getValue(),flag));
+            cop1.condition.setValue(Binary.setBit(cop1.condition.getValue(),flag));
             if (Globals.getSettings().getBackSteppingEnabled())
                if (old==0) {
-                  Globals.program.getBackStepper().addConditionFlagClear(flag);
+                  MachineContext.current().getProgram().getBackStepper().addConditionFlagClear(flag);
                } 
                else {
-                  Globals.program.getBackStepper().addConditionFlagSet(flag);
+                  MachineContext.current().getProgram().getBackStepper().addConditionFlagSet(flag);
                }
          }
          return old;
@@ -459,16 +503,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  @return previous flag setting (0 or 1)
    	 */
        public static int clearConditionFlag(int flag) {
+         Coprocessor1 cop1 = current();
          int old = 0;
          if (flag >= 0 && flag < numConditionFlags) {
             old = getConditionFlag(flag);
-            condition.setValue(Binary.clearBit(condition.getValue(),flag));
+            cop1.condition.setValue(Binary.clearBit(cop1.condition.getValue(),flag));
             if (Globals.getSettings().getBackSteppingEnabled())
                if (old==0) {
-                  Globals.program.getBackStepper().addConditionFlagClear(flag);
+                  MachineContext.current().getProgram().getBackStepper().addConditionFlagClear(flag);
                } 
                else {
-                  Globals.program.getBackStepper().addConditionFlagSet(flag);
+                  MachineContext.current().getProgram().getBackStepper().addConditionFlagSet(flag);
                }
          }
          return old;
@@ -482,9 +527,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  @return 0 if condition is false, 1 if condition is true
    	 */
        public static int getConditionFlag(int flag) {
+         Coprocessor1 cop1 = current();
          if (flag < 0 || flag >= numConditionFlags) 
             flag = 0;
-         return Binary.bitValue(condition.getValue(), flag);
+         return Binary.bitValue(cop1.condition.getValue(), flag);
       }		
    	
    	
@@ -494,7 +540,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  @return array of int condition flags
    	 */
        public static int getConditionFlags() {
-         return condition.getValue();
+         return current().condition.getValue();
       }	
    	
    	
@@ -503,7 +549,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *
    	 */
        public static void clearConditionFlags() {
-         condition.setValue(0);  // sets all 32 bits to 0.
+         current().condition.setValue(0);  // sets all 32 bits to 0.
       }		
    	
       /**
@@ -511,7 +557,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *
    	 */
        public static void setConditionFlags() {
-         condition.setValue(-1);  // sets all 32 bits to 1.
+         current().condition.setValue(-1);  // sets all 32 bits to 1.
       }	
    	
       /**
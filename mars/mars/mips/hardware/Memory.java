@@ -4,6 +4,8 @@
    import mars.simulator.*;
    import mars.mips.instructions.*;
    import java.util.*;
+   import java.nio.ByteBuffer;
+   import java.nio.ByteOrder;
 	
 	/*
 Copyright (c) 2003-2009,  Pete Sanderson and Kenneth Vollmar
@@ -89,7 +91,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	/** Current setting for endian (default LITTLE_ENDIAN) **/
       private static boolean byteOrder = LITTLE_ENDIAN;
    	
-      public static int heapAddress;
+      private int heapAddress;
+   
+    // Statements recently fetched from outside the text segments (when self-modifying code 
+    // is enabled), so a program executing code in the data segment does not build a new
+    // statement on every fetch.  Direct mapped on the address, and an entry is used only
+    // if the word at that address is unchanged.
+      private static final int DATA_STATEMENT_CACHE_LENGTH = 1024;
+      private final ProgramStatement[] dataStatements = new ProgramStatement[DATA_STATEMENT_CACHE_LENGTH];
    
     // Memory will maintain a collection of observables.  Each one is associated
     // with a specific memory address or address range, and each will have at least
@@ -102,67 +111,62 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     // key for insertion into the tree would be based on Comparable using both low 
     // and high end of address range, but retrieval from the tree has to be based
     // on target address being ANYWHERE IN THE RANGE (not an exact key match).
+    //
+    // Instead, whenever the collection changes it is indexed by a bitmap with one bit per
+    // 4K page, set if any observable's range touches the page, plus an array copy of the
+    // collection.  An access to an unobserved page costs one bit test; otherwise the array
+    // is searched as before.  Both are replaced, never modified, so they can be read without
+    // locking while the collection changes.
       
       Collection observables = getNewMemoryObserversCollection();
-   
-    // The data segment is allocated in blocks of 1024 ints (4096 bytes).  Each block is
-    // referenced by a "block table" entry, and the table has 1024 entries.  The capacity
-    // is thus 1024 entries * 4096 bytes = 4 MB.  Should be enough to cover most
-    // programs!!  Beyond that it would go to an "indirect" block (similar to Unix i-nodes),
-    // which is not implemented.
+      private volatile MemoryObservable[] observableArray = new MemoryObservable[0];
+      private volatile int[] observedPages = null; // null if there are no observables
+   
+    // All data -- the data segment (including heap), stack, kernel data segment and memory
+    // mapped I/O -- is held in 4096-byte pages of 1024 ints, found through a two-level page
+    // table:  the upper 10 bits of the address select an entry in the page directory, which
+    // refers to a table of 1024 pages selected by the next 10 bits.  Neither a page table
+    // nor a page is allocated until a value is written to an address it covers, so the whole
+    // 4 GB address space can be backed while memory is used only for regions actually
+    // touched.  Most small programs use only the directory plus two tables and two pages
+    // (data and stack).  Words are stored at their natural address, so the stack, which
+    // grows downward, needs no special treatment.
     //
-    // Although this scheme is an array of arrays, it is relatively space-efficient since
-    // only the table is created initially. A 4096-byte block is not allocated until a value 
-    // is written to an address within it.  Thus most small programs will use only 8K bytes 
-    // of space (the table plus one block).  The index into both arrays is easily computed 
-    // from the address; access time is constant.
+    // The segment an address belongs to is still determined by the chain of range checks
+    // in get(), set() and friends, since segment boundaries need not fall on page boundaries
+    // and must be enforced exactly.  But the last page touched that lies entirely within one
+    // data segment is cached, and an access that falls within it skips the range checks
+    // and goes straight to the page.  Loads and stores tend to stay within a page for a
+    // while, so most accesses take this path.
     //
-    // SPIM stores statically allocated data (following first .data directive) starting
-    // at location 0x10010000.  This is the first Data Segment word beyond the reach of $gp
-    // used in conjunction with signed 16 bit immediate offset.  $gp has value 0x10008000
-    // and with the signed 16 bit offset can reach from 0x10008000 - 0xFFFF = 0x10000000 
-    // (Data Segment base) to 0x10008000 + 0x7FFF = 0x1000FFFF (the byte preceding 0x10010000).
-    //
-    // Using my scheme, 0x10010000 falls at the beginning of the 17'th block -- table entry 16.
-    // SPIM uses a heap base address of 0x10040000 which is not part of the MIPS specification.
-    // (I don't have a reference for that offhand...)  Using my scheme, 0x10040000 falls at
-    // the start of the 65'th block -- table entry 64.  That leaves (1024-64) * 4096 = 3,932,160
-    // bytes of space available without going indirect.
-    
-      private static final int BLOCK_LENGTH_WORDS = 1024;  // allocated blocksize 1024 ints == 4K bytes
-      private static final int BLOCK_TABLE_LENGTH = 1024; // Each entry of table points to a block.
-      private int[][] dataBlockTable;
-      private int[][] kernelDataBlockTable;
+    // Unless the memory configuration says otherwise, segment capacities (e.g. 4 MB for data)
+    // are held to the limits inherited from the earlier block-table scheme, in which each
+    // segment had its own table of 1024 blocks.
     
-    // The stack is modeled similarly to the data segment.  It cannot share the same
-    // data structure because the stack base address is very large.  To store it in the
-    // same data structure would require implementation of indirect blocks, which has not
-    // been realized.  So the stack gets its own table of blocks using the same dimensions 
-    // and allocation scheme used for data segment.
-    //
-    // The other major difference is the stack grows DOWNWARD from its base address, not
-    // upward.  I.e., the stack base is the largest stack address. This turns the whole 
-    // scheme for translating memory address to block-offset on its head!  The simplest
-    // solution is to calculate relative address (offset from base) by subtracting the 
-    // desired address from the stack base address (rather than subtracting base address 
-    // from desired address).  Thus as the address gets smaller the offset gets larger.
-    // Everything else works the same, so it shares some private helper methods with
-    // data segment algorithms.
-    
-      private int[][] stackBlockTable;
-   
-    // Memory mapped I/O is simulated with a separate table using the same structure and
-    // logic as data segment.  Memory is allocated in 4K byte blocks.  But since MMIO
-    // address range is limited to 0xffff0000 to 0xfffffffc, there are only 64K bytes 
-    // total.  Thus there will be a maximum of 16 blocks, and I suspect never more than
-    // one since only the first few addresses are typically used.  The only exception
-    // may be a rogue program generating such addresses in a loop.  Note that the
-    // MMIO addresses are interpreted by Java as negative numbers since it does not 
-    // have unsigned types.  As long as the absolute address is correctly translated
-    // into a table offset, this is of no concern.
-   
-      private static final int MMIO_TABLE_LENGTH = 16; // Each entry of table points to a 4K block.
-      private int[][] memoryMapBlockTable;
+      private static final int BLOCK_LENGTH_WORDS = 1024;  // page size 1024 ints == 4K bytes
+      private static final int BLOCK_TABLE_LENGTH = 1024;  // capacity of a segment, in pages
+      private static final int MMIO_TABLE_LENGTH = 16;     // capacity of memory mapped I/O, in pages
+      private static final int PAGE_SHIFT = 12;            // address >>> PAGE_SHIFT is page number
+      private static final int PAGE_OFFSET_MASK = (1 << PAGE_SHIFT) - 1;  // byte offset within page
+      private static final int PAGE_WORD_MASK = BLOCK_LENGTH_WORDS - 1;   // (address >>> 2) & this is word within page
+      private static final int PAGE_TABLE_SHIFT = 10;      // page number >>> PAGE_TABLE_SHIFT is directory entry
+      private static final int PAGE_TABLE_LENGTH = 1 << PAGE_TABLE_SHIFT;  // pages per page table
+      private static final int PAGE_TABLE_MASK = PAGE_TABLE_LENGTH - 1;    // page number & this is page within table
+      private static final int PAGE_DIRECTORY_LENGTH = 1 << (32 - PAGE_SHIFT - PAGE_TABLE_SHIFT);
+      private Page[][] pageDirectory;
+      private int allocatedPageCount; // pages allocated since memory was last cleared
+      private Page lastPage; // most recently used page that is entirely within one data segment
+   
+    // Files mapped into the heap by mapBytesIntoHeap() are sources of page contents.  Their
+    // pages are not allocated when the file is mapped, but filled from it when getPage()
+    // first finds one missing.  Like the observer index the array is replaced, never 
+    // modified, so a snapshot can keep the one it was taken with.
+      private MappedRange[] mappedRanges;
+   
+    // Bulk operations such as copyBytes() move memory through this buffer, a page or more
+    // at a time.
+      private static final int BULK_BUFFER_LENGTH = 65536;
+      private ByteBuffer bulkBuffer;
    	    
     // I use a similar scheme for storing instructions.  MIPS text segment ranges from
     // 0x00400000 all the way to data segment (0x10000000) a range of about 250 MB!  So
@@ -191,27 +195,30 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       														  BLOCK_LENGTH_WORDS * BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES;
       public static int memoryMapLimitAddress   = memoryMapBaseAddress + 
                                  					  BLOCK_LENGTH_WORDS * MMIO_TABLE_LENGTH * WORD_LENGTH_BYTES;  
-    // This will be a Singleton class, only one instance is ever created.  Since I know the 
-    // Memory object is always needed, I'll go ahead and create it at the time of class loading.
-    // (greedy rather than lazy instantiation).  The constructor is private and getInstance()
-    // always returns this instance.
-    
-      private static Memory uniqueMemoryInstance = new Memory(); 
+    // There is one Memory for each MachineContext, and getInstance() returns that of the
+    // current context.  Most code, including the IDE, uses the default context's.
+   
+    // The simulator keeps its own pre-decoded copy of the text segments.  It registers
+    // here to be told when a statement is stored or the text segments are wiped, so
+    // that copy never goes stale (e.g. with self-modifying code).
+      private TextSegmentListener textSegmentListener = null;
    	
     
-    /*
-     * Private constructor for Memory.  Separate data structures for text and data segments. 
+    /**
+     * Creates the memory of a new MachineContext.  Separate data structures for text and data segments. 
+     * Others use getInstance().
      **/
-       private Memory() {
+       public Memory() {
          initialize();
       }
    
      /**
-      * Returns the unique Memory instance, which becomes in essence global.
+      * Returns the Memory of the current MachineContext.  Unless a context has been bound to the 
+      * calling thread, this is the Memory of the default context, which is also Globals.memory.
    	*/
    	
        public static Memory getInstance() {
-         return uniqueMemoryInstance;
+         return MachineContext.current().getMemory();
       }
    	
    	/**
@@ -221,6 +228,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public void clear() {
          setConfiguration();
          initialize(); 		
+         if (this == MachineContext.getDefault().getMemory()) {
+            System.gc(); // call garbage collector on any Table memory just deallocated. 	  
+         }
+         if (textSegmentListener != null) {
+            textSegmentListener.textSegmentCleared();
+         }
+      }
+   
+   	/**
+   	 * Interface for an object that maintains a derived copy of the text segments and
+   	 * needs to hear of every change to them.  There is at most one such listener.
+   	 */
+       public interface TextSegmentListener {
+         /** A statement has been stored at (or removed from) the given text address. */
+          void statementChanged(int address);
+         /** All of memory has been cleared, possibly with a new configuration. */
+          void textSegmentCleared();
+      }
+   
+   	/**
+   	 * Register the listener to be told of text segment changes, replacing any
+   	 * previous one.
+   	 * @param listener the listener, or null for none.
+   	 */
+       public void setTextSegmentListener(TextSegmentListener listener) {
+         textSegmentListener = listener;
       }
    
      /**
@@ -245,24 +278,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          kernelDataBaseAddress = MemoryConfigurations.getCurrentConfiguration().getKernelDataBaseAddress(); //0x90000000;
          memoryMapBaseAddress = MemoryConfigurations.getCurrentConfiguration().getMemoryMapBaseAddress(); //0xffff0000;
          kernelHighAddress = MemoryConfigurations.getCurrentConfiguration().getKernelHighAddress(); //0xffffffff;		
-         dataSegmentLimitAddress = Math.min(MemoryConfigurations.getCurrentConfiguration().getDataSegmentLimitAddress(),
-                                      dataSegmentBaseAddress + 
-            								  BLOCK_LENGTH_WORDS * BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES);
+         dataSegmentLimitAddress = MemoryConfigurations.getCurrentConfiguration().getDataSegmentLimitAddress();
          textLimitAddress        = Math.min(MemoryConfigurations.getCurrentConfiguration().getTextLimitAddress(),
                                       textBaseAddress + 
             								  TEXT_BLOCK_LENGTH_WORDS * TEXT_BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES);																  
-         kernelDataSegmentLimitAddress = Math.min(MemoryConfigurations.getCurrentConfiguration().getKernelDataSegmentLimitAddress(),
-                                      kernelDataBaseAddress + 
-            								  BLOCK_LENGTH_WORDS * BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES);
+         kernelDataSegmentLimitAddress = MemoryConfigurations.getCurrentConfiguration().getKernelDataSegmentLimitAddress();
          kernelTextLimitAddress  = Math.min(MemoryConfigurations.getCurrentConfiguration().getKernelTextLimitAddress(),
                                       kernelTextBaseAddress + 
             								  TEXT_BLOCK_LENGTH_WORDS * TEXT_BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES);																  
-         stackLimitAddress       = Math.max(MemoryConfigurations.getCurrentConfiguration().getStackLimitAddress(),
+         stackLimitAddress       = MemoryConfigurations.getCurrentConfiguration().getStackLimitAddress();
+         memoryMapLimitAddress   = MemoryConfigurations.getCurrentConfiguration().getMemoryMapLimitAddress();
+         // Data segments are backed by the sparse page table and can take any limit the configuration
+         // gives, but unless it says otherwise they keep the capacities of earlier MARS versions.
+         if (MemoryConfigurations.getCurrentConfiguration().hasSegmentCapacityLimit()) {
+            dataSegmentLimitAddress = Math.min(dataSegmentLimitAddress,
+                                      dataSegmentBaseAddress + 
+            								  BLOCK_LENGTH_WORDS * BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES);
+            kernelDataSegmentLimitAddress = Math.min(kernelDataSegmentLimitAddress,
+                                      kernelDataBaseAddress + 
+            								  BLOCK_LENGTH_WORDS * BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES);
+            stackLimitAddress       = Math.max(stackLimitAddress,
                                       stackBaseAddress - 
             								  BLOCK_LENGTH_WORDS * BLOCK_TABLE_LENGTH * WORD_LENGTH_BYTES);
-         memoryMapLimitAddress   = Math.min(MemoryConfigurations.getCurrentConfiguration().getMemoryMapLimitAddress(),
+            memoryMapLimitAddress   = Math.min(memoryMapLimitAddress,
                                       memoryMapBaseAddress + 
                                  	  BLOCK_LENGTH_WORDS * MMIO_TABLE_LENGTH * WORD_LENGTH_BYTES);
+         }
       /*	System.out.println("dataSegmentLimitAddress "+Binary.intToHexString(dataSegmentLimitAddress));
       	System.out.println("textLimitAddress "+Binary.intToHexString(textLimitAddress));
       	System.out.println("kernelDataSegmentLimitAddress "+Binary.intToHexString(kernelDataSegmentLimitAddress));
@@ -287,17 +328,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private void initialize() {
          heapAddress = heapBaseAddress;
          textBlockTable  = new ProgramStatement[TEXT_BLOCK_TABLE_LENGTH][];
-         dataBlockTable  = new int[BLOCK_TABLE_LENGTH][]; // array of null int[] references
          kernelTextBlockTable  = new ProgramStatement[TEXT_BLOCK_TABLE_LENGTH][];
-         kernelDataBlockTable  = new int[BLOCK_TABLE_LENGTH][];      
-         stackBlockTable = new int[BLOCK_TABLE_LENGTH][];
-         memoryMapBlockTable = new int[MMIO_TABLE_LENGTH][];
-         System.gc(); // call garbage collector on any Table memory just deallocated. 	  
+         pageDirectory = new Page[PAGE_DIRECTORY_LENGTH][]; // page tables allocated on demand
+         allocatedPageCount = 0;
+         lastPage = null;
+         mappedRanges = new MappedRange[0];
       }  
      
    	/**
    	 * Returns the next available word-aligned heap address.  There is no recycling and
-   	 * no heap management!  There is however nearly 4MB of heap space available in Mars.
+   	 * no heap management!  There is however nearly 4MB of heap space available in Mars,
+   	 * or up to the data segment limit address if the memory configuration does not limit
+   	 * segment capacity.
    	 *
    	 * @param numBytes Number of bytes requested.  Should be multiple of 4, otherwise next higher multiple of 4 allocated.
    	 * @return address of allocated heap storage. 
@@ -312,13 +354,145 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          if (newHeapAddress % 4 != 0) {
             newHeapAddress = newHeapAddress + (4 - newHeapAddress % 4) ; // next higher multiple of 4
          }
-         if (newHeapAddress >= dataSegmentLimitAddress) {
+         if (newHeapAddress < heapAddress || newHeapAddress >= dataSegmentLimitAddress) {
             throw new IllegalArgumentException("request ("+numBytes+") exceeds available heap storage");
          }
          heapAddress = newHeapAddress;
          return result;
       }
    
+   	/**
+   	 * Maps the given bytes into newly allocated heap storage that starts on a page boundary
+   	 * and fills whole pages.  Each page takes its contents from the bytes only when it is 
+   	 * first read or written, so of a large file mapped with FileChannel.map() only the parts
+   	 * actually used are ever read.  The storage belongs to the program like any other: 
+   	 * writing to it does not change the bytes.  Bytes beyond their limit, to the end of the
+   	 * last page, read as zero.
+   	 *
+   	 * @param bytes The bytes, from index 0 to the limit.
+   	 * @return address of the first byte. 
+   	 * @throws IllegalArgumentException if the bytes exceed available heap storage
+   	 */
+       public int mapBytesIntoHeap(ByteBuffer bytes) throws IllegalArgumentException {
+         int length = bytes.limit();
+         int padding = -heapAddress & PAGE_OFFSET_MASK;
+         long pages = ((long) length + PAGE_OFFSET_MASK) >>> PAGE_SHIFT;
+         if (padding + (pages << PAGE_SHIFT) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("request ("+length+") exceeds available heap storage");
+         }
+         int address = allocateBytesFromHeap(padding + (int) (pages << PAGE_SHIFT)) + padding;
+         if (length == 0) {
+            return address;
+         }
+         MappedRange range = new MappedRange(address >>> PAGE_SHIFT, (int) pages, bytes.duplicate());
+         // Any page there already, because the program wrote past the end of the heap, is
+         // filled now.  The rest are left for getPage(), once the range is known.
+         for (int number = range.firstPage; number < range.firstPage + range.pageCount; number++) {
+            if (getPage(number << PAGE_SHIFT, false) != null) {
+               fillPage(getPage(number << PAGE_SHIFT, true), range);
+            }
+         }
+         MappedRange[] ranges = Arrays.copyOf(mappedRanges, mappedRanges.length + 1);
+         ranges[mappedRanges.length] = range;
+         mappedRanges = ranges;
+         return address;
+      }
+   
+   
+    /**
+     * Returns the amount of data memory currently backed by allocated pages.  Pages are allocated
+     * only when first written, so this reflects the regions a program has actually touched
+     * rather than the sizes of its segments.
+     *
+     * @return number of bytes of allocated data memory
+     */
+       public long getAllocatedDataBytes() {
+         return (long) allocatedPageCount * BLOCK_LENGTH_WORDS * WORD_LENGTH_BYTES;
+      }
+   
+   
+    /**
+     * Captures the current contents of memory, to be put back later by restore().  Data 
+     * pages are not copied.  They are shared by the snapshot and memory until memory next 
+     * writes to one, at which point memory makes its own copy of that page.  Successive 
+     * snapshots thus cost only the pages written in between.  Text segments are copied
+     * only if self-modifying code is enabled, since otherwise they cannot change.
+     * Observers are not notified.
+     *
+     * @return the snapshot
+     */
+       public Snapshot snapshot() {
+         Page[][] directory = new Page[PAGE_DIRECTORY_LENGTH][];
+         for (int i = 0; i < directory.length; i++) {
+            if (pageDirectory[i] != null) {
+               directory[i] = pageDirectory[i].clone();
+               for (Page page : directory[i]) {
+                  if (page != null) {
+                     page.shared = true;
+                  }
+               }
+            }
+         }
+         Snapshot snapshot = new Snapshot(directory, allocatedPageCount, heapAddress, mappedRanges);
+         if (Globals.getSettings().getBooleanSetting(Settings.SELF_MODIFYING_CODE_ENABLED)) {
+            snapshot.textBlockTable = copyTextBlocks(textBlockTable);
+            snapshot.kernelTextBlockTable = copyTextBlocks(kernelTextBlockTable);
+         }
+         return snapshot;
+      }
+   
+    /**
+     * Returns memory to the contents captured by the given snapshot.  The snapshot is
+     * unchanged and may be restored again.  Observers are not notified.
+     *
+     * @param snapshot a snapshot taken since memory was last cleared
+     */
+       public void restore(Snapshot snapshot) {
+         for (int i = 0; i < pageDirectory.length; i++) {
+            pageDirectory[i] = (snapshot.pageDirectory[i] == null) ? null : snapshot.pageDirectory[i].clone();
+         }
+         allocatedPageCount = snapshot.allocatedPageCount;
+         heapAddress = snapshot.heapAddress;
+         mappedRanges = snapshot.mappedRanges;
+         lastPage = null;
+         if (snapshot.textBlockTable != null) {
+            textBlockTable = copyTextBlocks(snapshot.textBlockTable);
+            kernelTextBlockTable = copyTextBlocks(snapshot.kernelTextBlockTable);
+            if (textSegmentListener != null) {
+               textSegmentListener.textSegmentCleared();
+            }
+         }
+      }
+   
+       private static ProgramStatement[][] copyTextBlocks(ProgramStatement[][] blockTable) {
+         ProgramStatement[][] copy = new ProgramStatement[blockTable.length][];
+         for (int i = 0; i < blockTable.length; i++) {
+            if (blockTable[i] != null) {
+               copy[i] = blockTable[i].clone();
+            }
+         }
+         return copy;
+      }
+   
+   	/**
+   	 * Contents of memory at some point, as returned by snapshot().  Its only use is
+   	 * to be given back to restore().
+   	 */
+       public static final class Snapshot {
+         private final Page[][] pageDirectory;
+         private final int allocatedPageCount;
+         private final int heapAddress;
+         private final MappedRange[] mappedRanges;
+         private ProgramStatement[][] textBlockTable, kernelTextBlockTable; // null if not captured
+      	
+          private Snapshot(Page[][] pageDirectory, int allocatedPageCount, int heapAddress, MappedRange[] mappedRanges) {
+            this.pageDirectory = pageDirectory;
+            this.allocatedPageCount = allocatedPageCount;
+            this.heapAddress = heapAddress;
+            this.mappedRanges = mappedRanges;
+         }
+      }
+   
    
      /**
       * Set byte order to either LITTLE_ENDIAN or BIG_ENDIAN.  Default is LITTLE_ENDIAN.
@@ -358,17 +532,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public int set(int address, int value, int length) throws AddressErrorException {
          int oldValue = 0;
          if (Globals.debug) System.out.println("memory["+address+"] set to "+value+"("+length+" bytes)");
-         int relativeByteAddress;
-         if (inDataSegment(address)) {
+         Page page = lastPage;
+         if (page != null && page.number == address >>> PAGE_SHIFT && !page.shared && (address & PAGE_OFFSET_MASK) <= PAGE_OFFSET_MASK + 1 - length) {
+           // in the cached page, so within a data segment.
+            oldValue = storeBytesInPage(page.words, address, length, value);
+         } 
+         else if (inDataSegment(address)) {
            // in data segment.  Will write one byte at a time, w/o regard to boundaries.
-            relativeByteAddress = address - dataSegmentBaseAddress; // relative to data segment start, in bytes
-            oldValue = storeBytesInTable(dataBlockTable, relativeByteAddress, length, value);
+            oldValue = storeBytes(address, length, value);
          } 
          else if (address > stackLimitAddress && address <= stackBaseAddress) {
-           // in stack.  Handle similarly to data segment write, except relative byte
-           // address calculated "backward" because stack addresses grow down from base.
-            relativeByteAddress = stackBaseAddress - address; 
-            oldValue = storeBytesInTable(stackBlockTable, relativeByteAddress, length, value);
+           // in stack.  Handle similarly to data segment write.
+            oldValue = storeBytes(address, length, value);
          } 
          else if (inTextSegment(address)) {
            // Burch Mod (Jan 2013): replace throw with call to setStatement 
@@ -389,13 +564,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          } 
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
            // memory mapped I/O.
-            relativeByteAddress = address - memoryMapBaseAddress;
-            oldValue = storeBytesInTable(memoryMapBlockTable, relativeByteAddress, length, value);
+            oldValue = storeBytes(address, length, value);
          }
          else if (inKernelDataSegment(address)) {
            // in kernel data segment.  Will write one byte at a time, w/o regard to boundaries.
-            relativeByteAddress = address - kernelDataBaseAddress; // relative to data segment start, in bytes
-            oldValue = storeBytesInTable(kernelDataBlockTable, relativeByteAddress, length, value);
+            oldValue = storeBytes(address, length, value);
          } 
          else if (inKernelTextSegment(address)) {
            // DEVELOPER: PLEASE USE setStatement() TO WRITE TO KERNEL TEXT SEGMENT...
@@ -424,21 +597,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      * @throws AddressErrorException If address is not on word boundary.
     **/
        public int setRawWord(int address, int value) throws AddressErrorException {
-         int relative, oldValue=0;
-         if (address % WORD_LENGTH_BYTES != 0) {
+         int oldValue=0;
+         if ((address & (WORD_LENGTH_BYTES-1)) != 0) {
             throw new AddressErrorException("store address not aligned on word boundary ",
                Exceptions.ADDRESS_EXCEPTION_STORE, address);
          }
-         if (inDataSegment(address)) {
+         Page page = lastPage;
+         if (page != null && page.number == address >>> PAGE_SHIFT && !page.shared) {
+           // in the cached page, so within a data segment.
+            oldValue = page.words[(address >>> 2) & PAGE_WORD_MASK];
+            page.words[(address >>> 2) & PAGE_WORD_MASK] = value;
+         } 
+         else if (inDataSegment(address)) {
            // in data segment
-            relative = (address - dataSegmentBaseAddress) >> 2; // convert byte address to words
-            oldValue = storeWordInTable(dataBlockTable, relative, value);
+            oldValue = storeWord(address, value);
          } 
          else if (address > stackLimitAddress && address <= stackBaseAddress) {
-           // in stack.  Handle similarly to data segment write, except relative 
-           // address calculated "backward" because stack addresses grow down from base.
-            relative = (stackBaseAddress - address) >> 2; // convert byte address to words
-            oldValue = storeWordInTable(stackBlockTable, relative, value);
+           // in stack.
+            oldValue = storeWord(address, value);
          }
          else if (inTextSegment(address)) {	
            // Burch Mod (Jan 2013): replace throw with call to setStatement 
@@ -458,13 +634,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          } 
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
            // memory mapped I/O.
-            relative = (address - memoryMapBaseAddress) >> 2; // convert byte address to word
-            oldValue = storeWordInTable(memoryMapBlockTable, relative, value);
+            oldValue = storeWord(address, value);
          }
          else if (inKernelDataSegment(address)) {
            // in data segment
-            relative = (address - kernelDataBaseAddress) >> 2; // convert byte address to words
-            oldValue = storeWordInTable(kernelDataBlockTable, relative, value);
+            oldValue = storeWord(address, value);
          }
          else if (inKernelTextSegment(address)) {
            // DEVELOPER: PLEASE USE setStatement() TO WRITE TO KERNEL TEXT SEGMENT...
@@ -479,7 +653,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
          notifyAnyObservers(AccessNotice.WRITE, address, WORD_LENGTH_BYTES, value);
          if (Globals.getSettings().getBackSteppingEnabled()) {
-            Globals.program.getBackStepper().addMemoryRestoreRawWord(address,oldValue);
+            MachineContext.current().getProgram().getBackStepper().addMemoryRestoreRawWord(address,oldValue);
          }
          return oldValue;
       }
@@ -501,7 +675,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                Exceptions.ADDRESS_EXCEPTION_STORE,address);
          }
          return (Globals.getSettings().getBackSteppingEnabled())
-            ? Globals.program.getBackStepper().addMemoryRestoreWord(address,set(address, value, WORD_LENGTH_BYTES))
+            ? MachineContext.current().getProgram().getBackStepper().addMemoryRestoreWord(address,set(address, value, WORD_LENGTH_BYTES))
             : set(address, value, WORD_LENGTH_BYTES);
       }
    
@@ -522,7 +696,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                Exceptions.ADDRESS_EXCEPTION_STORE, address);
          }
          return (Globals.getSettings().getBackSteppingEnabled())
-            ? Globals.program.getBackStepper().addMemoryRestoreHalf(address,set(address,value,2))
+            ? MachineContext.current().getProgram().getBackStepper().addMemoryRestoreHalf(address,set(address,value,2))
             : set(address, value, 2);
       }
    
@@ -537,7 +711,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      
        public int setByte(int address, int value) throws AddressErrorException {
          return (Globals.getSettings().getBackSteppingEnabled())
-            ? Globals.program.getBackStepper().addMemoryRestoreByte(address,set(address,value,1))
+            ? MachineContext.current().getProgram().getBackStepper().addMemoryRestoreByte(address,set(address,value,1))
             : set(address, value, 1);
       }
    
@@ -583,6 +757,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          else {
             storeProgramStatement(address, statement, kernelTextBaseAddress, kernelTextBlockTable);
          }
+         if (textSegmentListener != null) {
+            textSegmentListener.statementChanged(address);
+         }
       }
    	
    
@@ -606,22 +783,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// Does the real work, but includes option to NOT notify observers.
        private int get(int address, int length, boolean notify) throws AddressErrorException {
          int value = 0;
-         int relativeByteAddress;
-         if (inDataSegment(address)) {
+         Page page = lastPage;
+         if (page != null && page.number == address >>> PAGE_SHIFT && (address & PAGE_OFFSET_MASK) <= PAGE_OFFSET_MASK + 1 - length) {
+           // in the cached page, so within a data segment.
+            value = fetchBytesFromPage(page.words, address, length);
+         } 
+         else if (inDataSegment(address)) {
            // in data segment.  Will read one byte at a time, w/o regard to boundaries.
-            relativeByteAddress = address - dataSegmentBaseAddress; // relative to data segment start, in bytes
-            value = fetchBytesFromTable(dataBlockTable, relativeByteAddress, length);
+            value = fetchBytes(address, length, notify);
          } 
          else if (address > stackLimitAddress && address <= stackBaseAddress) {
-           // in stack. Similar to data, except relative address computed "backward"
-            relativeByteAddress = stackBaseAddress - address;
-            value = fetchBytesFromTable(stackBlockTable, relativeByteAddress, length);
+           // in stack. Similar to data.
+            value = fetchBytes(address, length, notify);
          } 
          
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
            // memory mapped I/O.
-            relativeByteAddress = address - memoryMapBaseAddress;
-            value = fetchBytesFromTable(memoryMapBlockTable, relativeByteAddress, length);
+            value = fetchBytes(address, length, notify);
          }
          else if (inTextSegment(address)) {
            // Burch Mod (Jan 2013): replace throw with calls to getStatementNoNotify & getBinaryStatement 
@@ -638,8 +816,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          } 
          else if (inKernelDataSegment(address)) {
            // in kernel data segment.  Will read one byte at a time, w/o regard to boundaries.
-            relativeByteAddress = address - kernelDataBaseAddress; // relative to data segment start, in bytes
-            value = fetchBytesFromTable(kernelDataBlockTable, relativeByteAddress, length);
+            value = fetchBytes(address, length, notify);
          } 
          else if (inKernelTextSegment(address)) {
            // DEVELOPER: PLEASE USE getStatement() TO READ FROM KERNEL TEXT SEGMENT...
@@ -675,25 +852,26 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     // I decided to keep the duplicate logic.
        public int getRawWord(int address) throws AddressErrorException {
          int value = 0;
-         int relative;
-         if (address % WORD_LENGTH_BYTES != 0) {
+         if ((address & (WORD_LENGTH_BYTES-1)) != 0) {
             throw new AddressErrorException("address for fetch not aligned on word boundary",
                Exceptions.ADDRESS_EXCEPTION_LOAD, address);
          }
-         if (inDataSegment(address)) {
+         Page page = lastPage;
+         if (page != null && page.number == address >>> PAGE_SHIFT) {
+           // in the cached page, so within a data segment.
+            value = page.words[(address >>> 2) & PAGE_WORD_MASK];
+         } 
+         else if (inDataSegment(address)) {
            // in data segment
-            relative = (address - dataSegmentBaseAddress) >> 2; // convert byte address to words
-            value = fetchWordFromTable(dataBlockTable, relative);
+            value = fetchWord(address);
          } 
          else if (address > stackLimitAddress && address <= stackBaseAddress) {
-           // in stack. Similar to data, except relative address computed "backward"
-            relative = (stackBaseAddress - address) >> 2; // convert byte address to words
-            value = fetchWordFromTable(stackBlockTable, relative);
+           // in stack. Similar to data.
+            value = fetchWord(address);
          }
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
            // memory mapped I/O.
-            relative = (address - memoryMapBaseAddress) >> 2;
-            value = fetchWordFromTable(memoryMapBlockTable, relative);
+            value = fetchWord(address);
          }
          else if (inTextSegment(address)) {
            // Burch Mod (Jan 2013): replace throw with calls to getStatementNoNotify & getBinaryStatement 
@@ -710,8 +888,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }  
          else if (inKernelDataSegment(address)) {
            // in kernel data segment
-            relative = (address - kernelDataBaseAddress) >> 2; // convert byte address to words
-            value = fetchWordFromTable(kernelDataBlockTable, relative);
+            value = fetchWord(address);
          } 
          else if (inKernelTextSegment(address)) {
            // DEVELOPER: PLEASE USE getStatement() TO READ FROM KERNEL TEXT SEGMENT...
@@ -752,20 +929,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 
        public Integer getRawWordOrNull(int address) throws AddressErrorException {
          Integer value = null;
-         int relative;
          if (address % WORD_LENGTH_BYTES != 0) {
             throw new AddressErrorException("address for fetch not aligned on word boundary",
                   Exceptions.ADDRESS_EXCEPTION_LOAD, address);
          }
          if (inDataSegment(address)) {
               // in data segment
-            relative = (address - dataSegmentBaseAddress) >> 2; // convert byte address to words
-            value = fetchWordOrNullFromTable(dataBlockTable, relative);
+            value = fetchWordOrNull(address);
          } 
          else if (address > stackLimitAddress && address <= stackBaseAddress) {
-              // in stack. Similar to data, except relative address computed "backward"
-            relative = (stackBaseAddress - address) >> 2; // convert byte address to words
-            value = fetchWordOrNullFromTable(stackBlockTable, relative);
+              // in stack. Similar to data.
+            value = fetchWordOrNull(address);
          }
          else if (inTextSegment(address) || inKernelTextSegment(address)) {
             try { 
@@ -776,8 +950,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }  
          else if (inKernelDataSegment(address)) {
               // in kernel data segment
-            relative = (address - kernelDataBaseAddress) >> 2; // convert byte address to words
-            value = fetchWordOrNullFromTable(kernelDataBlockTable, relative);
+            value = fetchWordOrNull(address);
          } 
          else {
               // falls outside Mars addressing range
@@ -876,6 +1049,272 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return get(address, 1);
       }
    
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Reads the NUL-terminated string starting at the given address, one character
+     *  per byte.  Gives the same result as calling getByte() until it returns 0, but 
+     *  while no one observes memory the bytes of each page are read directly.
+     * 
+     * @param address Address of the first byte of the string.
+     * @return The string, not including its terminating NUL byte.
+     * @throws AddressErrorException If the string runs into an address that cannot be read.
+     **/
+       public String getNullTerminatedString(int address) throws AddressErrorException {
+         StringBuilder string = new StringBuilder();
+         while (true) {
+            Page page = lastPage;
+            if (page != null && page.number == address >>> PAGE_SHIFT && observedPages == null) {
+               int[] words = page.words;
+               do {
+                  int value = fetchBytesFromPage(words, address, 1);
+                  if (value == 0) {
+                     return string.toString();
+                  }
+                  string.append((char) value);
+                  address++;
+               } while ((address & PAGE_OFFSET_MASK) != 0);
+            } 
+            else {
+               int value = get(address, 1);
+               if (value == 0) {
+                  return string.toString();
+               }
+               string.append((char) value);
+               address++;
+            }
+         }
+      }
+   
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Reads consecutive bytes starting at the given address into a buffer, filling it
+     *  from its position to its limit.  Gives the same result as calling getByte() for each
+     *  byte, but the bytes of each page are read directly, a word at a time where aligned.
+     *  Observers are notified once for each word or byte so read.
+     * 
+     * @param address Address of the first byte to be read.
+     * @param buffer Buffer to receive the bytes.  Its position is advanced past those read.
+     * @throws AddressErrorException If an address reached cannot be read.  The bytes before 
+     * it have been put in the buffer.
+     **/
+       public void getBytes(int address, ByteBuffer buffer) throws AddressErrorException {
+         boolean reversed = buffer.order() == ByteOrder.BIG_ENDIAN;
+         while (buffer.hasRemaining()) {
+            Page page = lastPage;
+            if (page != null && page.number == address >>> PAGE_SHIFT) {
+               int[] words = page.words;
+               do {
+                  int length = ((address & 3) == 0 && buffer.remaining() >= WORD_LENGTH_BYTES) ? WORD_LENGTH_BYTES : 1;
+                  int value = fetchBytesFromPage(words, address, length);
+                  if (length == WORD_LENGTH_BYTES) {
+                     buffer.putInt(reversed ? Integer.reverseBytes(value) : value);
+                  } 
+                  else {
+                     buffer.put((byte) value);
+                  }
+                  if (observedPages != null) {
+                     notifyAnyObservers(AccessNotice.READ, address, length, value);
+                  }
+                  address += length;
+               } while (buffer.hasRemaining() && (address & PAGE_OFFSET_MASK) != 0);
+            } 
+            else {
+               buffer.put((byte) get(address, 1));
+               address++;
+            }
+         }
+      }
+   
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Writes the bytes of a buffer, from its position to its limit, into consecutive bytes
+     *  starting at the given address.  Gives the same result as calling setByte() for each 
+     *  byte, but while backstepping is disabled the bytes of each page are stored directly,
+     *  a word at a time where aligned.  Observers are notified once for each word or byte 
+     *  so written.
+     * 
+     * @param address Address the first byte goes to.
+     * @param buffer Buffer holding the bytes.  Its position is advanced past those written.
+     * @throws AddressErrorException If an address reached cannot be written.  The bytes 
+     * before it have been stored.
+     **/
+       public void setBytes(int address, ByteBuffer buffer) throws AddressErrorException {
+         boolean reversed = buffer.order() == ByteOrder.BIG_ENDIAN;
+         boolean direct = !Globals.getSettings().getBackSteppingEnabled();
+         while (buffer.hasRemaining()) {
+            Page page = lastPage;
+            if (direct && page != null && page.number == address >>> PAGE_SHIFT && !page.shared) {
+               int[] words = page.words;
+               do {
+                  int length = ((address & 3) == 0 && buffer.remaining() >= WORD_LENGTH_BYTES) ? WORD_LENGTH_BYTES : 1;
+                  int value;
+                  if (length == WORD_LENGTH_BYTES) {
+                     value = buffer.getInt();
+                     if (reversed) {
+                        value = Integer.reverseBytes(value);
+                     }
+                  } 
+                  else {
+                     value = buffer.get() & 0xFF;
+                  }
+                  storeBytesInPage(words, address, length, value);
+                  if (observedPages != null) {
+                     notifyAnyObservers(AccessNotice.WRITE, address, length, value);
+                  }
+                  address += length;
+               } while (buffer.hasRemaining() && (address & PAGE_OFFSET_MASK) != 0);
+            } 
+            else {
+               setByte(address, buffer.get(buffer.position()));
+               buffer.position(buffer.position() + 1);
+               address++;
+            }
+         }
+      }
+   
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Copies bytes from one place in memory to another, as if read by getBytes() and then 
+     *  written by setBytes().  The two may overlap; the bytes written are those at the 
+     *  source before the copy.
+     *  <p>
+     *  Observers are notified once per word read and written, as by getBytes() and 
+     *  setBytes(), rather than once for the whole range.  A notice carries the value of
+     *  a single word or byte, and observers such as the Bitmap Display and the MMIO 
+     *  simulators rely on it, so a notice covering a range would lose them the data.
+     *  fillBytes() and compareBytes() notify the same way.
+     * 
+     * @param destination Address the first byte goes to.
+     * @param source Address the first byte comes from.
+     * @param length Number of bytes to copy.
+     * @throws AddressErrorException If an address reached cannot be read or written.  
+     **/
+       public void copyBytes(int destination, int source, int length) throws AddressErrorException {
+         ByteBuffer buffer = bulkBuffer();
+         // When the destination overlaps the end of the source, work from the end back so
+         // that source bytes are read before they are overwritten.
+         boolean backward = destination - source > 0 && destination - source < length;
+         for (int done = 0; done < length; ) {
+            int count = Math.min(buffer.capacity(), length - done);
+            int offset = backward ? length - done - count : done;
+            buffer.clear().limit(count);
+            getBytes(source + offset, buffer);
+            buffer.flip();
+            setBytes(destination + offset, buffer);
+            done += count;
+         }
+      }
+   
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Sets consecutive bytes of memory to the same value, as setBytes() would, notifying
+     *  observers once per word written (see copyBytes()).
+     * 
+     * @param address Address of the first byte to be set.
+     * @param value Value to set each byte to.  Only low order 8 bits used.
+     * @param length Number of bytes to set.
+     * @throws AddressErrorException If an address reached cannot be written.  
+     **/
+       public void fillBytes(int address, int value, int length) throws AddressErrorException {
+         ByteBuffer buffer = bulkBuffer();
+         buffer.clear().limit(Math.max(0, Math.min(buffer.capacity(), length)));
+         while (buffer.hasRemaining()) {
+            buffer.put((byte) value);
+         }
+         for (int done = 0; done < length; ) {
+            int count = Math.min(buffer.capacity(), length - done);
+            buffer.clear().limit(count);
+            setBytes(address + done, buffer);
+            done += count;
+         }
+      }
+   
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Compares two ranges of memory byte by byte, as read by getBytes(), up to the first
+     *  byte that differs.  Observers are notified once per word read (see copyBytes()).
+     * 
+     * @param first Address of the first byte of one range.
+     * @param second Address of the first byte of the other.
+     * @param length Number of bytes to compare.
+     * @return 0 if the ranges hold the same bytes, otherwise the first differing byte
+     * of the first range less that of the second, both taken as unsigned.
+     * @throws AddressErrorException If an address reached cannot be read.  
+     **/
+       public int compareBytes(int first, int second, int length) throws AddressErrorException {
+         ByteBuffer buffer = bulkBuffer();
+         int half = buffer.capacity() / 2;
+         for (int done = 0; done < length; ) {
+            int count = Math.min(half, length - done);
+            buffer.clear().limit(count);
+            getBytes(first + done, buffer);
+            buffer.limit(half + count).position(half);
+            getBytes(second + done, buffer);
+            for (int i = 0; i < count; i++) {
+               if (buffer.get(i) != buffer.get(half + i)) {
+                  return (buffer.get(i) & 0xFF) - (buffer.get(half + i) & 0xFF);
+               }
+            }
+            done += count;
+         }
+         return 0;
+      }
+   
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Finds the length of the NUL-terminated string starting at the given address.  The
+     *  bytes of each page are read directly, and observers are notified once for each word 
+     *  examined, or for each byte where the string is read outside a cached page.
+     * 
+     * @param address Address of the first byte of the string.
+     * @return The number of bytes before its terminating NUL byte.
+     * @throws AddressErrorException If the string runs into an address that cannot be read.
+     **/
+       public int getStringLength(int address) throws AddressErrorException {
+         int start = address;
+         while (true) {
+            Page page = lastPage;
+            if (page != null && page.number == address >>> PAGE_SHIFT) {
+               int[] words = page.words;
+               do {
+                  int word = address & ~3;
+                  if (observedPages != null) {
+                     notifyAnyObservers(AccessNotice.READ, word, WORD_LENGTH_BYTES, fetchBytesFromPage(words, word, WORD_LENGTH_BYTES));
+                  }
+                  do {
+                     if (fetchBytesFromPage(words, address, 1) == 0) {
+                        return address - start;
+                     }
+                     address++;
+                  } while ((address & 3) != 0);
+               } while ((address & PAGE_OFFSET_MASK) != 0);
+            } 
+            else {
+               if (get(address, 1) == 0) {
+                  return address - start;
+               }
+               address++;
+            }
+         }
+      }
+   
+   // The buffer that the bulk operations above pass memory through, allocated when first 
+   // used.  Little-endian order, so the byte at the lowest address is the low order byte
+   // of each int, as fetchBytesFromPage() and storeBytesInPage() have it.
+       private ByteBuffer bulkBuffer() {
+         if (bulkBuffer == null) {
+            bulkBuffer = ByteBuffer.allocate(BULK_BUFFER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+         }
+         return bulkBuffer;
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////
    /**
     * Gets ProgramStatement from Text Segment.  
@@ -946,10 +1385,65 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return readProgramStatement(address, textBaseAddress, textBlockTable, notify);
          else if (inKernelTextSegment(address)) 
             return readProgramStatement(address, kernelTextBaseAddress, kernelTextBlockTable, notify);
-         else 
-            return new ProgramStatement(get(address, WORD_LENGTH_BYTES), address);
+         else {
+            int word = get(address, WORD_LENGTH_BYTES);
+            int index = (address >>> 2) & (DATA_STATEMENT_CACHE_LENGTH - 1);
+            ProgramStatement statement = dataStatements[index];
+            if (statement == null || statement.getAddress() != address || statement.getBinaryStatement() != word) {
+               statement = new ProgramStatement(word, address);
+               dataStatements[index] = statement;
+            }
+            return statement;
+         }
       }
    		
+   
+   ////////////////////////////////////////////////////////////////////////////////
+   /**
+    * Gets the contents of user or kernel text segment as a flat array indexed by
+    * word offset from the segment base address, up to and including the highest
+    * address that holds a statement.  Words holding no statement are null.  Observers
+    * are not notified.
+    * @param kernel true for kernel text segment, false for user text segment.
+    * @return array of ProgramStatement, of length 0 if segment is empty.
+    */
+   
+       public ProgramStatement[] getTextSegmentStatements(boolean kernel) {
+         ProgramStatement[][] blockTable = (kernel) ? kernelTextBlockTable : textBlockTable;
+         int lastBlock = TEXT_BLOCK_TABLE_LENGTH - 1;
+         while (lastBlock >= 0 && blockTable[lastBlock] == null) {
+            lastBlock--;
+         }
+         int length = 0;
+         if (lastBlock >= 0) {
+            length = TEXT_BLOCK_LENGTH_WORDS;
+            while (length > 0 && blockTable[lastBlock][length-1] == null) {
+               length--;
+            }
+            length += lastBlock * TEXT_BLOCK_LENGTH_WORDS;
+         }
+         ProgramStatement[] statements = new ProgramStatement[length];
+         for (int block = 0; block <= lastBlock; block++) {
+            if (blockTable[block] != null) {
+               int count = Math.min(TEXT_BLOCK_LENGTH_WORDS, length - block * TEXT_BLOCK_LENGTH_WORDS);
+               System.arraycopy(blockTable[block], 0, statements, block * TEXT_BLOCK_LENGTH_WORDS, count);
+            }
+         }
+         return statements;
+      }
+   
+   ////////////////////////////////////////////////////////////////////////////////
+   /**
+    * Notify observers of an instruction fetch from the text segment.  For use by
+    * a simulator that fetches statements from its own copy of the text segment
+    * rather than by getStatement(), so observers see the same notices either way.
+    * @param address address of the fetched statement.
+    * @param binaryStatement its 32-bit machine code.
+    */
+   
+       public void notifyStatementFetch(int address, int binaryStatement) {
+         notifyAnyObservers(AccessNotice.READ, address, Instruction.INSTRUCTION_LENGTH, binaryStatement);
+      }
    		
    /*********************************  THE UTILITIES  *************************************/ 
    
@@ -1119,6 +1613,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                Exceptions.ADDRESS_EXCEPTION_LOAD, startAddr);
          }
          observables.add(new MemoryObservable(obs, startAddr, endAddr));
+         indexObservables();
       }
    
       /**
@@ -1128,15 +1623,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return observables.size();
       }
    
+      /**
+   	 *  Determine whether any observer is registered.  Unlike countObservers(), this
+   	 *  does not synchronize.
+   	 *  @return true if at least one address range is observed.
+   	 */
+       public boolean isObserved() {
+         return observedPages != null;
+      }
+   
    	/**
    	 *  Remove specified memory observers
    	 *  @param obs  Observer to be removed
    	 */   		
        public void deleteObserver(Observer obs) {
-         Iterator it = observables.iterator();
-         while (it.hasNext()) {
-            ((MemoryObservable)it.next()).deleteObserver(obs);
-         }	
+         synchronized (observables) {
+            Iterator it = observables.iterator();
+            while (it.hasNext()) {
+               MemoryObservable mo = (MemoryObservable)it.next();
+               mo.deleteObserver(obs);
+               if (mo.countObservers() == 0) {
+                  mo.listener = null; // in case a notification is using the old index
+                  it.remove();
+               }
+            }	
+         }
+         indexObservables();
       }
    	
    	/**
@@ -1145,6 +1657,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public void deleteObservers() {
          // just drop the collection
          observables = getNewMemoryObserversCollection();
+         indexObservables();
       }
    	
    	/**
@@ -1171,16 +1684,44 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private Collection getNewMemoryObserversCollection() {
          return new Vector();  // Vectors are thread-safe
       }
+   
+      // Rebuild the page bitmap and array copy of the observables collection after it changes.
+       private synchronized void indexObservables() {
+         MemoryObservable[] array;
+         synchronized (observables) {
+            array = (MemoryObservable[]) observables.toArray(new MemoryObservable[observables.size()]);
+         }
+         int[] pages = null;
+         if (array.length > 0) {
+            pages = new int[1 << (32 - PAGE_SHIFT - 5)];
+            for (int i = 0; i < array.length; i++) {
+               // Ranges do not cross 0x80000000 so the page numbers are in order.
+               int lastPage = (array[i].highAddress - 1 + WORD_LENGTH_BYTES) >>> PAGE_SHIFT;
+               for (int page = array[i].lowAddress >>> PAGE_SHIFT; page <= lastPage; page++) {
+                  pages[page >>> 5] |= 1 << (page & 31);
+               }
+            }
+         }
+         observableArray = array;
+         observedPages = pages;
+         if (pages != null) {
+            Simulator.interruptTurbo();
+         }
+      }
    		
        /////////////////////////////////////////////////////////////////////////
        // Private class whose objects will represent an observable-observer pair 
    	 // for a given memory address or range.
        private class MemoryObservable extends Observable implements Comparable {
          private int lowAddress, highAddress; 
+         private volatile MemoryAccessListener listener; // the observer, if it takes primitive callbacks
       	
           public MemoryObservable(Observer obs, int startAddr, int endAddr) {
             lowAddress = startAddr;
             highAddress = endAddr;
+            if (obs instanceof MemoryAccessListener) {
+               listener = (MemoryAccessListener) obs;
+            }
             this.addObserver(obs);
          }
       	
@@ -1220,14 +1761,29 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    //
    // The "|| Globals.getGui()==null" is a hack added 19 July 2012 DPS.  IF MIPS simulation
    // is from command mode, Globals.program is null but still want ability to observe.
+   //
+   // Observers that take primitive callbacks are called directly.  The others share one 
+   // notice, created only if one of them matches.  Notices are immutable so this is safe.
        private void notifyAnyObservers(int type, int address, int length, int value) {
-         if ((Globals.program != null || Globals.getGui()==null) && this.observables.size() > 0) {
-            Iterator it = this.observables.iterator();
-            MemoryObservable mo;
-            while (it.hasNext()) {
-               mo = (MemoryObservable)it.next();
+         int[] pages = observedPages;
+         if (pages == null || (pages[address >>> (PAGE_SHIFT + 5)] & (1 << ((address >>> PAGE_SHIFT) & 31))) == 0) {
+            return;
+         }
+         if (Globals.program != null || Globals.getGui()==null) {
+            MemoryObservable[] array = observableArray;
+            MemoryAccessNotice notice = null;
+            for (int i = 0; i < array.length; i++) {
+               MemoryObservable mo = array[i];
                if (mo.match(address)) {
-                  mo.notifyObserver(new MemoryAccessNotice(type, address, length, value));
+                  if (mo.listener != null) {
+                     mo.listener.memoryAccessed(type, address, length, value);
+                  } 
+                  else {
+                     if (notice == null) {
+                        notice = new MemoryAccessNotice(type, address, length, value);
+                     }
+                     mo.notifyObserver(notice);
+                  }
                }
             }
          } 		
@@ -1235,171 +1791,233 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
    ////////////////////////////////////////////////////////////////////////////////
    //
-   // Helper method to store 1, 2 or 4 byte value in table that represents MIPS
-   // memory. Originally used just for data segment, but now also used for stack.
-   // Both use different tables but same storage method and same table size
-   // and block size.
-   // Modified 29 Dec 2005 to return old value of replaced bytes.
+   // Helper method to find the page holding the given address.  If there is none, it
+   // is allocated if so directed, otherwise null is returned.  Allocation is only asked
+   // for by writes, so a page shared with a snapshot is copied at that point.  A missing
+   // page of a mapped file is always allocated, and filled from the file.  If the 
+   // page lies entirely within one data segment it becomes the cached page, so that 
+   // accesses to it can skip the range checks, unless the caller says otherwise.
+   // Reads that do not notify observers say so: they are made by the GUI, tools and
+   // dumps, often on another thread without the lock, and could otherwise cache a 
+   // page that the simulator has just replaced by its own copy.
    //
-      private static final boolean STORE = true;
-      private static final boolean FETCH = false;
-   	 
-       private int storeBytesInTable(int [][] blockTable, 
-                                   int relativeByteAddress, int length, int value) {
-         return storeOrFetchBytesInTable(blockTable, relativeByteAddress, length, value, STORE);
+       private Page getPage(int address, boolean allocate) {
+         return getPage(address, allocate, true);
       }
-   	
+   
+       private Page getPage(int address, boolean allocate, boolean cache) {
+         int number = address >>> PAGE_SHIFT;
+         Page[] pageTable = pageDirectory[number >>> PAGE_TABLE_SHIFT];
+         Page page = (pageTable == null) ? null : pageTable[number & PAGE_TABLE_MASK];
+         if (page == null) {
+            MappedRange range = (mappedRanges.length == 0) ? null : findMappedRange(number);
+            if (!allocate && range == null) {
+               return null;
+            }
+            if (pageTable == null) {
+               pageTable = new Page[PAGE_TABLE_LENGTH];
+               pageDirectory[number >>> PAGE_TABLE_SHIFT] = pageTable;
+            }
+            page = new Page(number, inOneDataSegment(number << PAGE_SHIFT, (number << PAGE_SHIFT) + PAGE_OFFSET_MASK));
+            pageTable[number & PAGE_TABLE_MASK] = page;
+            allocatedPageCount++;
+            if (range != null) {
+               fillPage(page, range);
+            }
+         } 
+         else if (allocate && page.shared) {
+            page = new Page(page);
+            pageTable[number & PAGE_TABLE_MASK] = page;
+         }
+         if (cache && page.cacheable) {
+            lastPage = page;
+         }
+         return page;
+      }
+   
+   // The mapped file covering the given page number, or null if none does.
+       private MappedRange findMappedRange(int number) {
+         MappedRange[] ranges = mappedRanges;
+         for (int i = 0; i < ranges.length; i++) {
+            if (number - ranges[i].firstPage >= 0 && number - ranges[i].firstPage < ranges[i].pageCount) {
+               return ranges[i];
+            }
+         }
+         return null;
+      }
+   
+   // Copy a page's worth of a mapped file into the page, which it covers.  Where the
+   // file ends short of the end of the page, the rest of the page is zeroed.
+       private void fillPage(Page page, MappedRange range) {
+         ByteBuffer bytes = range.bytes.duplicate().order((byteOrder == LITTLE_ENDIAN) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+         int offset = (page.number - range.firstPage) << PAGE_SHIFT;
+         int length = Math.min(bytes.limit() - offset, PAGE_OFFSET_MASK + 1);
+         int i = 0;
+         for (; i + WORD_LENGTH_BYTES <= length; i += WORD_LENGTH_BYTES) {
+            page.words[i >>> 2] = bytes.getInt(offset + i);
+         }
+         for (; i <= PAGE_OFFSET_MASK; i++) {
+            storeBytesInPage(page.words, (page.number << PAGE_SHIFT) + i, 1, (i < length) ? bytes.get(offset + i) : 0);
+         }
+      }
+   
+   // True if the two addresses fall in the same data segment, using the same range checks
+   // as get() and set().  Used to decide whether a page can be cached.
+       private static boolean inOneDataSegment(int low, int high) {
+         return (inDataSegment(low) && inDataSegment(high)) ||
+                (low > stackLimitAddress && low <= stackBaseAddress && high > stackLimitAddress && high <= stackBaseAddress) ||
+                (!inTextSegment(low) && !inTextSegment(high) && 
+                    low >= memoryMapBaseAddress && low < memoryMapLimitAddress && 
+                    high >= memoryMapBaseAddress && high < memoryMapLimitAddress) ||
+                (!inTextSegment(low) && !inTextSegment(high) && !inKernelTextSegment(low) && !inKernelTextSegment(high) &&
+                    inKernelDataSegment(low) && inKernelDataSegment(high));
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////
    //
-   // Helper method to fetch 1, 2 or 4 byte value from table that represents MIPS
-   // memory.  Originally used just for data segment, but now also used for stack.
-   // Both use different tables but same storage method and same table size
-   // and block size.
-   //	
+   // Helper methods to store 1, 2 or 4 byte value starting at given address, and fetch
+   // them back.  The bytes may span pages.  Returns old value of replaced bytes, for store.
+   //
+       private int storeBytes(int address, int length, int value) {
+         if ((address & PAGE_OFFSET_MASK) <= PAGE_OFFSET_MASK + 1 - length) {
+            return storeBytesInPage(getPage(address, true).words, address, length, value);
+         }
+         int oldValue = 0;
+         for (int i = 0; i < length; i++) {
+            oldValue |= storeBytesInPage(getPage(address + i, true).words, address + i, 1, value >>> (i << 3)) << (i << 3);
+         }
+         return oldValue;
+      }
    
-       private int fetchBytesFromTable(int[][] blockTable, int relativeByteAddress, int length) {
-         return storeOrFetchBytesInTable(blockTable, relativeByteAddress, length, 0, FETCH);
+       private int fetchBytes(int address, int length, boolean cache) {
+         if ((address & PAGE_OFFSET_MASK) <= PAGE_OFFSET_MASK + 1 - length) {
+            Page page = getPage(address, false, cache);
+            return (page == null) ? 0 : fetchBytesFromPage(page.words, address, length);
+         }
+         int value = 0;
+         for (int i = 0; i < length; i++) {
+            value |= fetchBytes(address + i, 1, cache) << (i << 3);
+         }
+         return value;
       }
    
    ////////////////////////////////////////////////////////////////////////////////		
    //
-   // The helper's helper.  Works for either storing or fetching, little or big endian. 
-   // When storing/fetching bytes, most of the work is calculating the correct array element(s) 
-   // and element byte(s).  This method performs either store or fetch, as directed by its 
-   // client using STORE or FETCH in last arg.
-   // Modified 29 Dec 2005 to return old value of replaced bytes, for STORE.
+   // The helpers' helpers.  Store or fetch 1, 2 or 4 bytes that lie within the given page.  
+   // The byte at the given address goes to or comes from the low order byte of the value, 
+   // the next address the next higher byte, and so on.  Where each byte sits within a memory
+   // word depends on byte order.  Aligned accesses with little-endian order, the usual case,
+   // are done directly; the rest byte by byte.
    //
-       private synchronized int storeOrFetchBytesInTable(int [][] blockTable, 
-                                   int relativeByteAddress, int length, int value, boolean op) {
-         int relativeWordAddress, block, offset, bytePositionInMemory, bytePositionInValue;
-         int oldValue = 0; // for STORE, return old values of replaced bytes
-         int loopStopper = 3-length;
-      	// IF added DPS 22-Dec-2008. NOTE: has NOT been tested with Big-Endian.
-      	// Fix provided by Saul Spatz; comments that follow are his.
-      	// If address in stack segment is 4k + m, with 0 < m < 4, then the
-         // relativeByteAddress we want is stackBaseAddress - 4k + m, but the
-         // address actually passed in is stackBaseAddress - (4k + m), so we
-         // need to add 2m.  Because of the change in sign, we get the
-         // expression 4-delta below in place of m.
-         if (blockTable == stackBlockTable) {
-            int delta = relativeByteAddress % 4;
-            if (delta != 0) {
-               relativeByteAddress += ( 4 - delta ) << 1;
+       private int storeBytesInPage(int[] words, int address, int length, int value) {
+         int offset = (address >>> 2) & PAGE_WORD_MASK;
+         if (byteOrder == LITTLE_ENDIAN && (address & (length-1)) == 0 && length != 3) {
+            int oldWord = words[offset];
+            if (length == WORD_LENGTH_BYTES) {
+               words[offset] = value;
+               return oldWord;
             }
+            int shift = (address & 3) << 3;
+            int mask = ((length == 1) ? 0xFF : 0xFFFF) << shift;
+            words[offset] = (oldWord & ~mask) | ((value << shift) & mask);
+            return (oldWord & mask) >>> shift;
          }
-         for (bytePositionInValue = 3; bytePositionInValue > loopStopper; bytePositionInValue--) {
-            bytePositionInMemory = relativeByteAddress % 4;
-            relativeWordAddress = relativeByteAddress >> 2;
-            block = relativeWordAddress / BLOCK_LENGTH_WORDS;  // Block number
-            offset = relativeWordAddress % BLOCK_LENGTH_WORDS; // Word within that block
-            if (blockTable[block] == null) {
-               if (op==STORE) 
-                  blockTable[block] = new int[BLOCK_LENGTH_WORDS];
-               else 
-                  return 0;
-            }
-            if (byteOrder == LITTLE_ENDIAN) bytePositionInMemory = 3 - bytePositionInMemory;
-            if (op == STORE) {
-               oldValue = replaceByte(blockTable[block][offset], bytePositionInMemory,
-                  								oldValue, bytePositionInValue);
-               blockTable[block][offset] = replaceByte(value, bytePositionInValue, 
-                                         blockTable[block][offset], bytePositionInMemory);
-            } 
-            else {// op == FETCH
-               value = replaceByte(blockTable[block][offset], bytePositionInMemory, 
-                                                          value, bytePositionInValue);
+         int oldValue = 0;
+         for (int i = 0; i < length; i++, address++) {
+            offset = (address >>> 2) & PAGE_WORD_MASK;
+            int shift = byteShift(address);
+            oldValue |= ((words[offset] >>> shift) & 0xFF) << (i << 3);
+            words[offset] = (words[offset] & ~(0xFF << shift)) | (((value >>> (i << 3)) & 0xFF) << shift);
+         }
+         return oldValue;
+      }
+   
+       private int fetchBytesFromPage(int[] words, int address, int length) {
+         if (byteOrder == LITTLE_ENDIAN && (address & (length-1)) == 0 && length != 3) {
+            int word = words[(address >>> 2) & PAGE_WORD_MASK];
+            if (length == WORD_LENGTH_BYTES) {
+               return word;
             }
-            relativeByteAddress++;
+            return (word >>> ((address & 3) << 3)) & ((length == 1) ? 0xFF : 0xFFFF);
          }
-         return (op == STORE)	? oldValue : value;
-      }	
+         int value = 0;
+         for (int i = 0; i < length; i++, address++) {
+            value |= ((words[(address >>> 2) & PAGE_WORD_MASK] >>> byteShift(address)) & 0xFF) << (i << 3);
+         }
+         return value;
+      }
+   
+   // Position, as a shift count, of the given address's byte within its memory word.
+       private static int byteShift(int address) {
+         return (byteOrder == LITTLE_ENDIAN) ? (address & 3) << 3 : (3 - (address & 3)) << 3;
+      }
    
    ////////////////////////////////////////////////////////////////////////////////
    //
-   // Helper method to store 4 byte value in table that represents MIPS memory.
-   // Originally used just for data segment, but now also used for stack.
-   // Both use different tables but same storage method and same table size
-   // and block size.  Assumes address is word aligned, no endian processing.
-   // Modified 29 Dec 2005 to return overwritten value.
-         
-       private synchronized int storeWordInTable(int[][] blockTable, int relative, int value) {
-         int  block, offset, oldValue;
-         block = relative / BLOCK_LENGTH_WORDS;
-         offset = relative % BLOCK_LENGTH_WORDS; 
-         if (blockTable[block] == null) {
-               // First time writing to this block, so allocate the space.
-            blockTable[block] = new int[BLOCK_LENGTH_WORDS];
-         }
-         oldValue = blockTable[block][offset];
-         blockTable[block][offset] = value;
+   // Helper methods to store and fetch a 4 byte value at a word-aligned address.  No endian
+   // processing.  Store returns the overwritten value.  Fetch returns 0 for a word in an 
+   // unallocated page, unless the "OrNull" version is used, which returns null.  That 
+   // one was developed by Greg Gibeling of UC Berkeley, fall 2007, for memory dumps.
+   // Both are used only for reads that do not notify, so neither caches the page.
+   //
+       private int storeWord(int address, int value) {
+         int[] words = getPage(address, true).words;
+         int offset = (address >>> 2) & PAGE_WORD_MASK;
+         int oldValue = words[offset];
+         words[offset] = value;
          return oldValue;
       }
-      
+   
+       private int fetchWord(int address) {
+         Page page = getPage(address, false, false);
+         return (page == null) ? 0 : page.words[(address >>> 2) & PAGE_WORD_MASK];
+      }
+   
+       private Integer fetchWordOrNull(int address) {
+         Page page = getPage(address, false, false);
+         return (page == null) ? null : new Integer(page.words[(address >>> 2) & PAGE_WORD_MASK]);
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////
    //
-   // Helper method to fetch 4 byte value from table that represents MIPS memory.
-   // Originally used just for data segment, but now also used for stack.
-   // Both use different tables but same storage method and same table size
-   // and block size.  Assumes word alignment, no endian processing.
+   // One page of data memory.  The page number is its address >>> PAGE_SHIFT.  Cacheable
+   // if the page lies entirely within one data segment, so that any address in it is 
+   // valid for any access.  Shared if a snapshot refers to it, in which case it must 
+   // not be written; the writer replaces it with a copy instead.
    //
-   
-       private synchronized int fetchWordFromTable(int[][] blockTable, int relative) {
-         int value = 0;
-         int block, offset;
-         block = relative / BLOCK_LENGTH_WORDS;
-         offset = relative % BLOCK_LENGTH_WORDS; 
-         if (blockTable[block] == null) {
-                   // first reference to an address in this block.  Assume initialized to 0.
-            value = 0;
-         } 
-         else {
-            value = blockTable[block][offset];
+       private static final class Page {
+         final int number;
+         final boolean cacheable;
+         final int[] words;
+         boolean shared;
+      	
+          Page(int number, boolean cacheable) {
+            this.number = number;
+            this.cacheable = cacheable;
+            this.words = new int[BLOCK_LENGTH_WORDS];
          }
-         return value;
-      }     
-       
-       ////////////////////////////////////////////////////////////////////////////////
-       //
-       // Helper method to fetch 4 byte value from table that represents MIPS memory.
-       // Originally used just for data segment, but now also used for stack.
-       // Both use different tables but same storage method and same table size
-       // and block size.  Assumes word alignment, no endian processing.
-   	 //
-   	 // This differs from "fetchWordFromTable()" in that it returns an Integer and
-   	 // returns null instead of 0 if the 4K table has not been allocated.  Developed
-   	 // by Greg Gibeling of UC Berkeley, fall 2007.
-       //
-       
-       private synchronized Integer fetchWordOrNullFromTable(int[][] blockTable, int relative) {
-         int value = 0;
-         int block, offset;
-         block = relative / BLOCK_LENGTH_WORDS;
-         offset = relative % BLOCK_LENGTH_WORDS; 
-         if (blockTable[block] == null) {
-                       // first reference to an address in this block.  Assume initialized to 0.
-            return null;
-         } 
-         else {
-            value = blockTable[block][offset];
+      	
+          Page(Page original) {
+            this.number = original.number;
+            this.cacheable = original.cacheable;
+            this.words = original.words.clone();
          }
-         return new Integer(value);
       }
    	   
-   ////////////////////////////////////////////////////////////////////////////////////
-   // Returns result of substituting specified byte of source value into specified byte 
-   // of destination value. Byte positions are 0-1-2-3, listed from most to least 
-   // significant.  No endian issues.  This is a private helper method used by get() & set().
-       private int replaceByte(int sourceValue, int bytePosInSource, int destValue, int bytePosInDest) {
-         return
-            // Set source byte value into destination byte position; set other 24 bits to 0's...
-             ((sourceValue >> (24 - (bytePosInSource << 3)) & 0xFF) 
-                                             << (24 - (bytePosInDest << 3)))
-            // and bitwise-OR it with...
-              |
-            // Set 8 bits in destination byte position to 0's, other 24 bits are unchanged.
-             (destValue & ~(0xFF << (24 - (bytePosInDest << 3))));
+   // Pages of a mapped file, whose contents come from the bytes in the buffer starting 
+   // at its index 0.
+       private static final class MappedRange {
+         final int firstPage;
+         final int pageCount;
+         final ByteBuffer bytes;
+      	
+          MappedRange(int firstPage, int pageCount, ByteBuffer bytes) {
+            this.firstPage = firstPage;
+            this.pageCount = pageCount;
+            this.bytes = bytes;
+         }
       }
-      
+   	   
    ///////////////////////////////////////////////////////////////////////
    // Reverses byte sequence of given value.  Can use to convert between big and
    // little endian if needed.
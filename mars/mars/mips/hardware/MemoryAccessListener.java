@@ -0,0 +1,54 @@
+   package mars.mips.hardware;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Primitive callback for observing runtime access to MIPS memory.  A memory Observer
+ * that also implements this interface is called through it instead of through 
+ * Observer.update(), so no MemoryAccessNotice is created for it.  This matters for
+ * observers of every instruction fetch or data access, such as instruction counters
+ * and cache simulators.  The callback is made on the thread that accessed memory; as
+ * with AccessNotice, an access from the executing MIPS program is made from a thread
+ * whose name starts with "MIPS".
+ *
+ * @see Memory#addObserver(java.util.Observer, int, int)
+ */
+
+    public interface MemoryAccessListener {
+    
+    /**
+     * Called when a memory address the listener is registered for is accessed.
+     *
+     * @param type AccessNotice.READ or AccessNotice.WRITE
+     * @param address the memory address accessed
+     * @param length length of the access in bytes (4, 2 or 1)
+     * @param value the value read or written
+     */
+       public void memoryAccessed(int type, int address, int length, int value);
+   }
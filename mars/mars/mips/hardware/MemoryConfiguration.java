@@ -45,13 +45,21 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private String configurationIdentifier, configurationName;
       private String[] configurationItemNames;
       private int[] configurationItemValues;
+      // If true, data, stack, kernel data and MMIO segments are held to the capacities 
+      // of earlier MARS versions (4MB, 64KB for MMIO) regardless of their limit addresses.
+      private boolean segmentCapacityLimit;
    	
    
        public MemoryConfiguration(String ident, String name, String[] items, int[] values) {
+         this(ident, name, items, values, true);
+      }
+   
+       public MemoryConfiguration(String ident, String name, String[] items, int[] values, boolean segmentCapacityLimit) {
 		   this.configurationIdentifier = ident;
          this.configurationName = name;
          this.configurationItemNames = items;
          this.configurationItemValues = values;
+         this.segmentCapacityLimit = segmentCapacityLimit;
       }
    	
    	public String getConfigurationIdentifier() {
@@ -69,6 +77,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public String[] getConfigurationItemNames() {
          return configurationItemNames;
       }
+   
+       public boolean hasSegmentCapacityLimit() {
+         return segmentCapacityLimit;
+      }
    			
        public int getTextBaseAddress() {
          return configurationItemValues[0];
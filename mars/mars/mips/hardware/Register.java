@@ -1,5 +1,6 @@
    package mars.mips.hardware;
    import mars.*;
+   import mars.simulator.*;
    import java.util.*;
 
 /*
@@ -39,11 +40,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     public class Register extends Observable {
       private String name;
       private int number, resetValue;
-   	// volatile should be enough to allow safe multi-threaded access  
-   	// w/o the use of synchronized methods.  getValue and setValue
-   	// are the only methods here used by the register collection
-   	// (RegisterFile, Coprocessor0, Coprocessor1) methods. 
-      private volatile int value;
+   	// The value is held in an element of an int array.  Normally the array is the 
+   	// register's own, but a register collection can supply a shared array so it
+   	// can read and write values directly by index.  The Register object is then a view
+   	// of its element, used for observing and by the GUI and tools (see RegisterFile). 
+      private final int[] values;
+      private final int index;
+   	// True if there is at least one observer.  Lets a register collection skip this
+   	// object entirely, and its notifications, when no one is watching.
+      private volatile boolean observed;
       
    	 /**
         *  Creates a new register with specified name, number, and value.
@@ -53,9 +58,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
         */
    	  
        public Register(String n, int num, int val){
+         this(n, num, val, new int[1], 0);
+      }
+   	
+   	 /**
+        *  Creates a new register whose value is held in the given element of an array
+        *  shared with its register collection.
+        *   @param n The name of the register.
+        *   @param num The number of the register.
+        *   @param val The inital (and reset) value of the register.
+        *   @param values The array holding the value.
+        *   @param index Position of the value in that array.
+        */
+   	  
+       Register(String n, int num, int val, int[] values, int index){
          name= n;
          number=num;
-         value= val;
+         this.values = values;
+         this.index = index;
+         values[index]= val;
          resetValue = val;
       }
       
@@ -76,7 +97,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  
        public synchronized int getValue(){
          notifyAnyObservers(AccessNotice.READ);
-         return value;
+         return values[index];
       }
 
       
@@ -87,7 +108,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  */
    	  
        public synchronized int getValueNoNotify(){
-         return value;
+         return values[index];
       }
 		
    
@@ -116,8 +137,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  */
    	  
        public synchronized int setValue(int val){
-         int old = value;
-         value = val;
+         int old = values[index];
+         values[index] = val;
          notifyAnyObservers(AccessNotice.WRITE);
          return old;
       }
@@ -128,7 +149,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  */
    	  
        public synchronized void resetValue(){
-         value = resetValue;
+         values[index] = resetValue;
       }
    	
    	/**
@@ -140,11 +161,37 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          resetValue = reset;
       }
    
+   	/**
+   	  *  Returns whether the register has any observers.  Unlike countObservers(),
+   	  *  this is not synchronized.
+   	  *   @return true if at least one observer is registered.
+   	  */
+   	  
+       public boolean isObserved(){
+         return observed;
+      }
+   
+       public synchronized void addObserver(Observer o) {
+         super.addObserver(o);
+         observed = countObservers() > 0;
+         Simulator.interruptTurbo();
+      }
+   
+       public synchronized void deleteObserver(Observer o) {
+         super.deleteObserver(o);
+         observed = countObservers() > 0;
+      }
+   
+       public synchronized void deleteObservers() {
+         super.deleteObservers();
+         observed = false;
+      }
+   
    //
    // Method to notify any observers of register operation that has just occurred.
    //
        private void notifyAnyObservers(int type) {
-         if (this.countObservers() > 0){// && Globals.program != null) && Globals.program.inSteppedExecution()) {
+         if (observed){// && Globals.program != null) && Globals.program.inSteppedExecution()) {
             this.setChanged();
             this.notifyObservers(new RegisterAccessNotice(type, this.name));
          } 
@@ -3,6 +3,7 @@
    import java.util.Observer;
 
    import mars.Globals;
+   import mars.MachineContext;
    import mars.assembler.SymbolTable;
    import mars.mips.instructions.Instruction;
    import mars.util.Binary;
@@ -45,30 +46,58 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
       public static final int GLOBAL_POINTER_REGISTER = 28;
       public static final int STACK_POINTER_REGISTER = 29;
+      private static final int PROGRAM_COUNTER = 32;
+      private static final int HI = 33;
+      private static final int LO = 34;
    
-      private static Register [] regFile = 
-          { new Register("$zero", 0, 0), new Register("$at", 1, 0),
-         	new Register("$v0", 2, 0),new Register("$v1", 3, 0),
-         	new Register("$a0", 4, 0),new Register("$a1", 5, 0),
-         	new Register("$a2", 6, 0),new Register("$a3", 7, 0),
-         	new Register("$t0", 8, 0),new Register("$t1", 9, 0),
-         	new Register("$t2", 10, 0),new Register("$t3", 11, 0), 
-         	new Register("$t4", 12, 0),new Register("$t5", 13, 0),
-         	new Register("$t6", 14, 0),new Register("$t7", 15, 0),
-         	new Register("$s0", 16, 0),new Register("$s1", 17, 0),
-         	new Register("$s2", 18, 0),new Register("$s3", 19, 0),
-         	new Register("$s4", 20, 0),new Register("$s5", 21, 0),
-         	new Register("$s6", 22, 0),new Register("$s7", 23, 0),
-         	new Register("$t8", 24, 0),new Register("$t9", 25, 0),
-         	new Register("$k0", 26, 0),new Register("$k1", 27, 0),
-         	new Register("$gp", GLOBAL_POINTER_REGISTER, Memory.globalPointer),
-         	new Register("$sp", STACK_POINTER_REGISTER, Memory.stackPointer),
-         	new Register("$fp", 30, 0),new Register("$ra", 31, 0)
+      // All register values are held in this array, indexed by register number.  The
+   	// Register objects below are views of its elements.  Reads and writes made while
+   	// no one observes the register, and back-stepping is off, go directly to the array.
+   	// Each MachineContext has its own registers; the static methods use the current one's.
+      private final int[] values = new int[LO+1];
+   
+      private final Register [] regFile = 
+          { new Register("$zero", 0, 0, values, 0), new Register("$at", 1, 0, values, 1),
+         	new Register("$v0", 2, 0, values, 2),new Register("$v1", 3, 0, values, 3),
+         	new Register("$a0", 4, 0, values, 4),new Register("$a1", 5, 0, values, 5),
+         	new Register("$a2", 6, 0, values, 6),new Register("$a3", 7, 0, values, 7),
+         	new Register("$t0", 8, 0, values, 8),new Register("$t1", 9, 0, values, 9),
+         	new Register("$t2", 10, 0, values, 10),new Register("$t3", 11, 0, values, 11), 
+         	new Register("$t4", 12, 0, values, 12),new Register("$t5", 13, 0, values, 13),
+         	new Register("$t6", 14, 0, values, 14),new Register("$t7", 15, 0, values, 15),
+         	new Register("$s0", 16, 0, values, 16),new Register("$s1", 17, 0, values, 17),
+         	new Register("$s2", 18, 0, values, 18),new Register("$s3", 19, 0, values, 19),
+         	new Register("$s4", 20, 0, values, 20),new Register("$s5", 21, 0, values, 21),
+         	new Register("$s6", 22, 0, values, 22),new Register("$s7", 23, 0, values, 23),
+         	new Register("$t8", 24, 0, values, 24),new Register("$t9", 25, 0, values, 25),
+         	new Register("$k0", 26, 0, values, 26),new Register("$k1", 27, 0, values, 27),
+         	new Register("$gp", GLOBAL_POINTER_REGISTER, Memory.globalPointer, values, GLOBAL_POINTER_REGISTER),
+         	new Register("$sp", STACK_POINTER_REGISTER, Memory.stackPointer, values, STACK_POINTER_REGISTER),
+         	new Register("$fp", 30, 0, values, 30),new Register("$ra", 31, 0, values, 31)
            };
          												  
-      private static Register programCounter= new Register("pc", 32, Memory.textBaseAddress); 
-      private static Register hi= new Register("hi", 33, 0);//this is an internal register with arbitrary number
-      private static Register lo= new Register("lo", 34, 0);// this is an internal register with arbitrary number
+      private final Register programCounter= new Register("pc", PROGRAM_COUNTER, Memory.textBaseAddress, values, PROGRAM_COUNTER); 
+      private final Register hi= new Register("hi", HI, 0, values, HI);//this is an internal register with arbitrary number
+      private final Register lo= new Register("lo", LO, 0, values, LO);// this is an internal register with arbitrary number
+   
+      // Register views by number, for O(1) lookup.  No entry for the program counter, which
+   	// is not updated by number.
+      private final Register[] registersByNumber = new Register[LO+1];
+   
+   	/**
+   	  *  Create the registers of a new MachineContext, holding their reset values.  Others
+   	  *  use the static methods, which apply to the registers of the current context.
+   	  **/
+   	  
+       public RegisterFile() {
+         System.arraycopy(regFile, 0, registersByNumber, 0, regFile.length);
+         registersByNumber[HI] = hi;
+         registersByNumber[LO] = lo;
+      }
+   
+       private static RegisterFile current() {
+         return MachineContext.current().getRegisterFile();
+      }
    		 
    
    	/**
@@ -76,10 +105,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/	 
    		 
        public static void showRegisters(){
-         for (int i=0; i< regFile.length; i++){
-            System.out.println("Name: " + regFile[i].getName());
-            System.out.println("Number: " + regFile[i].getNumber());
-            System.out.println("Value: " + regFile[i].getValue());	
+         RegisterFile file = current();
+         for (int i=0; i< file.regFile.length; i++){
+            System.out.println("Name: " + file.regFile[i].getName());
+            System.out.println("Number: " + file.regFile[i].getNumber());
+            System.out.println("Value: " + file.regFile[i].getValue());	
             System.out.println(""); 
          }
       }
@@ -93,29 +123,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	  
        public static int updateRegister(int num, int val){
-         int old = 0;
-         if(num == 0){
+         RegisterFile file = current();
+         if(num <= 0 || num > LO || file.registersByNumber[num] == null){
             //System.out.println("You can not change the value of the zero register.");
+            return 0;
          }
+         Register register = file.registersByNumber[num];
+         int old;
+         if (register.isObserved()) {
+            old = register.setValue(val);
+         } 
          else {
-            for (int i=0; i< regFile.length; i++){
-               if(regFile[i].getNumber()== num) {
-                  old = (Globals.getSettings().getBackSteppingEnabled())
-                        ? Globals.program.getBackStepper().addRegisterFileRestore(num,regFile[i].setValue(val))
-                     	: regFile[i].setValue(val);
-                  break;
-               }
-            }
-         }
-         if(num== 33){//updates the hi register
-            old = (Globals.getSettings().getBackSteppingEnabled())
-               	      ? Globals.program.getBackStepper().addRegisterFileRestore(num,hi.setValue(val))
-               			: hi.setValue(val);
+            old = file.values[num];
+            file.values[num] = val;
          }
-         else if(num== 34){// updates the low register
-            old = (Globals.getSettings().getBackSteppingEnabled())
-               	      ? Globals.program.getBackStepper().addRegisterFileRestore(num,lo.setValue(val))
-               			: lo.setValue(val);
+         if (Globals.getSettings().getBackSteppingEnabled()) {
+            MachineContext.current().getProgram().getBackStepper().addRegisterFileRestore(num,old);
          }
          return old;
       }
@@ -127,12 +150,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static void updateRegister(String reg, int val){
+         RegisterFile file = current();
          if(reg.equals("zero")){
             //System.out.println("You can not change the value of the zero register.");
          }
          else{
-            for (int i=0; i< regFile.length; i++){
-               if(regFile[i].getName().equals(reg)) {
+            for (int i=0; i< file.regFile.length; i++){
+               if(file.regFile[i].getName().equals(reg)) {
                   updateRegister(i,val);
                   break;
                }
@@ -146,15 +170,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static int getValue(int num){
-         if(num==33){
-            return hi.getValue();
-         }
-         else if(num==34){
-            return lo.getValue();
-         }
-         else  
-            return regFile[num].getValue();
-            
+         RegisterFile file = current();
+         Register register = file.registersByNumber[num];
+         return (register.isObserved()) ? register.getValue() : file.values[num];
       }
       		
       	/**
@@ -165,10 +183,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    		  **/	
       		
        public static int getNumber(String n){
+         RegisterFile file = current();
          int j=-1;
-         for (int i=0; i< regFile.length; i++){
-            if(regFile[i].getName().equals(n)) {
-               j= regFile[i].getNumber();
+         for (int i=0; i< file.regFile.length; i++){
+            if(file.regFile[i].getName().equals(n)) {
+               j= file.regFile[i].getNumber();
                break;
             }
          } 
@@ -181,7 +200,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static Register[] getRegisters(){
-         return regFile;
+         return current().regFile;
       }
       
    	/**
@@ -191,20 +210,21 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static Register getUserRegister(String Rname) {
+         RegisterFile file = current();
          Register reg = null;
          if (Rname.charAt(0) == '$') {
             try {
                    // check for register number 0-31.
-               reg = regFile[Binary.stringToInt(Rname.substring(1))];    // KENV 1/6/05
+               reg = file.regFile[Binary.stringToInt(Rname.substring(1))];    // KENV 1/6/05
             }
                 catch (Exception e) {
                    // handles both NumberFormat and ArrayIndexOutOfBounds
                    // check for register mnemonic $zero thru $ra
                   reg = null; // just to be sure
                    // just do linear search; there aren't that many registers
-                  for (int i=0; i < regFile.length; i++) {
-                     if (Rname.equals(regFile[i].getName())) {
-                        reg = regFile[i];
+                  for (int i=0; i < file.regFile.length; i++) {
+                     if (Rname.equals(file.regFile[i].getName())) {
+                        reg = file.regFile[i];
                         break;
                      }
                   }
@@ -221,7 +241,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
      
        public static void initializeProgramCounter(int value){
-         programCounter.setValue(value);
+         current().programCounter.setValue(value);
       }
    	
    	/**
@@ -234,12 +254,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 **/
    	 
        public static void initializeProgramCounter(boolean startAtMain) {  
-         int mainAddr = Globals.symbolTable.getAddress(SymbolTable.getStartLabel());
+         RegisterFile file = current();
+         int mainAddr = MachineContext.current().getSymbolTable().getAddress(SymbolTable.getStartLabel());
          if (startAtMain && mainAddr != SymbolTable.NOT_FOUND && (Memory.inTextSegment(mainAddr) || Memory.inKernelTextSegment(mainAddr))) {
             initializeProgramCounter(mainAddr);
          } 
          else {
-            initializeProgramCounter(programCounter.getResetValue());
+            initializeProgramCounter(file.programCounter.getResetValue());
          }
       }
    	
@@ -251,10 +272,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
      
        public static int setProgramCounter(int value){
-         int old = programCounter.getValue();
-         programCounter.setValue(value);
+         RegisterFile file = current();
+         int old = getProgramCounter();
+         if (file.programCounter.isObserved()) {
+            file.programCounter.setValue(value);
+         } 
+         else {
+            file.values[PROGRAM_COUNTER] = value;
+         }
          if (Globals.getSettings().getBackSteppingEnabled()) {
-            Globals.program.getBackStepper().addPCRestore(old);
+            MachineContext.current().getProgram().getBackStepper().addPCRestore(old);
          } 
          return old;
       }
@@ -265,7 +292,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	 
        public static int getProgramCounter(){
-         return programCounter.getValue();
+         RegisterFile file = current();
+         return (file.programCounter.isObserved()) ? file.programCounter.getValue() : file.values[PROGRAM_COUNTER];
       }
    
      /**
@@ -273,7 +301,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	*  @return program counter's Register object.
    	*/
        public static Register getProgramCounterRegister() {
-         return programCounter;
+         return current().programCounter;
       }
    	
      /**
@@ -282,7 +310,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	 
        public static int getInitialProgramCounter(){
-         return programCounter.getResetValue();
+         return current().programCounter.getResetValue();
       }
    	
    	/**
@@ -295,12 +323,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  **/
    	
        public static void resetRegisters(){
-         for(int i=0; i< regFile.length; i++){
-            regFile[i].resetValue();
+         RegisterFile file = current();
+         for(int i=0; i< file.regFile.length; i++){
+            file.regFile[i].resetValue();
          }
          initializeProgramCounter(Globals .getSettings().getStartAtMain());// replaces "programCounter.resetValue()", DPS 3/3/09
-         hi.resetValue();
-         lo.resetValue();
+         file.hi.resetValue();
+         file.lo.resetValue();
       }
       
      /**
@@ -308,7 +337,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 **/
    
        public static void incrementPC(){
-         programCounter.setValue(programCounter.getValue() + Instruction.INSTRUCTION_LENGTH);
+         RegisterFile file = current();
+         if (file.programCounter.isObserved()) {
+            file.programCounter.setValue(file.programCounter.getValue() + Instruction.INSTRUCTION_LENGTH);
+         } 
+         else {
+            file.values[PROGRAM_COUNTER] += Instruction.INSTRUCTION_LENGTH;
+         }
       }
    
       /**
@@ -317,11 +352,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  Counter.
    	 */
        public static void addRegistersObserver(Observer observer) {
-         for (int i=0; i<regFile.length; i++) {
-            regFile[i].addObserver(observer);
+         RegisterFile file = current();
+         for (int i=0; i<file.regFile.length; i++) {
+            file.regFile[i].addObserver(observer);
          }
-         hi.addObserver(observer);
-         lo.addObserver(observer);
+         file.hi.addObserver(observer);
+         file.lo.addObserver(observer);
       }
    	
       /**
@@ -330,10 +366,26 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  Counter.
    	 */
        public static void deleteRegistersObserver(Observer observer) {
-         for (int i=0; i<regFile.length; i++) {
-            regFile[i].deleteObserver(observer);
+         RegisterFile file = current();
+         for (int i=0; i<file.regFile.length; i++) {
+            file.regFile[i].deleteObserver(observer);
+         }
+         file.hi.deleteObserver(observer);
+         file.lo.deleteObserver(observer);
+      }
+   	
+      /**
+   	 *  Determine whether any of the registers, including the Program Counter, has
+   	 *  an observer.
+   	 *  @return true if at least one register is observed.
+   	 */
+       public static boolean isObserved() {
+         RegisterFile file = current();
+         for (int i=0; i<file.regFile.length; i++) {
+            if (file.regFile[i].isObserved()) {
+               return true;
+            }
          }
-         hi.deleteObserver(observer);
-         lo.deleteObserver(observer);
+         return file.hi.isObserved() || file.lo.isObserved() || file.programCounter.isObserved();
       }
    }
@@ -0,0 +1,166 @@
+   package mars.mips.instructions;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Table for finding the basic instruction that a binary machine instruction encodes.
+ * The first level is indexed by the 6-bit primary opcode.  Where several instructions
+ * share a primary opcode, the second level is indexed by whichever of the funct, rt or
+ * rs/fmt fields best tells them apart (funct for SPECIAL, rt for REGIMM, fmt for COP1 
+ * and so on).  Each slot of the second level lists the few instructions that can match
+ * there, most specific first, and the first whose opcode mask and match agree with the
+ * binary is the answer.  For nearly every binary that is the first one tried.
+ * <p>
+ * The result is the same as trying the instructions in order of decreasing number of 
+ * 1 bits in their opcode mask, which is how binary instructions have always been decoded.
+ *
+ * @see InstructionSet#findByBinaryCode(int)
+ */
+
+    class DecodeTable {
+      // Candidate fields for the second level: shift and mask of funct, rt and rs/fmt.
+      private static final int[] FIELD_SHIFTS = { 0, 16, 21 };
+      private static final int[] FIELD_MASKS = { 0x3f, 0x1f, 0x1f };
+      private static final int PRIMARY_SHIFT = 26;
+      private static final int PRIMARY_MASK = 0xfc000000;
+   
+      private final int[] shifts = new int[64];
+      private final int[] masks = new int[64];
+      private final Slot[][] slots = new Slot[64][];
+   
+   	/**
+   	 * Build the table for the given instructions.  If two have the same opcode mask and
+   	 * match, the later one is used.
+   	 *
+   	 * @param instructions list of Instruction; only the BasicInstructions are used.
+   	 */
+       DecodeTable(List<?> instructions) {
+         LinkedHashMap<Long, BasicInstruction> unique = new LinkedHashMap<Long, BasicInstruction>();
+         for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.get(i) instanceof BasicInstruction) {
+               BasicInstruction basic = (BasicInstruction) instructions.get(i);
+               unique.put(Long.valueOf(((long) basic.getOpcodeMask() << 32) | (basic.getOpcodeMatch() & 0xffffffffL)), basic);
+            }
+         }
+         ArrayList<BasicInstruction> sorted = new ArrayList<BasicInstruction>(unique.values());
+         Collections.sort(sorted, 
+                new Comparator<BasicInstruction>() {
+                   public int compare(BasicInstruction a, BasicInstruction b) {
+                     int d = Integer.bitCount(b.getOpcodeMask()) - Integer.bitCount(a.getOpcodeMask());
+                     return (d != 0) ? d : a.getOpcodeMask() - b.getOpcodeMask();
+                  }
+               });
+         for (int op = 0; op < 64; op++) {
+            ArrayList<BasicInstruction> candidates = new ArrayList<BasicInstruction>();
+            for (int i = 0; i < sorted.size(); i++) {
+               if (agrees(sorted.get(i), op << PRIMARY_SHIFT, PRIMARY_MASK)) {
+                  candidates.add(sorted.get(i));
+               }
+            }
+            // Pick the field leaving the fewest instructions to try in any one slot.
+            int best = -1;
+            int bestLength = candidates.size();
+            for (int f = 0; f < FIELD_SHIFTS.length && candidates.size() > 1; f++) {
+               int length = 0;
+               for (int value = 0; value <= FIELD_MASKS[f]; value++) {
+                  length = Math.max(length, 
+                     select(candidates, op << PRIMARY_SHIFT | value << FIELD_SHIFTS[f], 
+                            PRIMARY_MASK | FIELD_MASKS[f] << FIELD_SHIFTS[f]).size());
+               }
+               if (length < bestLength) {
+                  best = f;
+                  bestLength = length;
+               }
+            }
+            shifts[op] = (best < 0) ? 0 : FIELD_SHIFTS[best];
+            masks[op] = (best < 0) ? 0 : FIELD_MASKS[best];
+            slots[op] = new Slot[masks[op] + 1];
+            for (int value = 0; value <= masks[op]; value++) {
+               ArrayList<BasicInstruction> slot = select(candidates, op << PRIMARY_SHIFT | value << shifts[op],
+                                                         PRIMARY_MASK | masks[op] << shifts[op]);
+               slots[op][value] = slot.isEmpty() ? null : new Slot(slot);
+            }
+         }
+      }
+   
+   	/**
+   	 * Find the basic instruction encoded by the given binary instruction.
+   	 *
+   	 * @param binary 32-bit binary machine instruction.
+   	 * @return the matching BasicInstruction, or null if there is none.
+   	 */
+       BasicInstruction find(int binary) {
+         int op = binary >>> PRIMARY_SHIFT;
+         Slot slot = slots[op][(binary >>> shifts[op]) & masks[op]];
+         if (slot != null) {
+            int[] opcodeMasks = slot.masks;
+            for (int i = 0; i < opcodeMasks.length; i++) {
+               if ((binary & opcodeMasks[i]) == slot.matches[i]) {
+                  return slot.instructions[i];
+               }
+            }
+         }
+         return null;
+      }
+   
+      // Instructions, in order, that could match a binary having the given bits.
+       private static ArrayList<BasicInstruction> select(ArrayList<BasicInstruction> candidates, int bits, int bitMask) {
+         ArrayList<BasicInstruction> selected = new ArrayList<BasicInstruction>();
+         for (int i = 0; i < candidates.size(); i++) {
+            if (agrees(candidates.get(i), bits, bitMask)) {
+               selected.add(candidates.get(i));
+            }
+         }
+         return selected;
+      }
+   
+      // True if the instruction's required bits agree with the given bits where both are defined.
+       private static boolean agrees(BasicInstruction instruction, int bits, int bitMask) {
+         return ((bits ^ instruction.getOpcodeMatch()) & bitMask & instruction.getOpcodeMask()) == 0;
+      }
+   
+      // The instructions to try for one slot, with their opcode masks and matches in parallel arrays.
+       private static final class Slot {
+         final int[] masks;
+         final int[] matches;
+         final BasicInstruction[] instructions;
+      
+          Slot(ArrayList<BasicInstruction> list) {
+            masks = new int[list.size()];
+            matches = new int[list.size()];
+            instructions = new BasicInstruction[list.size()];
+            for (int i = 0; i < instructions.length; i++) {
+               instructions[i] = list.get(i);
+               masks[i] = instructions[i].getOpcodeMask();
+               matches[i] = instructions[i].getOpcodeMatch();
+            }
+         }
+      }
+   }
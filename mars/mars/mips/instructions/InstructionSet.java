@@ -47,7 +47,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     public class InstructionSet
    {
       private ArrayList instructionList;
-	  private ArrayList opcodeMatchMaps;
+	  private DecodeTable decodeTable;
       private SyscallLoader syscallLoader;
     /**
      * Creates a new InstructionSet object.
@@ -657,7 +657,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      try
                      {
                         RegisterFile.updateRegister(operands[0],
-                            Globals.memory.getWord(
+                            Memory.getInstance().getWord(
                             RegisterFile.getValue(operands[2]) + operands[1]));
                      } 
                          catch (AddressErrorException e)
@@ -687,7 +687,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      try
                      {
                         RegisterFile.updateRegister(operands[0],
-                            Globals.memory.getWord(
+                            Memory.getInstance().getWord(
                             RegisterFile.getValue(operands[2]) + operands[1]));
                      } 
                          catch (AddressErrorException e)
@@ -710,8 +710,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      {
                         int address = RegisterFile.getValue(operands[2]) + operands[1];
                         int result = RegisterFile.getValue(operands[0]);
-                        for (int i=0; i<=address % Globals.memory.WORD_LENGTH_BYTES; i++) {
-                           result = Binary.setByte(result,3-i,Globals.memory.getByte(address-i));
+                        for (int i=0; i<=address % Memory.getInstance().WORD_LENGTH_BYTES; i++) {
+                           result = Binary.setByte(result,3-i,Memory.getInstance().getByte(address-i));
                         }
                         RegisterFile.updateRegister(operands[0], result);
                      } 
@@ -735,8 +735,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      {
                         int address = RegisterFile.getValue(operands[2]) + operands[1];
                         int result = RegisterFile.getValue(operands[0]);
-                        for (int i=0; i<=3-(address % Globals.memory.WORD_LENGTH_BYTES); i++) {
-                           result = Binary.setByte(result,i,Globals.memory.getByte(address+i));
+                        for (int i=0; i<=3-(address % Memory.getInstance().WORD_LENGTH_BYTES); i++) {
+                           result = Binary.setByte(result,i,Memory.getInstance().getByte(address+i));
                         }
                         RegisterFile.updateRegister(operands[0], result);
                      } 
@@ -758,7 +758,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      int[] operands = statement.getOperands();
                      try
                      {
-                        Globals.memory.setWord(
+                        Memory.getInstance().setWord(
                             RegisterFile.getValue(operands[2]) + operands[1],
                             RegisterFile.getValue(operands[0]));
                      } 
@@ -782,7 +782,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      int[] operands = statement.getOperands();
                      try
                      {
-                        Globals.memory.setWord(
+                        Memory.getInstance().setWord(
                             RegisterFile.getValue(operands[2]) + operands[1],
                             RegisterFile.getValue(operands[0]));
                      } 
@@ -807,8 +807,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      {
                         int address = RegisterFile.getValue(operands[2]) + operands[1];
                         int source = RegisterFile.getValue(operands[0]);
-                        for (int i=0; i<=address % Globals.memory.WORD_LENGTH_BYTES; i++) {
-                           Globals.memory.setByte(address-i,Binary.getByte(source,3-i));
+                        for (int i=0; i<=address % Memory.getInstance().WORD_LENGTH_BYTES; i++) {
+                           Memory.getInstance().setByte(address-i,Binary.getByte(source,3-i));
                         }
                      } 
                          catch (AddressErrorException e)
@@ -831,8 +831,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      {
                         int address = RegisterFile.getValue(operands[2]) + operands[1];
                         int source = RegisterFile.getValue(operands[0]);
-                        for (int i=0; i<=3-(address % Globals.memory.WORD_LENGTH_BYTES); i++) {
-                           Globals.memory.setByte(address+i,Binary.getByte(source,i));
+                        for (int i=0; i<=3-(address % Memory.getInstance().WORD_LENGTH_BYTES); i++) {
+                           Memory.getInstance().setByte(address+i,Binary.getByte(source,i));
                         }
                      } 
                          catch (AddressErrorException e)
@@ -1281,7 +1281,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      try
                      {
                         RegisterFile.updateRegister(operands[0],
-                            Globals.memory.getByte(
+                            Memory.getInstance().getByte(
                             RegisterFile.getValue(operands[2])
                                     + (operands[1] << 16 >> 16))
                                             << 24
@@ -1306,7 +1306,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      try
                      {
                         RegisterFile.updateRegister(operands[0],
-                            Globals.memory.getHalf(
+                            Memory.getInstance().getHalf(
                             RegisterFile.getValue(operands[2])
                                     + (operands[1] << 16 >> 16))
                                             << 16
@@ -1332,7 +1332,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      {
                      // offset is sign-extended and loaded halfword value is zero-extended
                         RegisterFile.updateRegister(operands[0],
-                            Globals.memory.getHalf(
+                            Memory.getInstance().getHalf(
                             RegisterFile.getValue(operands[2])
                                     + (operands[1] << 16 >> 16))
                                             & 0x0000ffff);
@@ -1356,7 +1356,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      try
                      {
                         RegisterFile.updateRegister(operands[0],
-                            Globals.memory.getByte(
+                            Memory.getInstance().getByte(
                             RegisterFile.getValue(operands[2])
                                     + (operands[1] << 16 >> 16))
                                             & 0x000000ff);
@@ -1379,7 +1379,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      int[] operands = statement.getOperands();
                      try
                      {
-                        Globals.memory.setByte(
+                        Memory.getInstance().setByte(
                             RegisterFile.getValue(operands[2])
                                     + (operands[1] << 16 >> 16),
                                     RegisterFile.getValue(operands[0])
@@ -1403,7 +1403,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      int[] operands = statement.getOperands();
                      try
                      {
-                        Globals.memory.setHalf(
+                        Memory.getInstance().setHalf(
                             RegisterFile.getValue(operands[2])
                                     + (operands[1] << 16 >> 16),
                                     RegisterFile.getValue(operands[0])
@@ -2724,7 +2724,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      try
                      {
                         Coprocessor1.updateRegister(operands[0],
-                            Globals.memory.getWord(
+                            Memory.getInstance().getWord(
                             RegisterFile.getValue(operands[2]) + operands[1]));
                      } 
                          catch (AddressErrorException e)
@@ -2747,7 +2747,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                         throw new ProcessingException(statement, "first register must be even-numbered");
                      }
                   	// IF statement added by DPS 13-July-2011.
-                     if (!Globals.memory.doublewordAligned(RegisterFile.getValue(operands[2]) + operands[1])) {
+                     if (!Memory.getInstance().doublewordAligned(RegisterFile.getValue(operands[2]) + operands[1])) {
                         throw new ProcessingException(statement,
                            new AddressErrorException("address not aligned on doubleword boundary ",
                            Exceptions.ADDRESS_EXCEPTION_LOAD, RegisterFile.getValue(operands[2]) + operands[1]));
@@ -2756,10 +2756,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      try
                      {
                         Coprocessor1.updateRegister(operands[0],
-                            Globals.memory.getWord(
+                            Memory.getInstance().getWord(
                             RegisterFile.getValue(operands[2]) + operands[1]));
                         Coprocessor1.updateRegister(operands[0]+1,
-                            Globals.memory.getWord(
+                            Memory.getInstance().getWord(
                             RegisterFile.getValue(operands[2]) + operands[1] + 4));
                      } 
                          catch (AddressErrorException e)
@@ -2780,7 +2780,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      int[] operands = statement.getOperands();
                      try
                      {
-                        Globals.memory.setWord(
+                        Memory.getInstance().setWord(
                             RegisterFile.getValue(operands[2]) + operands[1],
                             Coprocessor1.getValue(operands[0]));
                      } 
@@ -2804,17 +2804,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                         throw new ProcessingException(statement, "first register must be even-numbered");
                      }
                   	// IF statement added by DPS 13-July-2011.
-                     if (!Globals.memory.doublewordAligned(RegisterFile.getValue(operands[2]) + operands[1])) {
+                     if (!Memory.getInstance().doublewordAligned(RegisterFile.getValue(operands[2]) + operands[1])) {
                         throw new ProcessingException(statement,
                            new AddressErrorException("address not aligned on doubleword boundary ",
                            Exceptions.ADDRESS_EXCEPTION_STORE, RegisterFile.getValue(operands[2]) + operands[1]));
                      }
                      try
                      {
-                        Globals.memory.setWord(
+                        Memory.getInstance().setWord(
                             RegisterFile.getValue(operands[2]) + operands[1],
                             Coprocessor1.getValue(operands[0]));
-                        Globals.memory.setWord(
+                        Memory.getInstance().setWord(
                             RegisterFile.getValue(operands[2]) + operands[1] + 4,
                             Coprocessor1.getValue(operands[0]+1));
                      } 
@@ -3074,35 +3074,20 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             inst.createExampleTokenList();
          }
 
-		 HashMap maskMap = new HashMap();
-		 ArrayList matchMaps = new ArrayList();
-		 for (int i = 0; i < instructionList.size(); i++) {
-		 	Object rawInstr = instructionList.get(i);
-			if (rawInstr instanceof BasicInstruction) {
-				BasicInstruction basic = (BasicInstruction) rawInstr;
-				Integer mask = Integer.valueOf(basic.getOpcodeMask());
-				Integer match = Integer.valueOf(basic.getOpcodeMatch());
-				HashMap matchMap = (HashMap) maskMap.get(mask);
-				if (matchMap == null) {
-					matchMap = new HashMap();
-					maskMap.put(mask, matchMap);
-					matchMaps.add(new MatchMap(mask, matchMap));
-				}
-				matchMap.put(match, basic);
-			}
-		 }
-		 Collections.sort(matchMaps);
-		 this.opcodeMatchMaps = matchMaps;
+		 this.decodeTable = new DecodeTable(instructionList);
       }
 
+	/**
+	 * Find the basic instruction that a binary machine instruction encodes.  Used to
+	 * decode instructions that were not assembled from source, such as those written by
+	 * self-modifying code or loaded from a dump.
+	 *
+	 * @param binaryInstr 32-bit binary machine instruction.
+	 * @return the matching BasicInstruction, or null if there is none.
+	 * @see DecodeTable
+	 */
 	public BasicInstruction findByBinaryCode(int binaryInstr) {
-		ArrayList matchMaps = this.opcodeMatchMaps;
-		for (int i = 0; i < matchMaps.size(); i++) {
-			MatchMap map = (MatchMap) matchMaps.get(i);
-			BasicInstruction ret = map.find(binaryInstr);
-			if (ret != null) return ret;
-		}
-		return null;
+		return this.decodeTable.find(binaryInstr);
 	}
    	
     /*  METHOD TO ADD PSEUDO-INSTRUCTIONS
@@ -3262,7 +3247,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 // ProgramStatement.java, buildBasicStatementFromBasicInstruction() method near
    	 // the bottom (currently line 194, heavily commented).
    	 
-       private void processBranch(int displacement) {
+       static void processBranch(int displacement) {
          if (Globals.getSettings().getDelayedBranchingEnabled()) {
             // Register the branch target address (absolute byte address).
             DelayedBranch.register(RegisterFile.getProgramCounter() + (displacement << 2));
@@ -3285,7 +3270,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 * Handles delayed branching if that setting is enabled.
    	 */
    	 
-       private void processJump(int targetAddress) {
+       static void processJump(int targetAddress) {
          if (Globals.getSettings().getDelayedBranchingEnabled()) {
             DelayedBranch.register(targetAddress);
          } 
@@ -3306,45 +3291,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 * The parameter is register number to receive the return address.
    	 */
    	 
-       private void processReturnAddress(int register) {
+       static void processReturnAddress(int register) {
          RegisterFile.updateRegister(register, RegisterFile.getProgramCounter() +
                  ((Globals.getSettings().getDelayedBranchingEnabled()) ? 
             	  Instruction.INSTRUCTION_LENGTH : 0) );	 
       }
 
-	  private static class MatchMap implements Comparable {
-	  	private int mask;
-		private int maskLength; // number of 1 bits in mask
-		private HashMap matchMap;
-
-		public MatchMap(int mask, HashMap matchMap) {
-			this.mask = mask;
-			this.matchMap = matchMap;
-
-			int k = 0;
-			int n = mask;
-			while (n != 0) {
-				k++;
-				n &= n - 1;
-			}
-			this.maskLength = k;
-		}
-
-		public boolean equals(Object o) {
-			return o instanceof MatchMap && mask == ((MatchMap) o).mask;
-		}
-
-		public int compareTo(Object other) {
-			MatchMap o = (MatchMap) other;
-			int d = o.maskLength - this.maskLength;
-			if (d == 0) d = this.mask - o.mask;
-			return d;
-		}
-
-		public BasicInstruction find(int instr) {
-			int match = Integer.valueOf(instr & mask);
-			return (BasicInstruction) matchMap.get(match);
-		}
-	}
    }
 
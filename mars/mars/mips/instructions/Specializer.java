@@ -0,0 +1,1084 @@
+   package mars.mips.instructions;
+   import mars.*;
+   import mars.simulator.*;
+   import mars.mips.hardware.*;
+   import mars.util.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Builds a StatementExecutor for a basic statement of one of the integer R, I or J
+ * format instructions: arithmetic, logical, shift, set, conditional move, HI/LO,
+ * load and store of bytes, halves and words, branch and jump.  Each executor class
+ * covers a single instruction and keeps what it needs from the statement's operands
+ * in final fields, computed as that instruction's SimulationCode computes them on 
+ * every execution.
+ * <p>
+ * Statements of other instructions -- coprocessor 0 and 1, traps, syscall, break,
+ * eret, and the linked and unaligned loads and stores -- get no executor, and are
+ * simulated through their SimulationCode as before.
+ *
+ * @see StatementExecutor
+ */
+
+    public class Specializer {
+   
+       private Specializer() {
+      }
+   
+   	/**
+   	 * Build the executor for the given statement.
+   	 *
+   	 * @param statement a basic statement, as stored in the text segment.
+   	 * @return an executor that simulates it, or null if its instruction has no 
+   	 * specialized form (or statement is null).
+   	 */
+       public static StatementExecutor specialize(ProgramStatement statement) {
+         if (statement == null || !(statement.getInstruction() instanceof BasicInstruction)) {
+            return null;
+         }
+         int[] operands = statement.getOperands();
+         switch (statement.getInstruction().getName()) {
+            case "nop":
+               return new NopExec();
+            case "add":
+               return new AddExec(statement, operands[0], operands[1], operands[2]);
+            case "sub":
+               return new SubExec(statement, operands[0], operands[1], operands[2]);
+            case "addi":
+               return new AddiExec(statement, operands[0], operands[1], operands[2] << 16 >> 16);
+            case "addu":
+               return new AdduExec(operands[0], operands[1], operands[2]);
+            case "subu":
+               return new SubuExec(operands[0], operands[1], operands[2]);
+            case "addiu":
+               return new AddiuExec(operands[0], operands[1], operands[2] << 16 >> 16);
+            case "mult":
+               return new MultExec(operands[0], operands[1], false);
+            case "multu":
+               return new MultExec(operands[0], operands[1], true);
+            case "mul":
+               return new MulExec(operands[0], operands[1], operands[2]);
+            case "madd":
+               return new MultiplyAccumulateExec(operands[0], operands[1], false, false);
+            case "maddu":
+               return new MultiplyAccumulateExec(operands[0], operands[1], true, false);
+            case "msub":
+               return new MultiplyAccumulateExec(operands[0], operands[1], false, true);
+            case "msubu":
+               return new MultiplyAccumulateExec(operands[0], operands[1], true, true);
+            case "div":
+               return new DivExec(operands[0], operands[1]);
+            case "divu":
+               return new DivuExec(operands[0], operands[1]);
+            case "mfhi":
+               return new MoveExec(operands[0], 33);
+            case "mflo":
+               return new MoveExec(operands[0], 34);
+            case "mthi":
+               return new MoveExec(33, operands[0]);
+            case "mtlo":
+               return new MoveExec(34, operands[0]);
+            case "and":
+               return new AndExec(operands[0], operands[1], operands[2]);
+            case "or":
+               return new OrExec(operands[0], operands[1], operands[2]);
+            case "andi":
+               return new AndiExec(operands[0], operands[1], operands[2] & 0x0000FFFF);
+            case "ori":
+               return new OriExec(operands[0], operands[1], operands[2] & 0x0000FFFF);
+            case "nor":
+               return new NorExec(operands[0], operands[1], operands[2]);
+            case "xor":
+               return new XorExec(operands[0], operands[1], operands[2]);
+            case "xori":
+               return new XoriExec(operands[0], operands[1], operands[2] & 0x0000FFFF);
+            case "sll":
+               return new SllExec(operands[0], operands[1], operands[2]);
+            case "srl":
+               return new SrlExec(operands[0], operands[1], operands[2]);
+            case "sra":
+               return new SraExec(operands[0], operands[1], operands[2]);
+            case "sllv":
+               return new SllvExec(operands[0], operands[1], operands[2]);
+            case "srlv":
+               return new SrlvExec(operands[0], operands[1], operands[2]);
+            case "srav":
+               return new SravExec(operands[0], operands[1], operands[2]);
+            case "lui":
+               return new LuiExec(operands[0], operands[1] << 16);
+            case "slt":
+               return new SltExec(operands[0], operands[1], operands[2]);
+            case "sltu":
+               return new SltuExec(operands[0], operands[1], operands[2]);
+            case "slti":
+               return new SltiExec(operands[0], operands[1], operands[2] << 16 >> 16);
+            case "sltiu":
+               return new SltiuExec(operands[0], operands[1], operands[2] << 16 >> 16);
+            case "movn":
+               return new MovnExec(operands[0], operands[1], operands[2]);
+            case "movz":
+               return new MovzExec(operands[0], operands[1], operands[2]);
+            case "clo":
+               return new CloExec(operands[0], operands[1]);
+            case "clz":
+               return new ClzExec(operands[0], operands[1]);
+            // lw and sw use the offset as given; the other loads and stores sign-extend it.
+            case "lw":
+               return new LwExec(statement, operands[0], operands[1], operands[2]);
+            case "sw":
+               return new SwExec(statement, operands[0], operands[1], operands[2]);
+            case "lb":
+               return new LbExec(statement, operands[0], operands[1] << 16 >> 16, operands[2]);
+            case "lbu":
+               return new LbuExec(statement, operands[0], operands[1] << 16 >> 16, operands[2]);
+            case "lh":
+               return new LhExec(statement, operands[0], operands[1] << 16 >> 16, operands[2]);
+            case "lhu":
+               return new LhuExec(statement, operands[0], operands[1] << 16 >> 16, operands[2]);
+            case "sb":
+               return new SbExec(statement, operands[0], operands[1] << 16 >> 16, operands[2]);
+            case "sh":
+               return new ShExec(statement, operands[0], operands[1] << 16 >> 16, operands[2]);
+            case "beq":
+               return new BeqExec(operands[0], operands[1], operands[2]);
+            case "bne":
+               return new BneExec(operands[0], operands[1], operands[2]);
+            case "bgez":
+               return new BgezExec(operands[0], operands[1]);
+            case "bgtz":
+               return new BgtzExec(operands[0], operands[1]);
+            case "blez":
+               return new BlezExec(operands[0], operands[1]);
+            case "bltz":
+               return new BltzExec(operands[0], operands[1]);
+            case "bgezal":
+               return new BranchAndLinkExec(operands[0], operands[1], false);
+            case "bltzal":
+               return new BranchAndLinkExec(operands[0], operands[1], true);
+            case "j":
+               return new JExec(operands[0] << 2);
+            case "jal":
+               return new JalExec(operands[0] << 2);
+            case "jr":
+               return new JrExec(operands[0]);
+            case "jalr": // "jalr $t1" links to $ra, "jalr $t1,$t2" to $t1
+               return (statement.getInstruction().getExampleFormat().indexOf(',') < 0) 
+                  ? new JalrExec(31, operands[0]) 
+                  : new JalrExec(operands[0], operands[1]);
+            default:
+               return null;
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////////
+      // Arithmetic and logical.  Register 33 is HI and 34 is LO.
+   
+       private static final class NopExec implements StatementExecutor {
+          public void execute() {
+         }
+      }
+   
+       private static final class AddExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rd, rs, rt;
+      
+          AddExec(ProgramStatement statement, int rd, int rs, int rt) {
+            this.statement = statement;
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() throws ProcessingException {
+            int add1 = RegisterFile.getValue(rs);
+            int add2 = RegisterFile.getValue(rt);
+            int sum = add1 + add2;
+            // overflow on A+B detected when A and B have same sign and A+B has other sign.
+            if ((add1 >= 0 && add2 >= 0 && sum < 0) || (add1 < 0 && add2 < 0 && sum >= 0)) {
+               throw new ProcessingException(statement,
+                  "arithmetic overflow", Exceptions.ARITHMETIC_OVERFLOW_EXCEPTION);
+            }
+            RegisterFile.updateRegister(rd, sum);
+         }
+      }
+   
+       private static final class SubExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rd, rs, rt;
+      
+          SubExec(ProgramStatement statement, int rd, int rs, int rt) {
+            this.statement = statement;
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() throws ProcessingException {
+            int sub1 = RegisterFile.getValue(rs);
+            int sub2 = RegisterFile.getValue(rt);
+            int dif = sub1 - sub2;
+            // overflow on A-B detected when A and B have opposite signs and A-B has B's sign
+            if ((sub1 >= 0 && sub2 < 0 && dif < 0) || (sub1 < 0 && sub2 >= 0 && dif >= 0)) {
+               throw new ProcessingException(statement,
+                  "arithmetic overflow", Exceptions.ARITHMETIC_OVERFLOW_EXCEPTION);
+            }
+            RegisterFile.updateRegister(rd, dif);
+         }
+      }
+   
+       private static final class AddiExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, rs, imm;
+      
+          AddiExec(ProgramStatement statement, int rt, int rs, int imm) {
+            this.statement = statement;
+            this.rt = rt;
+            this.rs = rs;
+            this.imm = imm;
+         }
+      
+          public void execute() throws ProcessingException {
+            int add1 = RegisterFile.getValue(rs);
+            int sum = add1 + imm;
+            if ((add1 >= 0 && imm >= 0 && sum < 0) || (add1 < 0 && imm < 0 && sum >= 0)) {
+               throw new ProcessingException(statement,
+                  "arithmetic overflow", Exceptions.ARITHMETIC_OVERFLOW_EXCEPTION);
+            }
+            RegisterFile.updateRegister(rt, sum);
+         }
+      }
+   
+       private static final class AdduExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          AdduExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rs) + RegisterFile.getValue(rt));
+         }
+      }
+   
+       private static final class SubuExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          SubuExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rs) - RegisterFile.getValue(rt));
+         }
+      }
+   
+       private static final class AddiuExec implements StatementExecutor {
+         private final int rt, rs, imm;
+      
+          AddiuExec(int rt, int rs, int imm) {
+            this.rt = rt;
+            this.rs = rs;
+            this.imm = imm;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rt, RegisterFile.getValue(rs) + imm);
+         }
+      }
+   
+       private static final class MultExec implements StatementExecutor {
+         private final int rs, rt;
+         private final boolean unsigned;
+      
+          MultExec(int rs, int rt, boolean unsigned) {
+            this.rs = rs;
+            this.rt = rt;
+            this.unsigned = unsigned;
+         }
+      
+          public void execute() {
+            long product = unsigned 
+               ? (RegisterFile.getValue(rs) & 0xFFFFFFFFL) * (RegisterFile.getValue(rt) & 0xFFFFFFFFL)
+               : (long) RegisterFile.getValue(rs) * (long) RegisterFile.getValue(rt);
+            RegisterFile.updateRegister(33, (int) (product >> 32));
+            RegisterFile.updateRegister(34, (int) product);
+         }
+      }
+   
+       private static final class MulExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          MulExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            long product = (long) RegisterFile.getValue(rs) * (long) RegisterFile.getValue(rt);
+            RegisterFile.updateRegister(rd, (int) product);
+            RegisterFile.updateRegister(33, (int) (product >> 32));
+            RegisterFile.updateRegister(34, (int) product);
+         }
+      }
+   
+      // madd, maddu, msub and msubu
+       private static final class MultiplyAccumulateExec implements StatementExecutor {
+         private final int rs, rt;
+         private final boolean unsigned, subtract;
+      
+          MultiplyAccumulateExec(int rs, int rt, boolean unsigned, boolean subtract) {
+            this.rs = rs;
+            this.rt = rt;
+            this.unsigned = unsigned;
+            this.subtract = subtract;
+         }
+      
+          public void execute() {
+            long product = unsigned 
+               ? (RegisterFile.getValue(rs) & 0xFFFFFFFFL) * (RegisterFile.getValue(rt) & 0xFFFFFFFFL)
+               : (long) RegisterFile.getValue(rs) * (long) RegisterFile.getValue(rt);
+            long contentsHiLo = Binary.twoIntsToLong(RegisterFile.getValue(33), RegisterFile.getValue(34));
+            long result = subtract ? contentsHiLo - product : contentsHiLo + product;
+            RegisterFile.updateRegister(33, Binary.highOrderLongToInt(result));
+            RegisterFile.updateRegister(34, Binary.lowOrderLongToInt(result));
+         }
+      }
+   
+       private static final class DivExec implements StatementExecutor {
+         private final int rs, rt;
+      
+          DivExec(int rs, int rt) {
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            int divisor = RegisterFile.getValue(rt);
+            if (divisor == 0) {
+               // no exceptions and undefined results for zero div
+               return;
+            }
+            int dividend = RegisterFile.getValue(rs);
+            RegisterFile.updateRegister(33, dividend % divisor);
+            RegisterFile.updateRegister(34, dividend / divisor);
+         }
+      }
+   
+       private static final class DivuExec implements StatementExecutor {
+         private final int rs, rt;
+      
+          DivuExec(int rs, int rt) {
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            int divisor = RegisterFile.getValue(rt);
+            if (divisor == 0) {
+               // no exceptions and undefined results for zero divide
+               return;
+            }
+            int dividend = RegisterFile.getValue(rs);
+            RegisterFile.updateRegister(33, Integer.remainderUnsigned(dividend, divisor));
+            RegisterFile.updateRegister(34, Integer.divideUnsigned(dividend, divisor));
+         }
+      }
+   
+      // mfhi, mflo, mthi and mtlo
+       private static final class MoveExec implements StatementExecutor {
+         private final int to, from;
+      
+          MoveExec(int to, int from) {
+            this.to = to;
+            this.from = from;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(to, RegisterFile.getValue(from));
+         }
+      }
+   
+       private static final class AndExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          AndExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rs) & RegisterFile.getValue(rt));
+         }
+      }
+   
+       private static final class OrExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          OrExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rs) | RegisterFile.getValue(rt));
+         }
+      }
+   
+       private static final class NorExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          NorExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, ~(RegisterFile.getValue(rs) | RegisterFile.getValue(rt)));
+         }
+      }
+   
+       private static final class XorExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          XorExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rs) ^ RegisterFile.getValue(rt));
+         }
+      }
+   
+       private static final class AndiExec implements StatementExecutor {
+         private final int rt, rs, imm;
+      
+          AndiExec(int rt, int rs, int imm) {
+            this.rt = rt;
+            this.rs = rs;
+            this.imm = imm;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rt, RegisterFile.getValue(rs) & imm);
+         }
+      }
+   
+       private static final class OriExec implements StatementExecutor {
+         private final int rt, rs, imm;
+      
+          OriExec(int rt, int rs, int imm) {
+            this.rt = rt;
+            this.rs = rs;
+            this.imm = imm;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rt, RegisterFile.getValue(rs) | imm);
+         }
+      }
+   
+       private static final class XoriExec implements StatementExecutor {
+         private final int rt, rs, imm;
+      
+          XoriExec(int rt, int rs, int imm) {
+            this.rt = rt;
+            this.rs = rs;
+            this.imm = imm;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rt, RegisterFile.getValue(rs) ^ imm);
+         }
+      }
+   
+       private static final class LuiExec implements StatementExecutor {
+         private final int rt, value;
+      
+          LuiExec(int rt, int value) {
+            this.rt = rt;
+            this.value = value;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rt, value);
+         }
+      }
+   
+       private static final class CloExec implements StatementExecutor {
+         private final int rd, rs;
+      
+          CloExec(int rd, int rs) {
+            this.rd = rd;
+            this.rs = rs;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, Integer.numberOfLeadingZeros(~RegisterFile.getValue(rs)));
+         }
+      }
+   
+       private static final class ClzExec implements StatementExecutor {
+         private final int rd, rs;
+      
+          ClzExec(int rd, int rs) {
+            this.rd = rd;
+            this.rs = rs;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, Integer.numberOfLeadingZeros(RegisterFile.getValue(rs)));
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////////
+      // Shifts.  Variable shift amounts use the low 5 bits of the register.
+   
+       private static final class SllExec implements StatementExecutor {
+         private final int rd, rt, shamt;
+      
+          SllExec(int rd, int rt, int shamt) {
+            this.rd = rd;
+            this.rt = rt;
+            this.shamt = shamt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rt) << shamt);
+         }
+      }
+   
+       private static final class SrlExec implements StatementExecutor {
+         private final int rd, rt, shamt;
+      
+          SrlExec(int rd, int rt, int shamt) {
+            this.rd = rd;
+            this.rt = rt;
+            this.shamt = shamt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rt) >>> shamt);
+         }
+      }
+   
+       private static final class SraExec implements StatementExecutor {
+         private final int rd, rt, shamt;
+      
+          SraExec(int rd, int rt, int shamt) {
+            this.rd = rd;
+            this.rt = rt;
+            this.shamt = shamt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rt) >> shamt);
+         }
+      }
+   
+       private static final class SllvExec implements StatementExecutor {
+         private final int rd, rt, rs;
+      
+          SllvExec(int rd, int rt, int rs) {
+            this.rd = rd;
+            this.rt = rt;
+            this.rs = rs;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rt) << (RegisterFile.getValue(rs) & 0x0000001F));
+         }
+      }
+   
+       private static final class SrlvExec implements StatementExecutor {
+         private final int rd, rt, rs;
+      
+          SrlvExec(int rd, int rt, int rs) {
+            this.rd = rd;
+            this.rt = rt;
+            this.rs = rs;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rt) >>> (RegisterFile.getValue(rs) & 0x0000001F));
+         }
+      }
+   
+       private static final class SravExec implements StatementExecutor {
+         private final int rd, rt, rs;
+      
+          SravExec(int rd, int rt, int rs) {
+            this.rd = rd;
+            this.rt = rt;
+            this.rs = rs;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, RegisterFile.getValue(rt) >> (RegisterFile.getValue(rs) & 0x0000001F));
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////////
+      // Set and conditional move.
+   
+       private static final class SltExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          SltExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, (RegisterFile.getValue(rs) < RegisterFile.getValue(rt)) ? 1 : 0);
+         }
+      }
+   
+       private static final class SltuExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          SltuExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rd, 
+               (Integer.compareUnsigned(RegisterFile.getValue(rs), RegisterFile.getValue(rt)) < 0) ? 1 : 0);
+         }
+      }
+   
+       private static final class SltiExec implements StatementExecutor {
+         private final int rt, rs, imm;
+      
+          SltiExec(int rt, int rs, int imm) {
+            this.rt = rt;
+            this.rs = rs;
+            this.imm = imm;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rt, (RegisterFile.getValue(rs) < imm) ? 1 : 0);
+         }
+      }
+   
+       private static final class SltiuExec implements StatementExecutor {
+         private final int rt, rs, imm;
+      
+          SltiuExec(int rt, int rs, int imm) {
+            this.rt = rt;
+            this.rs = rs;
+            this.imm = imm;
+         }
+      
+          public void execute() {
+            RegisterFile.updateRegister(rt, (Integer.compareUnsigned(RegisterFile.getValue(rs), imm) < 0) ? 1 : 0);
+         }
+      }
+   
+       private static final class MovnExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          MovnExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rt) != 0) {
+               RegisterFile.updateRegister(rd, RegisterFile.getValue(rs));
+            }
+         }
+      }
+   
+       private static final class MovzExec implements StatementExecutor {
+         private final int rd, rs, rt;
+      
+          MovzExec(int rd, int rs, int rt) {
+            this.rd = rd;
+            this.rs = rs;
+            this.rt = rt;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rt) == 0) {
+               RegisterFile.updateRegister(rd, RegisterFile.getValue(rs));
+            }
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////////
+      // Loads and stores.  Address errors are reported against the statement.
+   
+       private static final class LwExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          LwExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               RegisterFile.updateRegister(rt, Memory.getInstance().getWord(RegisterFile.getValue(base) + offset));
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+       private static final class SwExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          SwExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               Memory.getInstance().setWord(RegisterFile.getValue(base) + offset, RegisterFile.getValue(rt));
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+       private static final class LbExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          LbExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               RegisterFile.updateRegister(rt, Memory.getInstance().getByte(RegisterFile.getValue(base) + offset) << 24 >> 24);
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+       private static final class LbuExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          LbuExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               RegisterFile.updateRegister(rt, Memory.getInstance().getByte(RegisterFile.getValue(base) + offset) & 0x000000ff);
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+       private static final class LhExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          LhExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               RegisterFile.updateRegister(rt, Memory.getInstance().getHalf(RegisterFile.getValue(base) + offset) << 16 >> 16);
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+       private static final class LhuExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          LhuExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               RegisterFile.updateRegister(rt, Memory.getInstance().getHalf(RegisterFile.getValue(base) + offset) & 0x0000ffff);
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+       private static final class SbExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          SbExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               Memory.getInstance().setByte(RegisterFile.getValue(base) + offset, RegisterFile.getValue(rt) & 0x000000ff);
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+       private static final class ShExec implements StatementExecutor {
+         private final ProgramStatement statement;
+         private final int rt, offset, base;
+      
+          ShExec(ProgramStatement statement, int rt, int offset, int base) {
+            this.statement = statement;
+            this.rt = rt;
+            this.offset = offset;
+            this.base = base;
+         }
+      
+          public void execute() throws ProcessingException {
+            try {
+               Memory.getInstance().setHalf(RegisterFile.getValue(base) + offset, RegisterFile.getValue(rt) & 0x0000ffff);
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(statement, e);
+               }
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////////
+      // Branches and jumps, through InstructionSet's handling of delayed branching.
+   
+       private static final class BeqExec implements StatementExecutor {
+         private final int rs, rt, displacement;
+      
+          BeqExec(int rs, int rt, int displacement) {
+            this.rs = rs;
+            this.rt = rt;
+            this.displacement = displacement;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rs) == RegisterFile.getValue(rt)) {
+               InstructionSet.processBranch(displacement);
+            }
+         }
+      }
+   
+       private static final class BneExec implements StatementExecutor {
+         private final int rs, rt, displacement;
+      
+          BneExec(int rs, int rt, int displacement) {
+            this.rs = rs;
+            this.rt = rt;
+            this.displacement = displacement;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rs) != RegisterFile.getValue(rt)) {
+               InstructionSet.processBranch(displacement);
+            }
+         }
+      }
+   
+       private static final class BgezExec implements StatementExecutor {
+         private final int rs, displacement;
+      
+          BgezExec(int rs, int displacement) {
+            this.rs = rs;
+            this.displacement = displacement;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rs) >= 0) {
+               InstructionSet.processBranch(displacement);
+            }
+         }
+      }
+   
+       private static final class BgtzExec implements StatementExecutor {
+         private final int rs, displacement;
+      
+          BgtzExec(int rs, int displacement) {
+            this.rs = rs;
+            this.displacement = displacement;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rs) > 0) {
+               InstructionSet.processBranch(displacement);
+            }
+         }
+      }
+   
+       private static final class BlezExec implements StatementExecutor {
+         private final int rs, displacement;
+      
+          BlezExec(int rs, int displacement) {
+            this.rs = rs;
+            this.displacement = displacement;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rs) <= 0) {
+               InstructionSet.processBranch(displacement);
+            }
+         }
+      }
+   
+       private static final class BltzExec implements StatementExecutor {
+         private final int rs, displacement;
+      
+          BltzExec(int rs, int displacement) {
+            this.rs = rs;
+            this.displacement = displacement;
+         }
+      
+          public void execute() {
+            if (RegisterFile.getValue(rs) < 0) {
+               InstructionSet.processBranch(displacement);
+            }
+         }
+      }
+   
+      // bgezal and bltzal
+       private static final class BranchAndLinkExec implements StatementExecutor {
+         private final int rs, displacement;
+         private final boolean ifNegative;
+      
+          BranchAndLinkExec(int rs, int displacement, boolean ifNegative) {
+            this.rs = rs;
+            this.displacement = displacement;
+            this.ifNegative = ifNegative;
+         }
+      
+          public void execute() {
+            if ((RegisterFile.getValue(rs) < 0) == ifNegative) {
+               InstructionSet.processReturnAddress(31);
+               InstructionSet.processBranch(displacement);
+            }
+         }
+      }
+   
+       private static final class JExec implements StatementExecutor {
+         private final int target;
+      
+          JExec(int target) {
+            this.target = target;
+         }
+      
+          public void execute() {
+            InstructionSet.processJump((RegisterFile.getProgramCounter() & 0xF0000000) | target);
+         }
+      }
+   
+       private static final class JalExec implements StatementExecutor {
+         private final int target;
+      
+          JalExec(int target) {
+            this.target = target;
+         }
+      
+          public void execute() {
+            InstructionSet.processReturnAddress(31);
+            InstructionSet.processJump((RegisterFile.getProgramCounter() & 0xF0000000) | target);
+         }
+      }
+   
+       private static final class JrExec implements StatementExecutor {
+         private final int rs;
+      
+          JrExec(int rs) {
+            this.rs = rs;
+         }
+      
+          public void execute() {
+            InstructionSet.processJump(RegisterFile.getValue(rs));
+         }
+      }
+   
+       private static final class JalrExec implements StatementExecutor {
+         private final int rd, rs;
+      
+          JalrExec(int rd, int rs) {
+            this.rd = rd;
+            this.rs = rs;
+         }
+      
+          public void execute() {
+            InstructionSet.processReturnAddress(rd);
+            InstructionSet.processJump(RegisterFile.getValue(rs));
+         }
+      }
+   }
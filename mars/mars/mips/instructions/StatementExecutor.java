@@ -0,0 +1,52 @@
+   package mars.mips.instructions;
+   import mars.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Executes one particular basic statement.  Where SimulationCode is shared by every 
+ * statement of an instruction and finds the operands in the statement each time it
+ * runs, a statement executor is built for a single statement and holds its register
+ * numbers and immediate values, already extended as the instruction requires, in
+ * final fields.  Executing it has exactly the effect of calling the instruction's
+ * simulate() method with that statement.
+ *
+ * @see Specializer
+ * @see SimulationCode
+ */
+
+    public interface StatementExecutor {
+   
+   	/**
+   	 * Simulate execution of the statement this executor was built for.
+   	 *
+   	 * @throws ProcessingException as the instruction's SimulationCode would throw it.
+   	 */
+       public void execute() throws ProcessingException;
+   }
@@ -81,7 +81,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      continue;
                   }
                   Syscall syscall = (Syscall) clas.newInstance();
-                  if (findSyscall(syscall.getNumber()) == null) {
+                  // A negative number means none yet: the service is available only once
+                  // it is numbered in the config file.
+                  if (syscall.getNumber() < 0 || findSyscall(syscall.getNumber()) == null) {
                      syscallList.add(syscall);
                   } 
                   else {
@@ -122,6 +124,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      "' in config file does not match any name in syscall list");
                System.exit(0);
             }
+         }
+         	// Services still without a number were not asked for, so are dropped.
+         for (int i = syscallList.size() - 1; i >= 0; i--) {
+            if (((Syscall) syscallList.get(i)).getNumber() < 0) {
+               syscallList.remove(i);
+            }
          }
          	// Wait until end to check for duplicate numbers.  To do so earlier
          	// would disallow for instance the exchange of numbers between two
@@ -48,7 +48,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 
    /**
     * Constructor is provided so subclass may initialize instance variables.
-    * @param number default assigned service number
+    * @param number default assigned service number, or -1 if there is none.  A service
+    * without one is left out unless numbered in the configuration file.
     * @param name service name which may be used for reference independent of number
     */
        public AbstractSyscall(int number, String name) {
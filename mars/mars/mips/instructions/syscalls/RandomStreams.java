@@ -1,5 +1,8 @@
    package mars.mips.instructions.syscalls;
 	import java.util.HashMap;
+	import java.util.Random;
+	import java.io.*;
+	import mars.MachineContext;
 
 /*
 Copyright (c) 2003-2008,  Pete Sanderson and Kenneth Vollmar
@@ -31,13 +34,53 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 
 /** 
- * This small class serves only to hold a static HashMap for storing
+ * This small class serves only to find the HashMap for storing
  * random number generators for use by all the random number generator
- * syscalls.
+ * syscalls, and to save and restore them for checkpoints.  Each 
+ * MachineContext has its own.
  */
  
     public class RandomStreams {
-      /** Collection of pseudorandom number streams available for use in Rand-type syscalls.
-       * The streams are by default not seeded. */
-		 static final HashMap randomStreams = new HashMap();
+      /** Collection of pseudorandom number streams available for use in Rand-type syscalls,
+       * those of the current MachineContext.  The streams are by default not seeded. 
+		 * @return HashMap of Random objects by stream number */
+		 static HashMap<Integer, Random> randomStreams() {
+		    return MachineContext.current().getRandomStreams();
+		 }
+		 
+      /** Save the state of the current MachineContext's streams, so that they can be put
+       * back to produce the same numbers again.  Used for checkpoints.
+		 * @return the streams in serialized form */
+		 public static byte[] saveStreams() {
+		    try {
+		       ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		       ObjectOutputStream out = new ObjectOutputStream(bytes);
+		       out.writeObject(randomStreams());
+		       out.close();
+		       return bytes.toByteArray();
+		    } 
+		        catch (IOException e) { // does not occur, Random is serializable
+		          return null;
+		       }
+		 }
+		 
+      /** Replace the current MachineContext's streams by those saved earlier.
+		 * @param state streams as returned by saveStreams(); if null, nothing is done */
+		 public static void restoreStreams(byte[] state) {
+		    if (state == null) {
+		       return;
+		    }
+		    try {
+		       ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state));
+		       @SuppressWarnings("unchecked") // written by saveStreams from the same type
+		       HashMap<Integer, Random> saved = (HashMap<Integer, Random>) in.readObject();
+		       HashMap<Integer, Random> streams = randomStreams();
+		       streams.clear();
+		       streams.putAll(saved);
+		    } 
+		        catch (IOException e) { // does not occur, state was written by saveStreams
+		       } 
+		        catch (ClassNotFoundException e) {
+		       }
+		 }
    }
\ No newline at end of file
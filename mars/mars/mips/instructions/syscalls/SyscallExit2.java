@@ -52,8 +52,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    * return value is ignored.
    */
        public void simulate(ProgramStatement statement) throws ProcessingException {
-         if (Globals.getGui()==null) {
-            Globals.exitCode = RegisterFile.getValue(4);
+         if (!MachineContext.current().usesGui()) {
+            MachineContext.current().setExitCode(RegisterFile.getValue(4));
          }
          throw new ProcessingException(); // empty error list
       }
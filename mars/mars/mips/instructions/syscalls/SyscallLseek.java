@@ -0,0 +1,61 @@
+   package mars.mips.instructions.syscalls;
+   import mars.util.*;
+   import mars.mips.hardware.*;
+   import mars.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+
+/** 
+ * Service to set the position in the file given by descriptor $a0 from which it is next
+ * read or written.  The new position is the offset in $a1 added to the start of the file,
+ * the current position or the end of the file when $a2 is 0, 1 or 2 respectively.
+ */
+ 
+    public class SyscallLseek extends AbstractSyscall {
+   /**
+    * Build an instance of the Lseek syscall.  Default service number
+    * is 62 and name is "Lseek".
+    */
+       public SyscallLseek() {
+         super(62, "Lseek");
+      }
+      
+   /**
+   * Performs syscall function to set the position of the file descriptor given in $a0.  
+   * The new position from the start of the file is returned in $v0, or -1 on error.
+   */
+       public void simulate(ProgramStatement statement) throws ProcessingException {
+         long position = SystemIO.seekFile(
+                                 RegisterFile.getValue(4), // fd
+                                 RegisterFile.getValue(5), // offset
+                                 RegisterFile.getValue(6)); // whence
+         RegisterFile.updateRegister(2, (int) position); // set returned value in register
+      }
+   }
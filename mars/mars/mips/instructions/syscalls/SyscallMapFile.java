@@ -0,0 +1,84 @@
+   package mars.mips.instructions.syscalls;
+   import mars.util.*;
+   import mars.mips.hardware.*;
+   import mars.*;
+   import mars.simulator.*;
+   import java.nio.ByteBuffer;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+
+/** 
+ * Service to map the file named by the string at address $a0 into memory, for reading.
+ * It is placed in newly allocated heap storage, whose pages take their contents from
+ * the file only when first used.  Writing to the storage does not change the file.
+ */
+ 
+    public class SyscallMapFile extends AbstractSyscall {
+   /**
+    * Build an instance of the Map File syscall.  Default service number
+    * is 63 and name is "MapFile".
+    */
+       public SyscallMapFile() {
+         super(63, "MapFile");
+      }
+      
+   /**
+   * Performs syscall function to map the file named by $a0.  The address of its first
+   * byte is returned in $v0 and its length in $v1.  On error $v0 is -1.
+   */
+       public void simulate(ProgramStatement statement) throws ProcessingException {
+         String filename;
+         try
+         {
+            filename = Memory.getInstance().getNullTerminatedString(RegisterFile.getValue(4));
+         } 
+             catch (AddressErrorException e)
+            {
+               throw new ProcessingException(statement, e);
+            }
+         ByteBuffer bytes = SystemIO.mapFile(filename);
+         if (bytes == null)
+         {
+            RegisterFile.updateRegister(2, -1); // SystemIO.getFileErrorMessage() has the reason
+            return;
+         }
+         int address;
+         try {
+            address = Memory.getInstance().mapBytesIntoHeap(bytes);
+         } 
+             catch (IllegalArgumentException iae) {
+               throw new ProcessingException(statement,
+                                       iae.getMessage()+" (syscall "+this.getNumber()+")",
+                                       Exceptions.SYSCALL_EXCEPTION);
+            }
+         RegisterFile.updateRegister(2, address);
+         RegisterFile.updateRegister(3, bytes.limit());
+      }
+   }
@@ -71,19 +71,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
           // NO MODES IMPLEMENTED  -- MODE IS IGNORED
           // Returns in $v0: a "file descriptor" in the range 0 to SystemIO.SYSCALL_MAXFILES-1,
           // or -1 if error
-         String filename = new String(); // = "";
+         String filename;
          int byteAddress = RegisterFile.getValue(4);
-         char ch[] = { ' '}; // Need an array to convert to String
          try
          {
-            ch[0] = (char) Globals.memory.getByte(byteAddress);
-            while (ch[0] != 0) // only uses single location ch[0]
-            {
-               filename = filename.concat(new String(ch)); // parameter to String constructor is a char[] array
-               byteAddress++;
-               ch[0] = (char) Globals.memory.getByte(
-                                        byteAddress);
-            }
+            filename = Memory.getInstance().getNullTerminatedString(byteAddress);
          } 
              catch (AddressErrorException e)
             {
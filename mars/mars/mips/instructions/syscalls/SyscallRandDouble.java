@@ -57,10 +57,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
           // Return: $f0 = the next pseudorandom, uniformly distributed double value between 0.0 and 1.0
           // from this random number generator's sequence.
          Integer index = new Integer(RegisterFile.getValue(4));
-         Random stream = (Random) RandomStreams.randomStreams.get(index);
+         Random stream = RandomStreams.randomStreams().get(index);
          if (stream == null) {
             stream = new Random(); // create a non-seeded stream
-            RandomStreams.randomStreams.put(index, stream);
+            RandomStreams.randomStreams().put(index, stream);
          } 
          try {
             Coprocessor1.setRegisterPairToDouble(0, stream.nextDouble( ));
@@ -55,10 +55,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
           // Input arguments: $a0 = index of pseudorandom number generator
           // Return: $a0 = the next pseudorandom, uniformly distributed int value from this random number generator's sequence.
           Integer index = new Integer(RegisterFile.getValue(4));
-			 Random stream = (Random) RandomStreams.randomStreams.get(index);
+			 Random stream = RandomStreams.randomStreams().get(index);
           if (stream == null) {
 			    stream = new Random(); // create a non-seeded stream
-			    RandomStreams.randomStreams.put(index, stream);
+			    RandomStreams.randomStreams().put(index, stream);
 			 } 
 			 RegisterFile.updateRegister(4, stream.nextInt() );
        }
@@ -59,10 +59,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
           // Return: $a0 = the next pseudorandom, uniformly distributed int value from this
           // random number generator's sequence.
          Integer index = new Integer(RegisterFile.getValue(4));
-         Random stream = (Random) RandomStreams.randomStreams.get(index);
+         Random stream = RandomStreams.randomStreams().get(index);
          if (stream == null) {
             stream = new Random(); // create a non-seeded stream
-            RandomStreams.randomStreams.put(index, stream);
+            RandomStreams.randomStreams().put(index, stream);
          } 
          try {
             RegisterFile.updateRegister(4, stream.nextInt( RegisterFile.getValue(5) ) );
@@ -55,14 +55,20 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    */
        public void simulate(ProgramStatement statement) throws ProcessingException {
          int byteAddress = RegisterFile.getValue(5); // destination of characters read from file
-         byte b = 0;
-         int index = 0;
-         byte myBuffer[] = new byte[RegisterFile.getValue(6)]; // specified length
-         // Call to SystemIO.xxxx.read(xxx,xxx,xxx)  returns actual length
-         int retLength = SystemIO.readFromFile(
+         int retLength = 0;
+         // Call to SystemIO.readFromFile(xxx,xxx,xxx) copies the characters into MARS
+         // memory and returns actual length
+         try
+         {
+            retLength = SystemIO.readFromFile(
                                  RegisterFile.getValue(4), // fd
-                                 myBuffer, // buffer
+                                 byteAddress, // buffer
                                  RegisterFile.getValue(6)); // length
+         } 
+             catch (AddressErrorException e)
+            {
+               throw new ProcessingException(statement, e);
+            }
          RegisterFile.updateRegister(2, retLength); // set returned value in register
 
          // Getting rid of processing exception.  It is the responsibility of the
@@ -77,18 +83,5 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                                     Exceptions.SYSCALL_EXCEPTION);
          }
 			*/                
-         // copy bytes from returned buffer into MARS memory
-         try
-         {
-            while (index < retLength)
-            {
-               Globals.memory.setByte(byteAddress++,
-                                        myBuffer[index++]);
-            }
-         } 
-             catch (AddressErrorException e)
-            {
-               throw new ProcessingException(statement, e);
-            }
       }
    }
\ No newline at end of file
@@ -36,7 +36,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 /**
  * Service to cause the MARS Java thread to sleep for (at least) the specified number of milliseconds.
  * This timing will not be precise as the Java implementation will add some overhead.
+ * If the virtual clock is enabled, it is advanced instead and there is no delay.
  *
+ * @see VirtualClock
  */
 
     public class SyscallSleep extends AbstractSyscall {
@@ -53,7 +55,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    */
        public void simulate(ProgramStatement statement) throws ProcessingException {
           // Input arguments: $a0 is the length of time to sleep in milliseconds.
+               if (VirtualClock.isEnabled()) {
+                  VirtualClock.getInstance().sleep(RegisterFile.getValue(4));
+                  return;
+               }
 
+               SystemIO.flushOutput(); // show what was printed before the pause
                try
                {
                   Thread.sleep(RegisterFile.getValue(4)); // units of milliseconds  1000 millisec = 1 sec.
@@ -0,0 +1,66 @@
+   package mars.mips.instructions.syscalls;
+   import mars.util.*;
+   import mars.mips.hardware.*;
+   import mars.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+
+/** 
+ * Service to find the length of the null-terminated string at address $a0, as a 
+ * byte-by-byte scanning loop would but in one step.  It has no default service number,
+ * so is available only when numbered in the configuration file.
+ */
+ 
+    public class SyscallStrLen extends AbstractSyscall {
+   /**
+    * Build an instance of the String Length syscall.  It has no default service
+    * number, and its name is "StrLen".
+    */
+       public SyscallStrLen() {
+         super(-1, "StrLen");
+      }
+      
+   /**
+   * Performs syscall function to find the length of the string at address $a0, not 
+   * counting its terminating null byte.  The length is returned in $v0.
+   */
+       public void simulate(ProgramStatement statement) throws ProcessingException {
+         int length;
+         try
+         {
+            length = Memory.getInstance().getStringLength(RegisterFile.getValue(4));
+         } 
+             catch (AddressErrorException e)
+            {
+               throw new ProcessingException(statement, e);
+            }
+         RegisterFile.updateRegister(2, length);
+      }
+   }
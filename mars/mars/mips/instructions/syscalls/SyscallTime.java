@@ -1,5 +1,6 @@
    package mars.mips.instructions.syscalls;
    import mars.*;
+   import mars.simulator.*;
    import mars.util.*;
 	import mars.mips.hardware.*;
 
@@ -48,10 +49,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
    /**
    * Performs syscall function to place current system time into $a0 (low order 32 bits)
-	* and $a1 (high order 32 bits).
+	* and $a1 (high order 32 bits).  If the virtual clock is enabled, this is the virtual
+	* time instead: milliseconds since the program started, reckoned from the number of
+	* instructions executed and the time slept.
    */
        public void simulate(ProgramStatement statement) throws ProcessingException {
-			long value = new java.util.Date().getTime();
+			long value = (VirtualClock.isEnabled()) 
+				? VirtualClock.getInstance().currentTimeMillis() 
+				: new java.util.Date().getTime();
          RegisterFile.updateRegister(4, Binary.lowOrderLongToInt(value)); // $a0 
 			RegisterFile.updateRegister(5, Binary.highOrderLongToInt(value)); // $a1
       }
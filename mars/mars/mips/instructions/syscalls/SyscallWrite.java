@@ -56,31 +56,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    */
        public void simulate(ProgramStatement statement) throws ProcessingException {
          int byteAddress = RegisterFile.getValue(5); // source of characters to write to file
-         byte b = 0;
-         int reqLength = RegisterFile.getValue(6); // user-requested length
-         int index = 0;
-         byte myBuffer[] = new byte[RegisterFile.getValue(6) + 1]; // specified length plus null termination
+         int reqLength = RegisterFile.getValue(6); // user-requested length.  Null bytes are included.
+         int retValue = 0;
          try
          {
-            b = (byte) Globals.memory.getByte(byteAddress);                            
-            while (index < reqLength) // Stop at requested length. Null bytes are included.
-                                 // while (index < reqLength && b != 0) // Stop at requested length OR null byte
-            {
-               myBuffer[index++] = b;
-               byteAddress++;
-               b = (byte) Globals.memory.getByte(byteAddress);
-            }
-                              
-            myBuffer[index] = 0; // Add string termination
-         } // end try
+            retValue = SystemIO.writeToFile(
+                                 RegisterFile.getValue(4), // fd
+                                 byteAddress, // buffer
+                                 reqLength); // length
+         } 
              catch (AddressErrorException e)
             {
                throw new ProcessingException(statement, e);
             }
-         int retValue = SystemIO.writeToFile(
-                                 RegisterFile.getValue(4), // fd
-                                 myBuffer, // buffer
-                                 RegisterFile.getValue(6)); // length
          RegisterFile.updateRegister(2, retValue); // set returned value in register
 
          // Getting rid of processing exception.  It is the responsibility of the
@@ -4,6 +4,7 @@
    import mars.mips.hardware.*;
    import mars.mips.instructions.*;
    import java.util.*;
+   import java.io.*;
 
 /*
 Copyright (c) 2003-2006,  Pete Sanderson and Kenneth Vollmar
@@ -53,6 +54,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final int COPROC1_CONDITION_CLEAR = 8;
       private static final int COPROC1_CONDITION_SET = 9;
       private static final int DO_NOTHING = 10;  // instruction does not write anything.
+      
+      // Or'ed into the action to mark a step taken by an instruction in the "delay slot".
+      private static final int IN_DELAY_SLOT = 0x40;
+      private static final int ACTION_MASK = IN_DELAY_SLOT - 1;
    
       // Flag to mark BackStep object as prepresenting specific situation: user manipulates
    	// memory/register value via GUI after assembling program but before running it.
@@ -67,6 +72,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// (currently max 30 instructions/second) or stepped execution, where
    	// performance is not an issue.  Its Vector implementation may result
    	// in quicker garbage collection than a pure linked list implementation.
+   	//
+   	// As it turns out, backstepping is enabled for every run in the IDE including
+   	// flat-out runs, so the stack is now a set of parallel primitive arrays (see
+   	// BackstepStack below) and each push is a handful of array stores.
    
        /**
    	  * Create a fresh BackStepper.  It is enabled, which means all
@@ -75,7 +84,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  */
        public BackStepper() {
          engaged = true;
-         backSteps = new BackstepStack(Globals.maximumBacksteps);
+         backSteps = new BackstepStack(Globals.maximumBacksteps, Globals.maximumSpilledBacksteps);
       }
    
        /**
@@ -94,6 +103,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          engaged = state;
       }
    
+      /**
+   	 * Discard all recorded steps, closing and deleting the file of spilled steps if 
+   	 * there is one.  Used when the machine state they would undo has been replaced, as
+   	 * by restoring a checkpoint, and when the program is reassembled or replaced.
+   	 */
+       public void clear() {
+         backSteps.clear();
+      }
+   
       /**
    	 * Test whether there are steps that can be undone.
    	 * @return true if there are no steps to be undone, false otherwise.
@@ -110,7 +128,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
    	// Added 25 June 2007
        public boolean inDelaySlot() {
-         return !empty() && backSteps.peek().inDelaySlot;
+         return !empty() && (backSteps.actions[backSteps.peek()] & IN_DELAY_SLOT) != 0;
       }
    	
       /**
@@ -123,53 +141,57 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 // all store their result in register pairs which results in two store operations.  
    	 // Both must be undone transparently, so we need to detect that multiple steps happen
    	 // together and carry out all of them here.  
-   	 // Use a do-while loop based on the backstep's program statement reference.
+   	 // Use a do-while loop based on the backstep's program counter.  Steps of one 
+   	 // instruction share its address, which stands for the statement there.  The
+   	 // statement itself is never needed so it is not looked up.
    	 
        public void backStep() {
          if (engaged && !backSteps.empty()) {
-            ProgramStatement statement = ((BackStep)backSteps.peek()).ps;
+            int statementPC = backSteps.pcs[backSteps.peek()];
             engaged = false; // GOTTA DO THIS SO METHOD CALL IN SWITCH WILL NOT RESULT IN NEW ACTION ON STACK!
             do {
-               BackStep step = (BackStep) backSteps.pop();
+               int step = backSteps.pop();
+               int pc = backSteps.pcs[step];
+               int param1 = backSteps.params1[step];
+               int param2 = backSteps.params2[step];
             /*
-            	System.out.println("backstep POP: action "+step.action+" pc "+mars.util.Binary.intToHexString(step.pc)+
-            	                   " source "+((step.ps==null)? "none":step.ps.getSource())+
-            							 " parm1 "+step.param1+" parm2 "+step.param2);
+            	System.out.println("backstep POP: action "+backSteps.actions[step]+" pc "+mars.util.Binary.intToHexString(pc)+
+            							 " parm1 "+param1+" parm2 "+param2);
             */
-               if (step.pc != NOT_PC_VALUE) {
-                  RegisterFile.setProgramCounter(step.pc);
+               if (pc != NOT_PC_VALUE) {
+                  RegisterFile.setProgramCounter(pc);
                }
                try {
-                  switch (step.action) {
+                  switch (backSteps.actions[step] & ACTION_MASK) {
                      case MEMORY_RESTORE_RAW_WORD : 
-                        Globals.memory.setRawWord(step.param1, step.param2);
+                        Memory.getInstance().setRawWord(param1, param2);
                         break;
                      case MEMORY_RESTORE_WORD : 
-                        Globals.memory.setWord(step.param1, step.param2);
+                        Memory.getInstance().setWord(param1, param2);
                         break;
                      case MEMORY_RESTORE_HALF :
-                        Globals.memory.setHalf(step.param1, step.param2);
+                        Memory.getInstance().setHalf(param1, param2);
                         break;
                      case MEMORY_RESTORE_BYTE :
-                        Globals.memory.setByte(step.param1, step.param2);
+                        Memory.getInstance().setByte(param1, param2);
                         break;
                      case REGISTER_RESTORE :
-                        RegisterFile.updateRegister(step.param1, step.param2);
+                        RegisterFile.updateRegister(param1, param2);
                         break;
                      case PC_RESTORE : 
-                        RegisterFile.setProgramCounter(step.param1);
+                        RegisterFile.setProgramCounter(param1);
                         break;
                      case COPROC0_REGISTER_RESTORE :
-                        Coprocessor0.updateRegister(step.param1, step.param2);
+                        Coprocessor0.updateRegister(param1, param2);
                         break;
                      case COPROC1_REGISTER_RESTORE :
-                        Coprocessor1.updateRegister(step.param1, step.param2);
+                        Coprocessor1.updateRegister(param1, param2);
                         break;
                      case COPROC1_CONDITION_CLEAR :
-                        Coprocessor1.clearConditionFlag(step.param1);
+                        Coprocessor1.clearConditionFlag(param1);
                         break;
                      case COPROC1_CONDITION_SET :
-                        Coprocessor1.setConditionFlag(step.param1);
+                        Coprocessor1.setConditionFlag(param1);
                         break;
                      case DO_NOTHING :
                         break;
@@ -180,7 +202,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      System.out.println("Internal MARS error: address exception while back-stepping.");
                      System.exit(0);
                   }
-            } while (!backSteps.empty() && statement == ((BackStep)backSteps.peek()).ps);
+            } while (!backSteps.empty() && statementPC == backSteps.pcs[backSteps.peek()]);
             engaged = true;  // RESET IT (was disabled at top of loop -- see comment)
          }
       }
@@ -194,7 +216,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        // PC incremented prior to instruction simulation, so need to adjust for that.
          return RegisterFile.getProgramCounter()-Instruction.INSTRUCTION_LENGTH;
       }
-   
+
        /**
    	  * Add a new "back step" (the undo action) to the stack. The action here
    	  * is to restore a raw memory word value (setRawWord).
@@ -324,52 +346,29 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  * @return 0
    	  */
        public int addDoNothing(int pc) {
-         if (backSteps.empty() || backSteps.peek().pc != pc) { 
-            backSteps.push(DO_NOTHING, pc);
-         }
+         backSteps.pushIfNewPC(DO_NOTHING, pc);
          return 0;
       }
-   	
-   		   	 	
-   	// Represents a "back step" (undo action) on the stack.
-       private class BackStep {
-         private int action;  // what do do MEMORY_RESTORE_WORD, etc
-         private int pc;      // program counter value when original step occurred
-         private ProgramStatement ps;   // statement whose action is being "undone" here
-         private int param1;  // first parameter required by that action
-         private int param2;  // optional second parameter required by that action
-         private boolean inDelaySlot; // true if instruction executed in "delay slot" (delayed branching enabled)
-      
-         // it is critical that BackStep object get its values by calling this method
-      	// rather than assigning to individual members, because of the technique used
-      	// to set its ps member (and possibly pc).
-          private void assign(int act, int programCounter, int parm1, int parm2) {
-            action = act;
-            pc     = programCounter;
-            try {
-            // Client does not have direct access to program statement, and rather than making all
-            // of them go through the methods below to obtain it, we will do it here.  
-            // Want the program statement but do not want observers notified.
-               ps = Globals.memory.getStatementNoNotify(programCounter);
-            } 
-                catch (Exception e) {
-                // The only situation causing this so far: user modifies memory or register
-                // contents through direct manipulation on the GUI, after assembling the program but
-                // before starting to run it (or after backstepping all the way to the start).
-                // The action will not be associated with any instruction, but will be carried out
-                // when popped.
-                  ps = null;
-                  pc = NOT_PC_VALUE; // Backstep method above will see this as flag to not set PC
-               } 
-            param1 = parm1;
-            param2 = parm2;
-            inDelaySlot = Simulator.inDelaySlot(); // ADDED 25 June 2007
-         /*				
-            System.out.println("backstep PUSH: action "+action+" pc "+mars.util.Binary.intToHexString(pc)+
-         		                   " source "+((ps==null)? "none":ps.getSource())+
-         								 " parm1 "+param1+" parm2 "+param2);
-         */
+   
+   	// Program counter to record for a step taken by the instruction at the given address.
+   	// Originally the step recorded the statement at that address, obtained with 
+   	// getStatementNoNotify(), and no PC if that failed.  The only situation causing this so
+   	// far: user modifies memory or register contents through direct manipulation on the 
+   	// GUI, after assembling the program but before starting to run it (or after 
+   	// backstepping all the way to the start).  The action will not be associated with any 
+   	// instruction, but will be carried out when popped.  Text segment addresses, the usual
+   	// case, are checked directly.
+       private static int stepPC(int pc) {
+         if (Memory.wordAligned(pc) && (Memory.inTextSegment(pc) || Memory.inKernelTextSegment(pc))) {
+            return pc;
          }
+         try {
+            Memory.getInstance().getStatementNoNotify(pc);
+            return pc;
+         } 
+             catch (Exception e) {
+               return NOT_PC_VALUE;
+            }
       }
    	
    	// *****************************************************************************
@@ -378,72 +377,81 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// newly-pushed item overwrites the oldest item, with circular top!  All operations 
    	// are constant time.  It's synchronized too, to be safe (is used by both the 
    	// simulation thread and the GUI thread for the back-step button).
-   	// Upon construction, it is filled with newly-created empty BackStep objects which
-   	// will exist for the life of the stack.  Push does not create a BackStep object 
-   	// but instead overwrites the contents of the existing one.  Thus during MIPS
-   	// program (simulated) execution, BackStep objects are never created or junked
-   	// regardless of how many steps are executed.  This will speed things up a bit
-   	// and make life easier for the garbage collector.
+   	// Each step is one element of several parallel arrays, allocated on construction,
+   	// so during MIPS program (simulated) execution nothing is ever created or junked
+   	// regardless of how many steps are executed.  pop() and peek() return the array 
+   	// index of the step; it is valid until the next push or pop.
+   	//
+   	// If the spill limit exceeds the capacity, the stack does not overwrite old items
+   	// when full but writes the older half of them to a file (see SpillFile below), from
+   	// which they are read back when the stack has been popped empty.  Then only the 
+   	// oldest beyond the spill limit are discarded.
    	
        private class BackstepStack {
          private int capacity;
          private int size;
          private int top;
-         private BackStep[] stack;
+         private byte[] actions;   // what do do MEMORY_RESTORE_WORD, etc, plus IN_DELAY_SLOT
+         private int[] pcs;        // program counter value when original step occurred
+         private int[] params1;    // first parameter required by that action
+         private int[] params2;    // optional second parameter required by that action
+         private SpillFile spill;  // null if not spilling
       
-          // Stack is created upon successful assembly or reset.  The one-time overhead of
-      	 // creating all the BackStep objects will not be noticed by the user, and enhances
-      	 // runtime performance by not having to create or recycle them during MIPS
-      	 // program execution.
-          private BackstepStack(int capacity) {
+          // Stack is created upon successful assembly or reset.  
+          private BackstepStack(int capacity, int spillLimit) {
             this.capacity = capacity;
             this.size = 0;
             this.top = -1;
-            this.stack = new BackStep[capacity];
-            for (int i=0; i<capacity; i++) {
-               this.stack[i] = new BackStep();
+            this.actions = new byte[capacity];
+            this.pcs = new int[capacity];
+            this.params1 = new int[capacity];
+            this.params2 = new int[capacity];
+            if (spillLimit > capacity && capacity >= 2) {
+               this.spill = new SpillFile(capacity / 2, (spillLimit - capacity + capacity / 2 - 1) / (capacity / 2));
             }
          }
       	
           private synchronized boolean empty() {
-            return size==0;
+            return isEmpty();
          }
          
-          private synchronized void push(int act, int programCounter, int parm1, int parm2) {
-            if (size==0) {
-               top=0;
-               size++;
-            } 
-            else if (size < capacity) {
-               top = (top + 1) % capacity;
-               size++;
-            } 
-            else { // size == capacity.  The top moves up one, replacing oldest entry (goodbye!)
-               top = (top + 1) % capacity;
+          // Also releases the spill file, which is created again if needed.
+          private synchronized void clear() {
+            size = 0;
+            top = -1;
+            if (spill != null) {
+               spill.release();
             }
-         	// We'll re-use existing objects rather than create/discard each time.
-         	// Must use assign() method rather than series of assignment statements!
-            stack[top].assign(act, programCounter, parm1, parm2);
+         }
+         
+          private synchronized void push(int act, int programCounter, int parm1, int parm2) {
+            store(act, programCounter, parm1, parm2);
          }
       	
           private synchronized void push(int act, int programCounter, int parm1) {
-            push(act, programCounter, parm1, 0);
+            store(act, programCounter, parm1, 0);
          }
       	
           private synchronized void push(int act, int programCounter) {
-            push(act, programCounter, 0, 0);
+            store(act, programCounter, 0, 0);
+         }
+      	
+      	 // Push unless the top step is from the same program counter value.
+          private synchronized void pushIfNewPC(int act, int programCounter) {
+            if (isEmpty() || pcs[topIndex()] != programCounter) {
+               store(act, programCounter, 0, 0);
+            }
          }
          
       	// NO PROTECTION.  This class is used only within this file so there is no excuse
       	// for trying to pop from empty stack.
-          private synchronized BackStep pop() {
-            BackStep bs;
-            bs = stack[top];
+          private synchronized int pop() {
+            int bs = topIndex();
             if (size==1) {
                top = -1;
             } 
             else {
-               top = (top + capacity - 1) % capacity;
+               top = (top == 0) ? capacity - 1 : top - 1;
             }
             size--;
             return bs;
@@ -451,10 +459,175 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
       	// NO PROTECTION.  This class is used only within this file so there is no excuse
       	// for trying to peek from empty stack.         
-          private synchronized BackStep peek() {
-            return stack[top];
+          private synchronized int peek() {
+            return topIndex();
+         }
+      	
+      	// The methods below do the work for those above, which each lock the stack once.
+      	
+          private boolean isEmpty() {
+            return size==0 && (spill == null || spill.empty());
+         }
+      	
+          private void store(int act, int programCounter, int parm1, int parm2) {
+            if (size==0) {
+               top=0;
+               size++;
+            } 
+            else if (size < capacity) {
+               top = next(top);
+               size++;
+            } 
+            else if (spill != null && spill.write(this, next(top))) { // oldest half now on disk
+               size = size - spill.blockLength + 1;
+               top = next(top);
+            }
+            else { // size == capacity.  The top moves up one, replacing oldest entry (goodbye!)
+               top = next(top);
+            }
+            actions[top] = (byte) (Simulator.inDelaySlot() ? act | IN_DELAY_SLOT : act); // ADDED 25 June 2007
+            pcs[top] = stepPC(programCounter);
+            params1[top] = parm1;
+            params2[top] = parm2;
+         /*				
+            System.out.println("backstep PUSH: action "+act+" pc "+mars.util.Binary.intToHexString(pcs[top])+
+         								 " parm1 "+parm1+" parm2 "+parm2);
+         */
+         }
+      	
+          private int topIndex() {
+            if (size==0 && spill != null) { // popped empty, get the next older steps back
+               size = spill.read(this);
+               top = size - 1;
+            }
+            return top;
+         }
+      
+      	 // Index following the given one, circularly.  Avoids the division of %.
+          private int next(int index) {
+            return (index + 1 == capacity) ? 0 : index + 1;
          }
       			
       }
    
+   	// *****************************************************************************
+   	// File holding steps spilled from the stack, in blocks of half its capacity.  It is
+   	// itself a stack of blocks, and circular like the stack above:  once it holds the
+   	// maximum number of blocks, writing one replaces the oldest.  The file is temporary:
+   	// it is created when first needed, and closed and deleted when the stack is cleared.
+   	// If it cannot be written or read, spilling stops and those steps are lost, as they 
+   	// would have been without spilling.
+   	
+       private class SpillFile {
+         private static final int STEP_BYTES = 13; // action byte plus pc and two parameters
+         private int blockLength;   // steps per block
+         private int maxBlocks;
+         private int firstBlock;    // number of the oldest block held
+         private int blockCount;    // number of blocks held
+         private File temp;
+         private RandomAccessFile file;
+         private byte[] buffer;
+      
+          private SpillFile(int blockLength, int maxBlocks) {
+            this.blockLength = blockLength;
+            this.maxBlocks = maxBlocks;
+            this.firstBlock = 0;
+            this.blockCount = 0;
+         }
+      	
+          private boolean empty() {
+            return blockCount == 0;
+         }
+      
+          // Write a block of steps from the stack, starting at the given index of its arrays.
+      	 // Returns false if they could not be written.
+          private boolean write(BackstepStack stack, int first) {
+            if (maxBlocks <= 0) {
+               return false;
+            }
+            try {
+               if (file == null) {
+                  temp = File.createTempFile("mars", ".backsteps");
+                  temp.deleteOnExit();
+                  file = new RandomAccessFile(temp, "rw");
+                  buffer = new byte[blockLength * STEP_BYTES];
+               }
+               int b = 0;
+               for (int i = 0; i < blockLength; i++) {
+                  int step = (first + i) % stack.capacity;
+                  buffer[b++] = stack.actions[step];
+                  b = putInt(stack.pcs[step], b);
+                  b = putInt(stack.params1[step], b);
+                  b = putInt(stack.params2[step], b);
+               }
+               if (blockCount == maxBlocks) {
+                  firstBlock++;
+                  blockCount--;
+               }
+               file.seek((long) ((firstBlock + blockCount) % maxBlocks) * buffer.length);
+               file.write(buffer);
+               blockCount++;
+               return true;
+            } 
+                catch (IOException e) {
+                  maxBlocks = blockCount = 0;
+                  return false;
+               }
+         }
+      
+          // Read the most recently written block into the bottom of the (empty) stack.
+      	 // Returns the number of steps read.
+          private int read(BackstepStack stack) {
+            if (blockCount == 0) {
+               return 0;
+            }
+            try {
+               file.seek((long) ((firstBlock + blockCount - 1) % maxBlocks) * buffer.length);
+               file.readFully(buffer);
+               blockCount--;
+               int b = 0;
+               for (int step = 0; step < blockLength; step++) {
+                  stack.actions[step] = buffer[b++];
+                  stack.pcs[step] = getInt(b);
+                  stack.params1[step] = getInt(b + 4);
+                  stack.params2[step] = getInt(b + 8);
+                  b += 12;
+               }
+               return blockLength;
+            } 
+                catch (IOException e) {
+                  maxBlocks = blockCount = 0;
+                  return 0;
+               }
+         }
+      
+          // Discard all blocks, closing and deleting the file.
+          private void release() {
+            firstBlock = 0;
+            blockCount = 0;
+            if (file != null) {
+               try {
+                  file.close();
+               } 
+                   catch (IOException e) {
+                  }
+               temp.delete();
+               file = null;
+               temp = null;
+            }
+         }
+      
+          private int putInt(int value, int b) {
+            buffer[b] = (byte) (value >>> 24);
+            buffer[b+1] = (byte) (value >>> 16);
+            buffer[b+2] = (byte) (value >>> 8);
+            buffer[b+3] = (byte) value;
+            return b + 4;
+         }
+      
+          private int getInt(int b) {
+            return (buffer[b] << 24) | ((buffer[b+1] & 0xFF) << 16) | ((buffer[b+2] & 0xFF) << 8) | (buffer[b+3] & 0xFF);
+         }
+      }
+   
    }
\ No newline at end of file
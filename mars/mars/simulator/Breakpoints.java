@@ -0,0 +1,148 @@
+   package mars.simulator;
+   import mars.mips.hardware.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * The execution breakpoints of a program, as a bitmap with one bit for each word of 
+ * the user and kernel text segments.  The simulator checks it after every instruction, 
+ * so the check is a single bit test no matter how many breakpoints are set.
+ * <p>
+ * The IDE keeps one of these for the assembled program and updates it as breakpoints 
+ * are set and cleared, and the simulator reads the same one while it runs.  Changes 
+ * made while holding the memory and registers lock therefore take effect at the next 
+ * instruction, without restarting the run.
+ *
+ * @see Simulator
+ */
+
+    public class Breakpoints {
+      private final int userTextBase, kernelTextBase;
+      private final long[] user, kernel;
+      private int count;
+   
+   	/**
+   	 * Create an empty set of breakpoints covering the text segments of the current 
+   	 * memory configuration.
+   	 */
+       public Breakpoints() {
+         userTextBase = Memory.textBaseAddress;
+         kernelTextBase = Memory.kernelTextBaseAddress;
+         user = new long[bitmapLength(Memory.textBaseAddress, Memory.textLimitAddress)];
+         kernel = new long[bitmapLength(Memory.kernelTextBaseAddress, Memory.kernelTextLimitAddress)];
+         count = 0;
+      }
+   
+   	/**
+   	 * Create a set of breakpoints at the given addresses.
+   	 *
+   	 * @param addresses array of breakpoint addresses.  Addresses outside the text segments are ignored.
+   	 */
+       public Breakpoints(int[] addresses) {
+         this();
+         for (int i = 0; i < addresses.length; i++) {
+            set(addresses[i], true);
+         }
+      }
+   
+   	/**
+   	 * Determine whether there is a breakpoint at the given address.
+   	 *
+   	 * @param address instruction address.
+   	 * @return true if a breakpoint is set there, false otherwise.
+   	 */
+       public boolean isSet(int address) {
+         int offset = (address - userTextBase) >>> 2;
+         if ((offset >>> 6) < user.length) {
+            return (user[offset >>> 6] & (1L << offset)) != 0;
+         }
+         offset = (address - kernelTextBase) >>> 2;
+         if ((offset >>> 6) < kernel.length) {
+            return (kernel[offset >>> 6] & (1L << offset)) != 0;
+         }
+         return false;
+      }
+   
+   	/**
+   	 * Set or clear the breakpoint at the given address.  Addresses outside the
+   	 * text segments are ignored.
+   	 *
+   	 * @param address instruction address.
+   	 * @param on true to set the breakpoint, false to clear it.
+   	 */
+       public void set(int address, boolean on) {
+         long[] bits = user;
+         int offset = (address - userTextBase) >>> 2;
+         if ((offset >>> 6) >= user.length) {
+            bits = kernel;
+            offset = (address - kernelTextBase) >>> 2;
+            if ((offset >>> 6) >= kernel.length) {
+               return;
+            }
+         }
+         long mask = 1L << offset;
+         boolean wasOn = (bits[offset >>> 6] & mask) != 0;
+         if (on && !wasOn) {
+            bits[offset >>> 6] |= mask;
+            count++;
+            Simulator.interruptTurbo();
+         } 
+         else if (!on && wasOn) {
+            bits[offset >>> 6] &= ~mask;
+            count--;
+         }
+      }
+   
+   	/**
+   	 * Clear all breakpoints.
+   	 */
+       public void clear() {
+         Arrays.fill(user, 0L);
+         Arrays.fill(kernel, 0L);
+         count = 0;
+      }
+   
+   	/**
+   	 * Determine whether no breakpoints are set.
+   	 *
+   	 * @return true if there are no breakpoints, false otherwise.
+   	 */
+       public boolean isEmpty() {
+         return count == 0;
+      }
+   
+      // Number of longs needed for one bit per word from base to limit, inclusive.
+       private static int bitmapLength(int base, int limit) {
+         if (limit - base < 0) {
+            return 0;
+         }
+         return (((limit - base) >>> 2) >>> 6) + 1;
+      }
+   }
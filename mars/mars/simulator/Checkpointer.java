@@ -0,0 +1,247 @@
+   package mars.simulator;
+   import mars.*;
+   import mars.util.*;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.syscalls.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Periodic checkpoints of the simulated machine, so that execution can be returned
+ * to any earlier instruction without backstepping through every instruction since.
+ * A checkpoint holds memory, the registers of the CPU and both coprocessors, the
+ * files opened by the MIPS program, its random number streams and its virtual clock.  One is taken when execution starts and then
+ * every so many instructions (CheckpointInterval in Config.properties).  To go to 
+ * instruction N, the latest checkpoint at or before N is restored and the simulator 
+ * runs forward the remaining instructions.
+ * <p>
+ * Memory checkpoints share data pages with memory until memory writes them (see 
+ * Memory.snapshot()), so each costs only the pages written since the one before.
+ * Once MAXIMUM_CHECKPOINTS have been taken every other one is dropped and the 
+ * interval doubled, so a run of any length is covered in bounded space.
+ * <p>
+ * Instructions are numbered from 0 in the order they complete, counting from the
+ * latest assembly or reset.  Back-stepping lowers the count by one for each 
+ * instruction undone.  Running forward from a checkpoint repeats the original run 
+ * except for console input, which is read again, and the Time syscall when it reads
+ * the host's clock rather than the virtual clock (see VirtualClock).
+ */
+    public class Checkpointer {
+      private static final int MAXIMUM_CHECKPOINTS = 128;
+      private long interval;
+      private long instructionCount;
+      private long nextCheckpoint;
+      private ArrayList<Checkpoint> checkpoints;
+   
+      /**
+   	* Create a Checkpointer with no checkpoints and an instruction count of 0.
+   	* The first checkpoint is taken when the simulator starts.
+   	*/
+       public Checkpointer() {
+         interval = Globals.checkpointInterval;
+         instructionCount = 0;
+         nextCheckpoint = 0;
+         checkpoints = new ArrayList<Checkpoint>();
+      }
+   
+      /**
+   	* Determine whether checkpoints are taken, which depends on the configured interval.
+   	* @return true if checkpoints are taken, false if not.
+   	*/
+       public boolean enabled() {
+         return interval > 0;
+      }
+   
+      /**
+   	* Get the number of instructions completed since assembly or reset.  This is
+   	* the number of the next instruction to be executed.
+   	* @return the instruction count.
+   	*/
+       public long getInstructionCount() {
+         return instructionCount;
+      }
+   
+      /**
+   	* Get the instruction number of the earliest checkpoint, which is the earliest 
+   	* instruction that can be gone to.
+   	* @return the instruction number, or -1 if there are no checkpoints.
+   	*/
+       public long getFirstInstruction() {
+         return checkpoints.isEmpty() ? -1 : checkpoints.get(0).instructionNumber;
+      }
+   
+      /**
+   	* Called by the simulator when it starts, and after each instruction or group of
+   	* instructions it completes.  Takes a checkpoint if one is due.
+   	* @param instructions number of instructions completed since the last call.
+   	*/
+       public void executed(int instructions) {
+         instructionCount += instructions;
+         if (instructionCount >= nextCheckpoint) {
+            take();
+         }
+      }
+   
+      /**
+   	* Called when back-stepping has undone the latest instruction.  Lowers the 
+   	* instruction count, and discards checkpoints taken after that instruction, since
+   	* execution forward from here takes new ones.
+   	*/
+       public void backStepped() {
+         if (instructionCount == 0) {
+            return;
+         }
+         instructionCount--;
+         int size = checkpoints.size();
+         while (size > 0 && checkpoints.get(size - 1).instructionNumber > instructionCount) {
+            checkpoints.remove(--size);
+         }
+         nextCheckpoint = (size == 0) ? instructionCount : checkpoints.get(size - 1).instructionNumber + interval;
+      }
+   
+      /**
+   	* Return the machine to the latest checkpoint taken at or before the given 
+   	* instruction.  Later checkpoints, and any back steps recorded, no longer apply
+   	* and are discarded.  Must not be called while the simulator is running.
+   	* @param instructionNumber number of the instruction to go to.
+   	* @return number of the instruction at which the restored checkpoint was taken, 
+   	* or -1 if there is none at or before instructionNumber.
+   	*/
+       public long restore(long instructionNumber) {
+         int index = checkpoints.size() - 1;
+         while (index >= 0 && checkpoints.get(index).instructionNumber > instructionNumber) {
+            index--;
+         }
+         if (index < 0) {
+            return -1;
+         }
+         Checkpoint checkpoint = checkpoints.get(index);
+         checkpoints.subList(index + 1, checkpoints.size()).clear();
+         synchronized (MachineContext.current().getLock()) {
+            checkpoint.restore();
+         }
+         MIPSprogram program = MachineContext.current().getProgram();
+         if (program != null && program.getBackStepper() != null) {
+            program.getBackStepper().clear();
+         }
+         DelayedBranch.clear();
+         instructionCount = checkpoint.instructionNumber;
+         nextCheckpoint = instructionCount + interval;
+         return instructionCount;
+      }
+   
+      // Take a checkpoint, making room if need be.  Not while a delayed branch is pending,
+   	// since its state is not recorded; then try again after the next instruction.
+       private void take() {
+         if (DelayedBranch.isRegistered() || DelayedBranch.isTriggered()) {
+            nextCheckpoint = instructionCount + 1;
+            return;
+         }
+         if (checkpoints.size() == MAXIMUM_CHECKPOINTS) {
+            ArrayList<Checkpoint> kept = new ArrayList<Checkpoint>();
+            for (int i = 0; i < checkpoints.size(); i += 2) {
+               kept.add(checkpoints.get(i));
+            }
+            checkpoints = kept;
+            interval *= 2;
+         }
+         checkpoints.add(new Checkpoint(instructionCount));
+         nextCheckpoint = instructionCount + interval;
+      }
+   
+   	// *****************************************************************************
+   	// The state of the machine after the given number of instructions.  Register values
+   	// are saved and restored through the Register objects, and the hi and lo registers 
+   	// by number, so that observers see any changes.
+   	
+       private static class Checkpoint {
+         private final long instructionNumber;
+         private final Memory.Snapshot memory;
+         private final int[] registers;
+         private final int programCounter, hi, lo;
+         private final int[] coprocessor0;
+         private final int[] coprocessor1;
+         private final int conditionFlags;
+         private final SystemIO.FileState files;
+         private final byte[] randomStreams;
+         private final long[] clock;
+      
+          private Checkpoint(long instructionNumber) {
+            this.instructionNumber = instructionNumber;
+            this.memory = Memory.getInstance().snapshot();
+            this.registers = getValues(RegisterFile.getRegisters());
+            this.programCounter = RegisterFile.getProgramCounter();
+            this.hi = RegisterFile.getValue(33);
+            this.lo = RegisterFile.getValue(34);
+            this.coprocessor0 = getValues(Coprocessor0.getRegisters());
+            this.coprocessor1 = getValues(Coprocessor1.getRegisters());
+            this.conditionFlags = Coprocessor1.getConditionFlags();
+            this.files = SystemIO.saveFiles();
+            this.randomStreams = RandomStreams.saveStreams();
+            this.clock = VirtualClock.getInstance().getState();
+         }
+      
+          private void restore() {
+            Memory.getInstance().restore(memory);
+            setValues(RegisterFile.getRegisters(), registers);
+            RegisterFile.initializeProgramCounter(programCounter);
+            RegisterFile.updateRegister(33, hi);
+            RegisterFile.updateRegister(34, lo);
+            setValues(Coprocessor0.getRegisters(), coprocessor0);
+            setValues(Coprocessor1.getRegisters(), coprocessor1);
+            for (int flag = 0; flag < Coprocessor1.getConditionFlagCount(); flag++) {
+               if (Binary.bitValue(conditionFlags, flag) == 1) {
+                  Coprocessor1.setConditionFlag(flag);
+               } 
+               else {
+                  Coprocessor1.clearConditionFlag(flag);
+               }
+            }
+            SystemIO.restoreFiles(files);
+            RandomStreams.restoreStreams(randomStreams);
+            VirtualClock.getInstance().setState(clock);
+         }
+      
+          private static int[] getValues(Register[] registers) {
+            int[] values = new int[registers.length];
+            for (int i = 0; i < registers.length; i++) {
+               values[i] = registers[i].getValueNoNotify();
+            }
+            return values;
+         }
+      
+          private static void setValues(Register[] registers, int[] values) {
+            for (int i = 0; i < registers.length; i++) {
+               registers[i].setValue(values[i]);
+            }
+         }
+      }
+   
+   }
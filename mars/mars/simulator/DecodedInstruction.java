@@ -0,0 +1,100 @@
+   package mars.simulator;
+   import mars.*;
+   import mars.mips.instructions.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * One entry of the simulator's pre-decoded copy of the text segment.  It bundles
+ * a ProgramStatement with the SimulationCode that executes it and the operands
+ * already resolved from its binary, so the run loop can dispatch straight to the 
+ * simulation code without looking up the statement or casting its instruction
+ * on every cycle.  Where the instruction has one, it also carries an executor
+ * specialized to the statement, which holds the resolved operands in its own fields
+ * and is used in place of the simulation code.  Instructions without one are still
+ * simulated from the statement, whose SimulationCode reads the same operands through
+ * getOperands().  The operands field itself serves analyses of the decoded program
+ * such as Fusion.  Entries are built once per statement and shared until the 
+ * statement is replaced.
+ *
+ * @see DecodedProgram
+ * @see Specializer
+ */
+
+    public final class DecodedInstruction {
+      /** The statement as stored in the text segment. */
+      public final ProgramStatement statement;
+      /** Code to simulate the statement, or null if binary matches no basic instruction. */
+      public final SimulationCode code;
+      /** Operand values in the order they appear in the instruction's example format. */
+      public final int[] operands;
+      /** The 32-bit machine code. */
+      public final int binary;
+      /** Executor specialized to the statement, or null to use code. */
+      public final StatementExecutor executor;
+   
+       private DecodedInstruction(ProgramStatement statement, SimulationCode code) {
+         this.statement = statement;
+         this.code = code;
+         this.operands = statement.getOperands();
+         this.binary = statement.getBinaryStatement();
+         this.executor = (code == null) ? null : Specializer.specialize(statement);
+      }
+   
+   	/**
+   	 * Simulate execution of the statement, by its specialized executor if it has one
+   	 * and otherwise by its simulation code.  The caller has checked that code is not null.
+   	 *
+   	 * @throws ProcessingException as thrown by the instruction.
+   	 */
+       public void execute() throws ProcessingException {
+         if (executor != null) {
+            executor.execute();
+         } 
+         else {
+            code.simulate(statement);
+         }
+      }
+   
+   	/**
+   	 * Build the decoded form of the given statement.
+   	 *
+   	 * @param statement a basic statement from the text segment (or from data, if
+   	 * self-modifying code is enabled).
+   	 * @return the decoded instruction, or null if statement is null.
+   	 */
+       public static DecodedInstruction decode(ProgramStatement statement) {
+         if (statement == null) {
+            return null;
+         }
+         BasicInstruction instruction = (BasicInstruction) statement.getInstruction();
+         return new DecodedInstruction(statement, 
+               (instruction == null) ? null : instruction.getSimulationCode());
+      }
+   }
@@ -0,0 +1,241 @@
+   package mars.simulator;
+   import mars.*;
+   import mars.mips.hardware.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * The simulator's pre-decoded copy of the user and kernel text segments.  Each
+ * is a flat array of DecodedInstruction indexed by (pc - base address) >> 2, so an
+ * instruction fetch is a bounds check and an array reference rather than a trip
+ * through Memory's segment checks and block tables.  The arrays are built from
+ * memory at the start of simulation, following assembly, and are kept current
+ * thereafter through Memory's text segment listener.
+ * <p>
+ * Fetches that cannot be satisfied from the arrays -- misaligned or out-of-range
+ * addresses, empty words, and instructions fetched from the data segment when 
+ * self-modifying code is enabled -- are passed along to Memory.getStatement() so
+ * behavior, including exceptions, is exactly as before.
+ * <p>
+ * The decoded program also owns the optional basic block cache, since blocks
+ * are built from its arrays and must be discarded when they change.  For the
+ * same reason it keeps, alongside each array, the superinstruction (if any) that
+ * starts at each address.
+ *
+ * @see DecodedInstruction
+ * @see BasicBlockCache
+ * @see Fusion
+ */
+
+    public class DecodedProgram implements Memory.TextSegmentListener {
+      private static final DecodedInstruction[] EMPTY = new DecodedInstruction[0];
+      private static final Fusion[] NO_FUSIONS = new Fusion[0];
+      private DecodedInstruction[] userText = EMPTY;
+      private DecodedInstruction[] kernelText = EMPTY;
+      private Fusion[] userFusions = NO_FUSIONS;
+      private Fusion[] kernelFusions = NO_FUSIONS;
+      private int userTextBase, kernelTextBase;
+      private boolean stale = true;
+      private BasicBlockCache blocks;
+      private final Memory memory;
+      // Instructions recently fetched from outside the decoded arrays, by address.  An entry
+      // is used only if memory returns the same statement for that address.
+      private static final int FETCH_CACHE_LENGTH = 1024;
+      private final DecodedInstruction[] fetched = new DecodedInstruction[FETCH_CACHE_LENGTH];
+   
+   	/**
+   	 * Create the decoded program and register it with memory for text segment changes.
+   	 * Contents are not decoded until first call to prepare().
+   	 *
+   	 * @param memory the memory holding the program, that of the simulator's MachineContext.
+   	 */
+       public DecodedProgram(Memory memory) {
+         this.memory = memory;
+         blocks = new BasicBlockCache(this);
+         memory.setTextSegmentListener(this);
+      }
+   
+   	/**
+   	 * Decode the text segments, if memory has been cleared or reconfigured since
+   	 * they were last decoded, and empty the block cache.  Call before running.
+   	 */
+       public synchronized void prepare() {
+         if (stale || userTextBase != Memory.textBaseAddress || kernelTextBase != Memory.kernelTextBaseAddress) {
+            userTextBase = Memory.textBaseAddress;
+            kernelTextBase = Memory.kernelTextBaseAddress;
+            userText = decodeAll(memory.getTextSegmentStatements(false));
+            kernelText = decodeAll(memory.getTextSegmentStatements(true));
+            userFusions = fuseAll(userText);
+            kernelFusions = fuseAll(kernelText);
+            stale = false;
+         }
+         blocks.reset(userText.length, kernelText.length);
+      }
+   
+   	/**
+   	 * Get the basic block cache for this program.  It is emptied by prepare().
+   	 */
+       public BasicBlockCache getBlockCache() {
+         return blocks;
+      }
+   
+   	/**
+   	 * Fetch the instruction at the given address, notifying memory observers of
+   	 * the fetch just as Memory.getStatement() does.
+   	 *
+   	 * @param address instruction address, normally the program counter.
+   	 * @return the decoded instruction, or null if there is no statement at that address.
+   	 * @throws AddressErrorException if address is not a valid fetch address.
+   	 */
+       public DecodedInstruction fetch(int address) throws AddressErrorException {
+         if ((address & 3) == 0) {
+            DecodedInstruction[] text = userText;
+            int index = (address - userTextBase) >>> 2;
+            if (index >= text.length) {
+               text = kernelText;
+               index = (address - kernelTextBase) >>> 2;
+            }
+            if (index < text.length && text[index] != null) {
+               DecodedInstruction instruction = text[index];
+               memory.notifyStatementFetch(address, instruction.binary);
+               return instruction;
+            }
+         }
+         ProgramStatement statement = memory.getStatement(address);
+         int index = (address >>> 2) & (FETCH_CACHE_LENGTH - 1);
+         DecodedInstruction instruction = fetched[index];
+         if (statement == null || instruction == null || instruction.statement != statement) {
+            instruction = DecodedInstruction.decode(statement);
+            fetched[index] = instruction;
+         }
+         return instruction;
+      }
+   
+   	/**
+   	 * Get the decoded instruction at the given address if it is within the decoded 
+   	 * text segments, without notifying observers.
+   	 *
+   	 * @return the decoded instruction, or null if none.
+   	 */
+       DecodedInstruction instructionAt(int address) {
+         int index = (address - userTextBase) >>> 2;
+         if (index < userText.length) {
+            return userText[index];
+         }
+         index = (address - kernelTextBase) >>> 2;
+         return (index < kernelText.length) ? kernelText[index] : null;
+      }
+   
+   	/**
+   	 * Get the superinstruction starting at the given address if it is within the decoded
+   	 * text segments.  It is only to be executed if its first half is the instruction
+   	 * that instructionAt() returns for the same address.
+   	 *
+   	 * @return the fusion, or null if none.
+   	 */
+       Fusion fusionAt(int address) {
+         int index = (address - userTextBase) >>> 2;
+         if (index < userFusions.length) {
+            return userFusions[index];
+         }
+         index = (address - kernelTextBase) >>> 2;
+         return (index < kernelFusions.length) ? kernelFusions[index] : null;
+      }
+   
+   	/**
+   	 * Memory.TextSegmentListener method.  Re-decode the statement at that address
+   	 * if it falls within the decoded range.  Statements beyond the range are still
+   	 * fetched correctly (through memory) and will be decoded at next prepare().
+   	 */
+       public synchronized void statementChanged(int address) {
+         blocks.statementChanged(address);
+         int index = (address - userTextBase) >>> 2;
+         if (index < userText.length) {
+            userText[index] = decodeFromMemory(address);
+            fuseAround(userText, userFusions, index);
+            return;
+         }
+         index = (address - kernelTextBase) >>> 2;
+         if (index < kernelText.length) {
+            kernelText[index] = decodeFromMemory(address);
+            fuseAround(kernelText, kernelFusions, index);
+            return;
+         }
+         stale = true;
+      }
+   
+   	/**
+   	 * Memory.TextSegmentListener method.  Drop the decoded copy; it will be
+   	 * rebuilt at next prepare().
+   	 */
+       public synchronized void textSegmentCleared() {
+         userText = EMPTY;
+         kernelText = EMPTY;
+         userFusions = NO_FUSIONS;
+         kernelFusions = NO_FUSIONS;
+         stale = true;
+         blocks.reset(0, 0);
+      }
+   
+       private DecodedInstruction decodeFromMemory(int address) {
+         try {
+            return DecodedInstruction.decode(memory.getStatementNoNotify(address));
+         } 
+             catch (AddressErrorException e) {
+               return null;
+            }
+      }
+   
+       private static DecodedInstruction[] decodeAll(ProgramStatement[] statements) {
+         DecodedInstruction[] decoded = new DecodedInstruction[statements.length];
+         for (int i = 0; i < statements.length; i++) {
+            decoded[i] = DecodedInstruction.decode(statements[i]);
+         }
+         return decoded;
+      }
+   
+       private static Fusion[] fuseAll(DecodedInstruction[] text) {
+         Fusion[] fusions = new Fusion[text.length];
+         for (int i = 0; i + 1 < text.length; i++) {
+            fusions[i] = Fusion.of(text[i], text[i + 1]);
+         }
+         return fusions;
+      }
+   
+      // The statement at index has changed, so rebuild the fusions it may be part of:
+      // the one starting there and the one starting at the statement before.
+       private static void fuseAround(DecodedInstruction[] text, Fusion[] fusions, int index) {
+         if (index > 0) {
+            fusions[index - 1] = Fusion.of(text[index - 1], text[index]);
+         }
+         if (index + 1 < text.length) {
+            fusions[index] = Fusion.of(text[index], text[index + 1]);
+         }
+      }
+   }
@@ -1,4 +1,5 @@
 package mars.simulator;
+import mars.MachineContext;
 
 /*
 Copyright (c) 2003-2007,  Pete Sanderson and Kenneth Vollmar
@@ -52,8 +53,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  * would hope) but in the meantime the first statement following the sequence
  * of successful branches will constitute the delay slot and will be executed!
  *
- * Since only one pending delayed branch can be taken at a time, everything
- * here is done with statics.  The class itself represents the potential branch.
+ * Since only one pending delayed branch can be taken at a time, each machine
+ * has one DelayedBranch, held by its MachineContext.  The static methods here
+ * apply to that of the current context.
  * 
  * @author Pete Sanderson
  * @version June 2007
@@ -67,8 +69,18 @@ public class DelayedBranch {
 
    // Initially nothing is happening.
 	
-	private static int state = CLEARED;
-	private static int branchTargetAddress = 0;
+	private int state = CLEARED;
+	private int branchTargetAddress = 0;
+
+	/**
+	 *  Create the delayed branch of a new MachineContext, initially cleared.
+	 */
+	public DelayedBranch() {
+	}
+
+	private static DelayedBranch current() {
+	   return MachineContext.current().getDelayedBranch();
+	}
 	
 	/**
     *  Register the fact that a successful branch is to occur.  This is called in
@@ -82,11 +94,12 @@ public class DelayedBranch {
 	 *  @param targetAddress The address to branch to after executing the next instruction
 	 */
 	public static void register(int targetAddress) {
+	  DelayedBranch branch = current();
 	  // About as clean as a switch statement can be!
-	  switch (state) {
-	    case CLEARED    :  branchTargetAddress = targetAddress;
+	  switch (branch.state) {
+	    case CLEARED    :  branch.branchTargetAddress = targetAddress;
 		 case REGISTERED :
-		 case TRIGGERED  :  state = REGISTERED;
+		 case TRIGGERED  :  branch.state = REGISTERED;
 	  }          
 	}
 
@@ -103,10 +116,11 @@ public class DelayedBranch {
 	 *
 	 */
 	 static void trigger() {
+	  DelayedBranch branch = current();
 	  // About as clean as a switch statement can be!
-	  switch (state) {
+	  switch (branch.state) {
 		 case REGISTERED :
-		 case TRIGGERED  :  state = TRIGGERED;
+		 case TRIGGERED  :  branch.state = TRIGGERED;
 		 case CLEARED    :
 	  }          
 	}
@@ -116,8 +130,9 @@ public class DelayedBranch {
 	 *  program counter to the target address.  This method has package visibility.
 	 */
 	 static void clear() {
-	  state = CLEARED;
-	  branchTargetAddress = 0; 
+	  DelayedBranch branch = current();
+	  branch.state = CLEARED;
+	  branch.branchTargetAddress = 0; 
 	}
 
    /**
@@ -129,7 +144,7 @@ public class DelayedBranch {
 	 */
 
     static boolean isRegistered() {
-	   return state == REGISTERED;
+	   return current().state == REGISTERED;
 	}
 	
    /**
@@ -140,7 +155,7 @@ public class DelayedBranch {
 	 */
 
    static boolean isTriggered() {
-	   return state == TRIGGERED;
+	   return current().state == TRIGGERED;
 	}	
 
 
@@ -153,7 +168,7 @@ public class DelayedBranch {
 	*  @return Target address of the delayed branch.
 	*/
 	 static int getBranchTargetAddress() {
-	    return branchTargetAddress;
+	    return current().branchTargetAddress;
 	}
 	
 }  // DelayedBranch
\ No newline at end of file
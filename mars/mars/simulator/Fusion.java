@@ -0,0 +1,188 @@
+   package mars.simulator;
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * A superinstruction: two adjacent basic statements that the assembler commonly
+ * emits together for one pseudo-instruction, executed as a single operation.
+ * Three sequences are recognized:
+ * <ul>
+ * <li><tt>lui $at,hi</tt> then <tt>ori $rt,$at,lo</tt>, from <tt>li</tt> and <tt>la</tt>
+ * with 32-bit values.</li>
+ * <li><tt>lui $at,hi</tt> then <tt>lw $rt,lo($at)</tt>, from a load from a label.</li>
+ * <li><tt>slt</tt>, <tt>sltu</tt>, <tt>slti</tt> or <tt>sltiu</tt> into <tt>$at</tt> then
+ * <tt>bne</tt> or <tt>beq</tt> comparing <tt>$at</tt> to <tt>$zero</tt>, from 
+ * <tt>blt</tt>, <tt>bge</tt>, <tt>bgt</tt>, <tt>ble</tt> and their unsigned forms.</li>
+ * </ul>
+ * Any register may stand in for <tt>$at</tt> other than <tt>$zero</tt>, so the same
+ * sequences written out by hand are fused as well.  Everything the pair needs from its
+ * operands is worked out when the fusion is built.
+ * <p>
+ * The result of executing a fusion is exactly that of executing its two statements
+ * one after the other, including register contents, program counter and the exception
+ * raised (by <tt>lw</tt>, the only one that can raise one).  It is not the same in
+ * between: no observer is notified of the state after the first half, back-stepping
+ * is not recorded and a delayed branch is not delayed.  So the simulator uses fusions
+ * only in turbo mode, where none of those can apply, and otherwise runs the two 
+ * halves separately -- single-stepping, back-stepping and breakpoints still stop 
+ * between them.
+ *
+ * @see DecodedProgram
+ */
+
+    abstract class Fusion {
+      /** First statement of the pair, at address a. */
+      final DecodedInstruction first;
+      /** Second statement of the pair, at address a+4. */
+      final DecodedInstruction second;
+   
+       private Fusion(DecodedInstruction first, DecodedInstruction second) {
+         this.first = first;
+         this.second = second;
+      }
+   
+   	/**
+   	 * Execute both statements.  The program counter must hold the address of the first.
+   	 *
+   	 * @throws ProcessingException as raised by the second statement, if any.
+   	 */
+       abstract void execute() throws ProcessingException;
+   
+   	/**
+   	 * Build the fusion of two statements that are adjacent in the text segment.
+   	 *
+   	 * @param first statement at address a, may be null.
+   	 * @param second statement at address a+4, may be null.
+   	 * @return the fusion, or null if the pair is not one of the recognized sequences.
+   	 */
+       static Fusion of(DecodedInstruction first, DecodedInstruction second) {
+         if (first == null || second == null || first.code == null || second.code == null) {
+            return null;
+         }
+         String firstName = first.statement.getInstruction().getName();
+         String secondName = second.statement.getInstruction().getName();
+         if (firstName.equals("lui")) {
+            int temp = first.operands[0];
+            if (temp == 0) {
+               return null;
+            }
+            if (secondName.equals("ori") && second.operands[1] == temp) {
+               return new LoadImmediate(first, second);
+            }
+            if (secondName.equals("lw") && second.operands[2] == temp) {
+               return new LoadWord(first, second);
+            }
+            return null;
+         }
+         if (firstName.startsWith("slt") && (secondName.equals("bne") || secondName.equals("beq"))) {
+            int temp = first.operands[0];
+            int[] branch = second.operands;
+            if (temp != 0 && (branch[0] == temp && branch[1] == 0 || branch[0] == 0 && branch[1] == temp)) {
+               boolean immediate = firstName.equals("slti") || firstName.equals("sltiu");
+               if (immediate || firstName.equals("slt") || firstName.equals("sltu")) {
+                  return new SetAndBranch(first, second, immediate, firstName.endsWith("u"));
+               }
+            }
+         }
+         return null;
+      }
+   
+      // lui $t,hi ; ori $d,$t,lo
+       private static final class LoadImmediate extends Fusion {
+         private final int temp, upper, target, value;
+      
+          LoadImmediate(DecodedInstruction first, DecodedInstruction second) {
+            super(first, second);
+            temp = first.operands[0];
+            upper = first.operands[1] << 16;
+            target = second.operands[0];
+            value = upper | (second.operands[2] & 0x0000FFFF);
+         }
+      
+          void execute() {
+            RegisterFile.updateRegister(temp, upper);
+            RegisterFile.updateRegister(target, value);
+            RegisterFile.setProgramCounter(RegisterFile.getProgramCounter() + 2 * Instruction.INSTRUCTION_LENGTH);
+         }
+      }
+   
+      // lui $t,hi ; lw $d,lo($t)
+       private static final class LoadWord extends Fusion {
+         private final int temp, upper, target, address;
+      
+          LoadWord(DecodedInstruction first, DecodedInstruction second) {
+            super(first, second);
+            temp = first.operands[0];
+            upper = first.operands[1] << 16;
+            target = second.operands[0];
+            address = upper + second.operands[1];
+         }
+      
+          void execute() throws ProcessingException {
+            RegisterFile.updateRegister(temp, upper);
+            RegisterFile.setProgramCounter(RegisterFile.getProgramCounter() + 2 * Instruction.INSTRUCTION_LENGTH);
+            try {
+               RegisterFile.updateRegister(target, Memory.getInstance().getWord(address));
+            } 
+                catch (AddressErrorException e) {
+                  throw new ProcessingException(second.statement, e);
+               }
+         }
+      }
+   
+      // slt/sltu/slti/sltiu $t,... ; bne/beq $t,$zero,label
+       private static final class SetAndBranch extends Fusion {
+         private final int temp, left, right, displacement;
+         private final boolean immediate, unsigned, branchIfSet;
+      
+          SetAndBranch(DecodedInstruction first, DecodedInstruction second, boolean immediate, boolean unsigned) {
+            super(first, second);
+            this.immediate = immediate;
+            this.unsigned = unsigned;
+            temp = first.operands[0];
+            left = first.operands[1];
+            // 16 bit immediate value is sign-extended, for sltiu as well as slti
+            right = immediate ? first.operands[2] << 16 >> 16 : first.operands[2];
+            branchIfSet = second.statement.getInstruction().getName().equals("bne");
+            displacement = second.operands[2] << 2;
+         }
+      
+          void execute() {
+            int first = RegisterFile.getValue(left);
+            int second = immediate ? right : RegisterFile.getValue(right);
+            boolean set = unsigned ? Integer.compareUnsigned(first, second) < 0 : first < second;
+            RegisterFile.updateRegister(temp, set ? 1 : 0);
+            int pc = RegisterFile.getProgramCounter() + 2 * Instruction.INSTRUCTION_LENGTH;
+            RegisterFile.setProgramCounter((set == branchIfSet) ? pc + displacement : pc);
+         }
+      }
+   }
@@ -44,8 +44,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
     public class Simulator extends Observable {
       private SimThread simulatorThread;
-      private static Simulator simulator = null;  // Singleton object
       private static Runnable interactiveGUIUpdater = null;
+      private static volatile boolean guiUpdatePending = false; // interactiveGUIUpdater queued but not yet run
+      private static final long FRAME_NANOS = 1000000000L / 60;      // display frame, for paced runs
+      private static final long MAXIMUM_LAG_NANOS = 250000000L;     // paced run gives up catching up after this
+      private static final int TURBO_BATCH_LENGTH = 4096;           // most instructions per turbo mode batch
+      private static volatile int turboInterrupts = 0; // raised by interruptTurbo()
+      private DecodedProgram decodedProgram; // text segments pre-decoded for fast dispatch
+      private int instructionCount; // instructions executed by the last simulate() run from command mode
+      private SimThread lastThread;   // the latest run, whether or not it is still running
+      private long instructionsBefore; // instructions executed by the runs before lastThread
+      private final VirtualClock virtualClock = new VirtualClock(this);
       // Others can set this true to indicate external interrupt.  Initially used
    	// to simulate keyboard and display interrupts.  The device is identified
    	// by the address of its MMIO control register.  keyboard 0xFFFF0000 and
@@ -61,23 +70,35 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       public static final int PAUSE_OR_STOP = 6;
    
       /**
-   	 * Returns the Simulator object
+   	 * Returns the Simulator object of the current MachineContext
    	 *
    	 * @return the Simulator object in use
    	 */
        public static Simulator getInstance() {
-         // Do NOT change this to create the Simulator at load time (in declaration above)!
-      	// Its constructor looks for the GUI, which at load time is not created yet,
-      	// and incorrectly leaves interactiveGUIUpdater null!  This causes runtime
-      	// exceptions while running in timed mode.
-         if (simulator==null) {
-            simulator = new Simulator();
-         }
-         return simulator;
+         // Do NOT change this to create the Simulator at load time!  Its constructor
+      	// looks for the GUI, which at load time is not created yet, and incorrectly 
+      	// leaves interactiveGUIUpdater null!  This causes runtime exceptions while 
+      	// running in timed mode.  The MachineContext creates it on first use.
+         return MachineContext.current().getSimulator();
+      }
+   
+   	/**
+   	 * Makes every running simulation reconsider turbo mode before its next 
+   	 * instruction.  Called when a breakpoint is set or an observer of memory or 
+   	 * registers is added, since either one rules turbo mode out.
+   	 */
+       public static void interruptTurbo() {
+         turboInterrupts++;
       }
    
-       private Simulator() {
+   	/**
+   	 * Creates the Simulator of a MachineContext.  Others use getInstance().
+   	 *
+   	 * @param context the MachineContext whose machine this simulator runs
+   	 */
+       public Simulator(MachineContext context) {
          simulatorThread = null;
+         decodedProgram = new DecodedProgram(context.getMemory());
          if (Globals.getGui() != null) {
             interactiveGUIUpdater = new UpdateGUI();
          } 
@@ -99,6 +120,43 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return DelayedBranch.isTriggered();
       }	
    
+   /**
+    *  Get the number of MIPS instructions executed by the most recent call to simulate()
+    *  made without a GUI component, as from the command line.  An instruction that ends 
+    *  execution with an exception, or by an exit syscall, is not counted.
+    *
+    *  @return count of instructions executed
+    */
+   
+       public int getInstructionCount() {
+         return instructionCount;
+      }
+   
+   /**
+    *  Get the number of MIPS instructions executed by this simulator, over all calls to 
+    *  simulate(), including the one in progress.  Called from the running program (e.g.
+    *  by a syscall), it counts the instructions completed before the current one.
+    *
+    *  @return count of instructions executed
+    */
+   
+       public long getInstructionsExecuted() {
+         SimThread thread = lastThread;
+         return instructionsBefore + ((thread == null) ? 0 : thread.steps);
+      }
+   
+   /**
+    *  Get the virtual clock of this simulator, which the Time and Sleep syscalls use
+    *  when it is enabled.
+    *
+    *  @return the virtual clock
+    *  @see VirtualClock
+    */
+   
+       public VirtualClock getVirtualClock() {
+         return virtualClock;
+      }
+   
    
    /**
     * Simulate execution of given MIPS program.  It must have already been assembled.
@@ -112,15 +170,40 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     **/
     
        public boolean simulate(MIPSprogram p, int pc, int maxSteps, int[] breakPoints, AbstractAction actor) throws ProcessingException {
-         simulatorThread = new SimThread(p,pc,maxSteps,breakPoints,actor);
-         simulatorThread.start();
+         return simulateWithBreakpoints(p, pc, maxSteps, 
+            (breakPoints == null || breakPoints.length == 0) ? null : new Breakpoints(breakPoints), actor);
+      }
+   
+   /**
+    * Simulate execution of given MIPS program.  It must have already been assembled.
+    * Breakpoints set or cleared while the program runs take effect at the next instruction,
+    * provided they are changed while holding the memory and registers lock.
+    * @param p The MIPSprogram to be simulated.
+    * @param pc address of first instruction to simulate; this goes into program counter
+    * @param maxSteps maximum number of steps to perform before returning false (0 or less means no max)
+    * @param breakPoints breakpoints to stop at, use null if none
+    * @param actor the GUI component responsible for this call, usually GO or STEP.  null if none.
+    * @return true if execution completed, false otherwise
+    * @throws ProcessingException Throws exception if run-time exception occurs.
+    **/
+    
+       public boolean simulateWithBreakpoints(MIPSprogram p, int pc, int maxSteps, Breakpoints breakPoints, AbstractAction actor) throws ProcessingException {
+         SimThread thread = new SimThread(p,pc,maxSteps,breakPoints,actor);
+         if (lastThread != null) {
+            instructionsBefore += lastThread.steps;
+         }
+         lastThread = thread;
+         simulatorThread = thread;
+         thread.start();
       	
       	// Condition should only be true if run from command-line instead of GUI.
-      	// If so, just stick around until execution thread is finished.
+      	// If so, just stick around until execution thread is finished.  The thread is
+      	// held locally because stopExecution() may clear simulatorThread meanwhile.
          if (actor == null) {
-            Object dun = simulatorThread.get(); // this should emulate join()
-            ProcessingException pe = simulatorThread.pe;
-            boolean done = simulatorThread.done;
+            Object dun = thread.get(); // this should emulate join()
+            ProcessingException pe = thread.pe;
+            boolean done = thread.done;
+            instructionCount = thread.steps;
             if (done) SystemIO.resetFiles(); // close any files opened in MIPS progra
             this.simulatorThread = null;
             if (pe != null) {
@@ -181,6 +264,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
        private void notifyObserversOfExecutionStop(int maxSteps, int programCounter) {
+         SystemIO.flushOutput();
          this.setChanged();
          this.notifyObservers(new SimulatorNotice(SimulatorNotice.SIMULATOR_STOP,
             maxSteps, RunSpeedPanel.getInstance().getRunSpeed(), programCounter) );
@@ -200,13 +284,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        class SimThread extends SwingWorker {
          private MIPSprogram p;
          private int pc, maxSteps;
-         private int[] breakPoints;
+         private Breakpoints breakPoints;
          private boolean done;
          private ProcessingException pe;
          private volatile boolean stop = false;
          private volatile AbstractAction stopper;
          private AbstractAction starter;
+         private boolean paced;
+         private int steps;
          private int constructReturnReason;
+         private double pacedRate;   // run speed of the current pacing schedule, 0 if none
+         private long pacingStart;   // System.nanoTime() at the start of that schedule
+         private long pacedSteps;    // instructions executed on that schedule
+         private int turboCountdown; // instructions until turbo mode is next considered
+         private boolean turboMode;  // whether turbo mode applies, as last decided
+         private int turboInterruptsSeen; // value of turboInterrupts when it was decided
+         private int turboPC;        // address of the latest instruction started in turbo mode
       
       
          /**
@@ -215,10 +308,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	 *  @param p  the MIPSprogram to be simulated
       	 *  @param pc address in text segment of first instruction to simulate
       	 *  @param maxSteps  maximum number of instruction steps to simulate.  Default of -1 means no maximum
-      	 *  @param breakPoints  array of breakpoints (instruction addresses) specified by user
+      	 *  @param breakPoints  breakpoints specified by user, or null if none
       	 *  @param starter the GUI component responsible for this call, usually GO or STEP.  null if none.
       	 */
-          SimThread(MIPSprogram p, int pc, int maxSteps, int[] breakPoints, AbstractAction starter) {
+          SimThread(MIPSprogram p, int pc, int maxSteps, Breakpoints breakPoints, AbstractAction starter) {
             super(Globals.getGui()!=null);  
             this.p = p;
             this.pc = pc;
@@ -228,6 +321,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             this.pe = null;
             this.starter = starter;
             this.stopper = null;
+            // The run speed setting does not apply to a single step, nor to running
+            // forward from a checkpoint to reach a given instruction.
+            this.paced = maxSteps != 1 && !(starter instanceof RunGoToInstructionAction);
          }
       	
       	/**
@@ -259,19 +355,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             Thread.currentThread().setPriority(Thread.NORM_PRIORITY-1);
             Thread.yield();  // let the main thread run a bit to finish updating the GUI
          	
-            if (breakPoints == null || breakPoints.length == 0) {
-               breakPoints = null;
-            } 
-            else {
-               Arrays.sort(breakPoints);  // must be pre-sorted for binary search
-            }
-            
             Simulator.getInstance().notifyObserversOfExecutionStart(maxSteps, pc);
          	
             RegisterFile.initializeProgramCounter(pc);
+            // Instructions are fetched from the pre-decoded text segment, which the
+            // DecodedProgram keeps in step with memory.  See DecodedProgram.
+            DecodedProgram decoded = Simulator.getInstance().decodedProgram;
+            decoded.prepare();
+            DecodedInstruction instruction = null;
             ProgramStatement statement = null;
             try {
-               statement = Globals.memory.getStatement(RegisterFile.getProgramCounter());
+               instruction = decoded.fetch(RegisterFile.getProgramCounter());
             } 
                 catch (AddressErrorException e) {
                   ErrorList el = new ErrorList();
@@ -288,7 +382,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
                   return new Boolean(done);
                }
-            int steps = 0;
+            steps = 0;
          	
          	// *******************  PS addition 26 July 2006  **********************
          	// A couple statements below were added for the purpose of assuring that when
@@ -321,65 +415,81 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          	// *********************************************************************
          	
             int pc = 0;  // added: 7/26/06 (explanation above)
+            
+            // Optional basic block engine.  It needs every instruction to be free of
+         	// bookkeeping, so it stays off if anything requires per-instruction attention.
+         	// It is also bypassed below for steps, limited run speeds and while any 
+         	// breakpoint is set.  See BasicBlockCache.
+            BasicBlockCache blocks = null;
+            if (Globals.getSettings().getBooleanSetting(Settings.BASIC_BLOCK_ENGINE_ENABLED) &&
+                !Globals.getSettings().getBackSteppingEnabled() &&
+                !Globals.getSettings().getDelayedBranchingEnabled()) {
+               blocks = decoded.getBlockCache();
+            }
+            BasicBlockCache.Block block = null;
+            
+            // Checkpoints of machine state, for going back to earlier instructions in the IDE.
+            // The first is taken here if execution is just starting.  See Checkpointer.
+            Checkpointer checkpoints = null;
+            if (MachineContext.current().usesGui() && p != null && p.getCheckpointer() != null && p.getCheckpointer().enabled()) {
+               checkpoints = p.getCheckpointer();
+               checkpoints.executed(0);
+            }
+            Object lock = MachineContext.current().getLock();
          
-            while (statement != null) {
+            while (instruction != null) {
+               statement = instruction.statement;
                pc = RegisterFile.getProgramCounter(); // added: 7/26/06 (explanation above)
-               RegisterFile.incrementPC();           	
+               if (blocks != null) {
+                  block = blocks.enter(pc);
+                  if (block != null && (block.instructions[0] != instruction || 
+                      (maxSteps > 0 && steps + block.instructions.length > maxSteps) || !runningAtUnlimitedSpeed() ||
+                      (breakPoints != null && !breakPoints.isEmpty()))) {
+                     block = null;
+                  }
+               }
+               RegisterFile.incrementPC();
+               int stepsBefore = steps;           	
             	// Perform the MIPS instruction in synchronized block.  If external threads agree
             	// to access MIPS memory and registers only through synchronized blocks on same 
             	// lock variable, then full (albeit heavy-handed) protection of MIPS memory and 
             	// registers is assured.  Not as critical for reading from those resources.
-               synchronized (Globals.memoryAndRegistersLock) {
+               synchronized (lock) {
                   try {                      
                      if (Simulator.externalInterruptingDevice != NO_DEVICE) {
                         int deviceInterruptCode = externalInterruptingDevice;
                         Simulator.externalInterruptingDevice = NO_DEVICE;
                         throw new ProcessingException(statement, "External Interrupt", deviceInterruptCode);
                      }
-                     BasicInstruction instruction = (BasicInstruction)statement.getInstruction();
-                     if (instruction == null) {
+                     if (instruction.code == null) {
                         throw new ProcessingException(statement,
-                            "undefined instruction ("+Binary.intToHexString(statement.getBinaryStatement())+")",
+                            "undefined instruction ("+Binary.intToHexString(instruction.binary)+")",
                             Exceptions.RESERVED_INSTRUCTION_EXCEPTION);
                      }
                      // THIS IS WHERE THE INSTRUCTION EXECUTION IS ACTUALLY SIMULATED!
-                     instruction.getSimulationCode().simulate(statement);
+                     instruction.execute();
+                     // If it starts a compiled block, carry on through the rest of the block.
+                     // The checks that follow are made once, after its last instruction.
+                     if (block != null) {
+                        for (int i = 1; i < block.instructions.length; i++) {
+                           instruction = block.instructions[i];
+                           statement = instruction.statement;
+                           pc = RegisterFile.getProgramCounter();
+                           RegisterFile.incrementPC();
+                           Memory.getInstance().notifyStatementFetch(pc, instruction.binary);
+                           steps++;
+                           instruction.execute();
+                        }
+                     }
                   	
                   	// IF statement added 7/26/06 (explanation above)
                      if (Globals.getSettings().getBackSteppingEnabled()) {
-                        Globals.program.getBackStepper().addDoNothing(pc);
+                        MachineContext.current().getProgram().getBackStepper().addDoNothing(pc);
                      }
                   } 
                       catch (ProcessingException pe) {
-                        if (pe.errors() == null) {
-                           this.constructReturnReason = NORMAL_TERMINATION;
-                           this.done = true;
-                           SystemIO.resetFiles(); // close any files opened in MIPS program
-                           Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
-                           return new Boolean(done); // execution completed without error.
-                        } 
-                        else {
-                           // See if an exception handler is present.  Assume this is the case
-                        	// if and only if memory location Memory.exceptionHandlerAddress
-                        	// (e.g. 0x80000180) contains an instruction.  If so, then set the
-                        	// program counter there and continue.  Otherwise terminate the
-                        	// MIPS program with appropriate error message.
-                           ProgramStatement exceptionHandler = null;
-                           try {
-                              exceptionHandler = Globals.memory.getStatement(Memory.exceptionHandlerAddress);
-                           } 
-                               catch (AddressErrorException aee) { } // will not occur with this well-known addres
-                           if (exceptionHandler != null) {
-                              RegisterFile.setProgramCounter(Memory.exceptionHandlerAddress);
-                           } 
-                           else {
-                              this.constructReturnReason = EXCEPTION;
-                              this.pe = pe;
-                              this.done = true;
-                              SystemIO.resetFiles(); // close any files opened in MIPS program
-                              Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
-                              return new Boolean(done);
-                           }
+                        if (!recover(pe, pc)) {
+                           return new Boolean(done);
                         }
                      }
                }// end synchronized block
@@ -392,6 +502,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                else if (DelayedBranch.isRegistered()) {
                   DelayedBranch.trigger();
                }//////////////////////////////////////////////////////////////////////
+               
+               // Count the instructions of a block that were reached, should one of them
+               // have raised an exception.
+               if (checkpoints != null) {
+                  checkpoints.executed(steps - stepsBefore + 1);
+               }
             	
             	// Volatile variable initialized false but can be set true by the main thread.
             	// Used to stop or pause a running MIPS program.  See stopSimulation() above.
@@ -402,46 +518,86 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   return new Boolean(done);
                }
             	//	Return if we've reached a breakpoint.					
-               if((breakPoints != null) && 
-               (Arrays.binarySearch(breakPoints,RegisterFile.getProgramCounter()) >= 0)) {
+               if (breakPoints != null && breakPoints.isSet(RegisterFile.getProgramCounter())) {
                   this.constructReturnReason = BREAKPOINT;
                   this.done = false;
                   Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
                   return new Boolean(done); // false;
                }
-            	// Check number of MIPS instructions executed.  Return if at limit (-1 is no limit).
-               if (maxSteps > 0) {
-                  steps++;
-                  if (steps >= maxSteps) {
-                     this.constructReturnReason = MAX_STEPS;
-                     this.done = false;
-                     Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
-                     return new Boolean(done);// false;
-                  }
+            	// Count MIPS instructions executed.  Return if at limit (-1 is no limit).
+               steps++;
+               if (maxSteps > 0 && steps >= maxSteps) {
+                  this.constructReturnReason = MAX_STEPS;
+                  this.done = false;
+                  Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
+                  return new Boolean(done);// false;
                }
             	
-            	// schedule GUI update only if: there is in fact a GUI! AND
-            	//                              using Run,  not Step (maxSteps > 1) AND
-            	//                              running slowly enough for GUI to keep up
-               //if (Globals.getGui() != null && maxSteps != 1 &&             
-               if (interactiveGUIUpdater != null && maxSteps != 1 && 
-                          RunSpeedPanel.getInstance().getRunSpeed() < RunSpeedPanel.UNLIMITED_SPEED) {
-                  SwingUtilities.invokeLater(interactiveGUIUpdater);
+            	// When running at a limited speed, keep to the run speed setting and update
+            	// the GUI as we go.  Also applies to a stand-alone tool's run speed panel.
+               if (!runningAtUnlimitedSpeed()) {
+                  pace();
+               } 
+               else {
+                  pacedRate = 0;
+               }
+               
+               // Turbo mode.  While nothing observes the machine and no instruction needs
+               // attention, run batches of instructions free of the per-instruction work above,
+               // with the lock taken once per batch.  Whether turbo mode applies is decided 
+               // again after every batch length of instructions, and at once when a breakpoint
+               // is set or an observer added (see interruptTurbo), which also ends a batch at
+               // the next instruction.  A pause ends a batch the same way.  See turbo().
+               if (--turboCountdown <= 0 || turboInterruptsSeen != turboInterrupts) {
+                  turboInterruptsSeen = turboInterrupts;
+                  turboCountdown = TURBO_BATCH_LENGTH;
+                  turboMode = turboAllowed();
                }
-               if (Globals.getGui() != null || Globals.runSpeedPanelExists) { // OR added by DPS 24 July 2008 to enable speed control by stand-alone tool
-                  if (maxSteps != 1 && 
-                          RunSpeedPanel.getInstance().getRunSpeed() < RunSpeedPanel.UNLIMITED_SPEED) {
-                     try { Thread.sleep((int)(1000/RunSpeedPanel.getInstance().getRunSpeed())); // make sure it's never zero!
+               if (turboMode) {
+                  int count = (maxSteps > 0) ? Math.min(TURBO_BATCH_LENGTH, maxSteps - steps) : TURBO_BATCH_LENGTH;
+                  int before = steps;
+                  turboPC = pc;
+                  synchronized (lock) {
+                     try {
+                        turbo(decoded, blocks, count);
                      } 
-                         catch (InterruptedException e) {}
+                         catch (ProcessingException pe) {
+                           if (!recover(pe, turboPC)) {
+                              return new Boolean(done);
+                           }
+                           steps++;
+                        }
+                  }
+                  pc = turboPC;
+                  turboCountdown -= steps - before;
+                  if (checkpoints != null) {
+                     checkpoints.executed(steps - before);
+                  }
+                  if (stop == true) { 
+                     this.constructReturnReason = PAUSE_OR_STOP;
+                     this.done = false;
+                     Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
+                     return new Boolean(done);
+                  }
+                  // A breakpoint set during the batch may be at the next instruction.
+                  if (breakPoints != null && breakPoints.isSet(RegisterFile.getProgramCounter())) {
+                     this.constructReturnReason = BREAKPOINT;
+                     this.done = false;
+                     Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
+                     return new Boolean(done);
+                  }
+                  if (maxSteps > 0 && steps >= maxSteps) {
+                     this.constructReturnReason = MAX_STEPS;
+                     this.done = false;
+                     Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
+                     return new Boolean(done);
                   }
                }
-               
             
                // Get next instruction in preparation for next iteration.
             
                try {
-                  statement = Globals.memory.getStatement(RegisterFile.getProgramCounter());
+                  instruction = decoded.fetch(RegisterFile.getProgramCounter());
                } 
                    catch (AddressErrorException e) {
                      ErrorList el = new ErrorList();
@@ -466,7 +622,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             if (DelayedBranch.isTriggered() || DelayedBranch.isRegistered()) {
                DelayedBranch.clear();
             }
-         	// If we got here it was due to null statement, which means program
+         	// If we got here it was due to null instruction, which means program
          	// counter "fell off the end" of the program.  NOTE: Assumes the 
          	// "while" loop contains no "break;" statements.
             this.constructReturnReason = CLIFF_TERMINATION;
@@ -476,6 +632,147 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return new Boolean(done); // true;  // execution completed
          }
          
+         
+         // True if not pacing execution for a run speed slider (see pace).
+          private boolean runningAtUnlimitedSpeed() {
+            return !paced || (Globals.getGui() == null && !Globals.runSpeedPanelExists) ||
+                   RunSpeedPanel.getInstance().getRunSpeed() == RunSpeedPanel.UNLIMITED_SPEED;
+         }
+         
+         // Deal with an exception raised by the instruction at the given address.  If it is
+         // the exit syscall, execution completes.  Otherwise, if an exception handler is present,
+         // continue there.  Assume this is the case if and only if memory location 
+         // Memory.exceptionHandlerAddress (e.g. 0x80000180) contains an instruction.  If not,
+         // terminate the MIPS program with appropriate error message.  Returns true if 
+         // execution continues, false if it has ended.
+          private boolean recover(ProcessingException pe, int pc) {
+            if (!pe.isError()) {
+               this.constructReturnReason = NORMAL_TERMINATION;
+               this.done = true;
+               SystemIO.resetFiles(); // close any files opened in MIPS program
+               Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
+               return false; // execution completed without error.
+            } 
+            ProgramStatement exceptionHandler = null;
+            try {
+               exceptionHandler = Memory.getInstance().getStatement(Memory.exceptionHandlerAddress);
+            } 
+                catch (AddressErrorException aee) { } // will not occur with this well-known addres
+            if (exceptionHandler != null) {
+               RegisterFile.setProgramCounter(Memory.exceptionHandlerAddress);
+               return true;
+            } 
+            this.constructReturnReason = EXCEPTION;
+            this.pe = pe;
+            this.done = true;
+            SystemIO.resetFiles(); // close any files opened in MIPS program
+            Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
+            return false;
+         }
+         
+         // True if turbo mode may be used for the next batch: nothing observes memory or
+         // registers, and nothing needs checking after each instruction.
+          private boolean turboAllowed() {
+            return !stop && runningAtUnlimitedSpeed() && (breakPoints == null || breakPoints.isEmpty()) &&
+                   !Globals.getSettings().getBackSteppingEnabled() && 
+                   !Globals.getSettings().getDelayedBranchingEnabled() &&
+                   Simulator.externalInterruptingDevice == NO_DEVICE &&
+                   !Memory.getInstance().isObserved() && !RegisterFile.isObserved() &&
+                   !Coprocessor0.isObserved() && !Coprocessor1.isObserved();
+         }
+         
+         // Turbo mode: execute up to count instructions with none of the per-instruction work 
+         // of construct(), using the basic block engine if it is on and otherwise running
+         // common two-statement sequences as one (see Fusion).  Stops early at an 
+         // instruction the decoded program does not hold or cannot run, leaving that one to
+         // construct().  Also stops before the next instruction if interruptTurbo() is called
+         // or the run is paused.  Instructions are counted in steps as they complete, and 
+         // turboPC is the address of the latest one started.  The caller holds the lock.
+          private void turbo(DecodedProgram decoded, BasicBlockCache blocks, int count) throws ProcessingException {
+            int limit = steps + count;
+            while (steps < limit) {
+               if (turboInterruptsSeen != turboInterrupts || stop) {
+                  return;
+               }
+               int address = RegisterFile.getProgramCounter();
+               if ((address & 3) != 0) {
+                  return;
+               }
+               DecodedInstruction instruction = decoded.instructionAt(address);
+               if (instruction == null || instruction.code == null) {
+                  return;
+               }
+               if (blocks != null) {
+                  BasicBlockCache.Block block = blocks.enter(address);
+                  int length = (block == null) ? 0 : block.instructions.length;
+                  if (block != null && block.instructions[0] == instruction && steps + length <= limit) {
+                     try {
+                        block.run();
+                     } 
+                         catch (ProcessingException pe) {
+                           turboPC = RegisterFile.getProgramCounter() - Instruction.INSTRUCTION_LENGTH;
+                           steps += (turboPC - address) / Instruction.INSTRUCTION_LENGTH;
+                           throw pe;
+                        }
+                     turboPC = address + (length - 1) * Instruction.INSTRUCTION_LENGTH;
+                     steps += length;
+                     continue;
+                  }
+               }
+               Fusion fusion = decoded.fusionAt(address);
+               if (fusion != null && fusion.first == instruction && steps + 2 <= limit) {
+                  steps++;
+                  turboPC = address + Instruction.INSTRUCTION_LENGTH;
+                  fusion.execute();
+                  steps++;
+                  continue;
+               }
+               turboPC = address;
+               RegisterFile.incrementPC();
+               instruction.execute();
+               steps++;
+            }
+         }
+         
+         // Called after each instruction of a paced run.  Instructions run in bursts of one
+         // display frame's worth (at least one instruction), and after each burst we sleep 
+         // until the schedule catches up, then refresh the GUI.  The schedule is reckoned in 
+         // System.nanoTime() from its start, so oversleeping does not accumulate into drift.
+         // A refresh is not queued while the previous one is still waiting to run, so the 
+         // GUI gets at most one per frame however far behind it is.  Moving the slider, or
+         // falling well behind (e.g. waiting for input), starts a new schedule.
+          private void pace() {
+            double rate = RunSpeedPanel.getInstance().getRunSpeed();
+            if (rate != pacedRate) {
+               pacedRate = rate;
+               pacingStart = System.nanoTime();
+               pacedSteps = 0;
+            }
+            pacedSteps++;
+            long burst = (long) Math.ceil(rate * FRAME_NANOS / 1.0e9);
+            if (pacedSteps % burst != 0) {
+               return;
+            }
+            long due = pacingStart + (long) (pacedSteps * 1.0e9 / rate);
+            long now = System.nanoTime();
+            if (now - due > MAXIMUM_LAG_NANOS) {
+               pacingStart = now;
+               pacedSteps = 0;
+            }
+            // Sleep in slices so Stop, Pause and the slider take effect within a frame or so.
+            while (due - now > 0 && !stop && RunSpeedPanel.getInstance().getRunSpeed() == rate) {
+               long nap = Math.min(due - now, 4 * FRAME_NANOS);
+               try { 
+                  Thread.sleep(nap / 1000000, (int) (nap % 1000000));
+               } 
+                   catch (InterruptedException e) {}
+               now = System.nanoTime();
+            }
+            if (interactiveGUIUpdater != null && !guiUpdatePending) {
+               guiUpdatePending = true;
+               SwingUtilities.invokeLater(interactiveGUIUpdater);
+            }
+         }
       	
       	/**
       	 *   This method is invoked by the SwingWorker when the "construct" method returns.  
@@ -513,6 +810,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   }
                }
             }
+            if (starterName.equals("Go to Instruction...")) {
+               // Stop ends execution; Pause just ends the run forward short of the instruction.
+               boolean stopped = stopper != null && "Stop".equals(stopper.getValue(AbstractAction.NAME));
+               ((RunGoToInstructionAction)starter).arrived(done || stopped,constructReturnReason,pe);
+            }
             return;
          }
          
@@ -520,6 +822,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
        private class UpdateGUI implements Runnable {
           public void run() {
+            guiUpdatePending = false;
             if (Globals.getGui().getRegistersPane().getSelectedComponent() == 
                                                      Globals.getGui().getMainPane().getExecutePane().getRegistersWindow()) {
                Globals.getGui().getMainPane().getExecutePane().getRegistersWindow().updateRegisters();
@@ -0,0 +1,131 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Simulated time for the Time and Sleep syscalls, used in place of the host's clock 
+ * when enabled from the command line.  Virtual time starts at zero when the machine 
+ * is created and advances by one cycle of a nominal clock for every instruction
+ * executed, plus whatever the program sleeps.  Sleeping only advances the clock, so
+ * a program that sleeps in a loop runs at full speed, and since time depends only 
+ * on what the program does, so do its results.
+ * <p>
+ * The clock rate applies to every machine; each MachineContext's Simulator has its
+ * own clock.
+ *
+ * @see mars.mips.instructions.syscalls.SyscallTime
+ * @see mars.mips.instructions.syscalls.SyscallSleep
+ */
+
+    public class VirtualClock {
+      /** Clock rate used when the virtual clock is enabled without one, in instructions per second. */
+      public static final long DEFAULT_CLOCK_RATE = 1000000;
+      private static volatile long clockRate = 0; // instructions per second, 0 for host time
+      private final Simulator simulator;
+      private long sleptMillis;
+      private long instructionOffset; // added to the simulator's count, set by setState()
+   
+       VirtualClock(Simulator simulator) {
+         this.simulator = simulator;
+      }
+   
+   	/**
+   	 * Enable the virtual clock for all machines, or disable it to use host time.
+   	 *
+   	 * @param instructionsPerSecond nominal clock rate, one instruction per cycle; 0 to disable.
+   	 */
+       public static void setClockRate(long instructionsPerSecond) {
+         clockRate = Math.max(0, instructionsPerSecond);
+      }
+   
+   	/**
+   	 * Get the nominal clock rate.
+   	 *
+   	 * @return instructions per second, or 0 if the virtual clock is disabled.
+   	 */
+       public static long getClockRate() {
+         return clockRate;
+      }
+   
+   	/**
+   	 * Determine whether the Time and Sleep syscalls use virtual time.
+   	 */
+       public static boolean isEnabled() {
+         return clockRate > 0;
+      }
+   
+   	/**
+   	 * Get the virtual clock of the current MachineContext.
+   	 */
+       public static VirtualClock getInstance() {
+         return Simulator.getInstance().getVirtualClock();
+      }
+   
+   	/**
+   	 * Get the current virtual time.
+   	 *
+   	 * @return milliseconds since the machine was created.
+   	 */
+       public long currentTimeMillis() {
+         long rate = clockRate;
+         long executed = (rate > 0) ? (simulator.getInstructionsExecuted() + instructionOffset) * 1000 / rate : 0;
+         return executed + sleptMillis;
+      }
+   
+   	/**
+   	 * Advance the clock as if the program slept.
+   	 *
+   	 * @param millis length of the sleep; ignored if not positive.
+   	 */
+       public void sleep(long millis) {
+         if (millis > 0) {
+            sleptMillis += millis;
+         }
+      }
+   
+   	/**
+   	 * Get the state of the clock, for a checkpoint.
+   	 *
+   	 * @return the instructions counted and milliseconds slept so far.
+   	 */
+       public long[] getState() {
+         return new long[] { simulator.getInstructionsExecuted() + instructionOffset, sleptMillis };
+      }
+   
+   	/**
+   	 * Set the clock back to a state returned by getState(), so that it reads the same
+   	 * times again as execution goes forward from that point.
+   	 *
+   	 * @param state the instructions counted and milliseconds slept.
+   	 */
+       public void setState(long[] state) {
+         instructionOffset = state[0] - simulator.getInstructionsExecuted();
+         sleptMillis = state[1];
+      }
+   }
@@ -74,6 +74,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// For MarsTool, is set true when "Connect" clicked, false when "Disconnect" clicked.
    	// For app, is set true when "Assemble and Run" clicked, false when program terminates.
       private volatile boolean observing = false;
+   	// Carries accesses to the tool's thread if it does not require synchronous updates.
+      private static final int EVENT_BUFFER_CAPACITY = 1 << 16; // records
+      private static final int EVENT_BATCH_LENGTH = 4096;       // records processed per display update
+      private AccessEventStream eventStream = null;
    
    	// Several structures required for stand-alone use only (not MarsTool use)
       private File mostRecentlyOpenedFile = null; 
@@ -480,6 +484,42 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        protected void processMIPSUpdate(Observable resource, AccessNotice notice) {
       }
+   
+   	/**
+   	 * Override this method to return false if the tool/app does not need to process accesses
+   	 * as they occur.  It will then not be called through update() and processMIPSUpdate().
+   	 * Instead, accesses by the MIPS program to the memory and registers it observes are 
+   	 * recorded in a buffer and passed to processMemoryAccess() and processRegisterAccess() 
+   	 * on a thread of its own, with updateDisplay() invoked after each batch.  The MIPS 
+   	 * program is then slowed only if the tool falls far behind.  This suits tools that 
+   	 * gather statistics or visualize activity.  Tools that must respond before the MIPS
+   	 * program continues, such as simulated memory mapped devices, should not override it.
+   	 * @return true (the default) if notices must be processed synchronously
+   	 */
+       protected boolean requiresSynchronousUpdates() {
+         return true;
+      }
+   
+   	/**
+   	 * Override this method to process an access to MIPS memory by the MIPS program, for a 
+   	 * tool/app that does not require synchronous updates.  By default it does nothing.
+   	 * @param type AccessNotice.READ or AccessNotice.WRITE
+   	 * @param address the memory address accessed
+   	 * @param length length of the access in bytes (4, 2 or 1)
+   	 * @param value the value read or written
+   	 */
+       protected void processMemoryAccess(int type, int address, int length, int value) {
+      }
+   
+   	/**
+   	 * Override this method to process an access to a MIPS register by the MIPS program, for
+   	 * a tool/app that does not require synchronous updates.  By default it does nothing.
+   	 * @param type AccessNotice.READ or AccessNotice.WRITE
+   	 * @param register the register accessed
+   	 * @param value the register value following the access
+   	 */
+       protected void processRegisterAccess(int type, Register register, int value) {
+      }
    	
    	/**
    	 *  This method is called when tool/app is exited either through the close/exit button or the window's X box.
@@ -520,7 +560,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        protected void addAsObserver(int lowEnd, int highEnd) {
          String errorMessage = "Error connecting to MIPS memory";
          try {
-            Globals.memory.addObserver(thisMarsApp,lowEnd, highEnd);
+            Globals.memory.addObserver(getObserver(),lowEnd, highEnd);
          } 
              catch (AddressErrorException aee) {
                if (this.isBeingUsedAsAMarsTool) {
@@ -537,7 +577,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        protected void addAsObserver(Register reg) {
          if (reg != null) {
-            reg.addObserver(thisMarsApp);
+            Observer observer = getObserver();
+            if (observer == eventStream) {
+               eventStream.addRegister(reg);
+            }
+            reg.addObserver(observer);
          }
       }
    
@@ -553,6 +597,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 
        protected void deleteAsObserver() {
          Globals.memory.deleteObserver(thisMarsApp);
+         if (eventStream != null) {
+            Globals.memory.deleteObserver(eventStream);
+         }
       }
    
       /**
@@ -562,6 +609,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        protected void deleteAsObserver(Register reg) {
          if (reg != null) {
             reg.deleteObserver(thisMarsApp);
+            if (eventStream != null) {
+               reg.deleteObserver(eventStream);
+            }
          }
       }
    	
@@ -605,6 +655,27 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    ////////////////////  PRIVATE HELPER METHODS    //////////////////////////////////
    //////////////////////////////////////////////////////////////////////////////////
    
+       // The observer to register with MIPS memory and registers: the tool/app itself, or
+   	 // if it does not require synchronous updates, its event stream.
+       private Observer getObserver() {
+         if (requiresSynchronousUpdates()) {
+            return thisMarsApp;
+         }
+         if (eventStream == null) {
+            eventStream = new AccessEventStream();
+         }
+         return eventStream;
+      }
+   
+       // Stop accepting accesses into the event stream, if any.  Its thread finishes
+   	 // processing those already recorded.
+       private void closeEventStream() {
+         if (eventStream != null) {
+            eventStream.close();
+            eventStream = null;
+         }
+      }
+   
        // Closing duties for MarsTool only.
        private void performToolClosingDuties() {
          performSpecialClosingDuties();
@@ -653,6 +724,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             synchronized (Globals.memoryAndRegistersLock) {// DPS 23 July 2008
                deleteAsObserver();
             }
+            closeEventStream();
             observing = false;
             setText(connectText);
          }
@@ -755,6 +827,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                }
             finally {
                deleteAsObserver();
+               closeEventStream();
                observing = false;
                operationStatusMessages.displayTerminatingMessage(terminatingMessage+fileToAssemble);
             } 
@@ -763,6 +836,87 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    
+       //////////////////////////////////////////////////////////////////////////
+   	 //  Observer of MIPS memory and registers for a tool/app that does not require 
+   	 //  synchronous updates.  Accesses by the MIPS program are recorded in a buffer,
+   	 //  which a thread of its own drains in batches.  Registers are recorded by their 
+   	 //  position in the list of those observed.
+       private class AccessEventStream implements Observer, MemoryAccessListener, AccessEventBuffer.Handler, Runnable {
+         private AccessEventBuffer buffer = new AccessEventBuffer(EVENT_BUFFER_CAPACITY);
+         private Vector registers = new Vector();
+      	
+          public AccessEventStream() {
+            Thread thread = new Thread(this, "Tool events: "+getName());
+            thread.setDaemon(true);
+            thread.start();
+         }
+      	
+          public void addRegister(Register reg) {
+            if (!registers.contains(reg)) {
+               registers.add(reg);
+            }
+         }
+      	
+          public void close() {
+            buffer.close();
+         }
+      
+         // Memory accesses, on the thread making them.  Only those by the MIPS program are 
+      	// recorded, as with update() of the enclosing class.  (That thread's name starts
+      	// with "MIPS"; see AccessNotice.)
+          public void memoryAccessed(int type, int address, int length, int value) {
+            if (Thread.currentThread().getName().startsWith("MIPS")) {
+               buffer.put(AccessEventBuffer.MEMORY, type, address, length, value);
+            }
+         }
+      
+         // Register accesses, on the thread making them.
+          public void update(Observable resource, Object accessNotice) {
+            if (accessNotice instanceof RegisterAccessNotice && ((AccessNotice)accessNotice).accessIsFromMIPS()) {
+               int source = registers.indexOf(resource);
+               if (source >= 0) {
+                  buffer.put(source, ((AccessNotice)accessNotice).getAccessType(), 0, 
+                     Memory.WORD_LENGTH_BYTES, ((Register)resource).getValueNoNotify());
+               }
+            }
+         }
+      
+         // One record.  A tool failing on it is reported, and the stream goes on with 
+         // the next record.
+          public void accessEvent(int source, int type, int address, int length, int value) {
+            try {
+               if (source == AccessEventBuffer.MEMORY) {
+                  processMemoryAccess(type, address, length, value);
+               } 
+               else {
+                  processRegisterAccess(type, (Register)registers.get(source), value);
+               }
+            } 
+                catch (RuntimeException e) {
+                  System.err.println("Tool "+getName()+" failed on an access event:");
+                  e.printStackTrace();
+               }
+         }
+      
+         // Drain the buffer until closed and empty.  Should this thread end any other 
+         // way, the buffer is closed so the simulator does not wait on it.
+          public void run() {
+            try {
+               while (!buffer.isClosed() || !buffer.isEmpty()) {
+                  if (buffer.drain(this, EVENT_BATCH_LENGTH) > 0) {
+                     updateDisplay();
+                  } 
+                  else {
+                     buffer.await(1000000L); // 1 ms
+                  }
+               }
+            } 
+            finally {
+               buffer.close();
+            }
+         }
+      }
+   
        //////////////////////////////////////////////////////////////////////////
    	 //  Class for text message field used to update operation status when
    	 //  assembling and running MIPS programs.
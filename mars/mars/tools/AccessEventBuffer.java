@@ -0,0 +1,154 @@
+   package mars.tools;
+   import java.util.concurrent.atomic.AtomicLong;
+   import java.util.concurrent.locks.LockSupport;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Lock-free ring buffer of memory and register access records, written by the thread
+ * executing the MIPS program and read by one tool thread.  A record is four ints:  the
+ * source (MEMORY, or a register number assigned by the reader), the access type and
+ * length, the address and the value.  Nothing is allocated per record.
+ * <p>
+ * The writer waits while the buffer is full, so a reader that falls behind slows the
+ * simulation rather than losing records.  Once the buffer is closed, or the reading
+ * thread has ended, the writer no longer waits and further records are discarded.
+ */
+
+    final class AccessEventBuffer {
+      /** Source of a record for a memory access. */
+      static final int MEMORY = -1;
+      private static final int RECORD_LENGTH = 4;
+      
+      private final int[] records;
+      private final int mask;  // capacity - 1
+      private final AtomicLong head = new AtomicLong(); // next record to read; advanced only by reader
+      private final AtomicLong tail = new AtomicLong(); // next record to write; advanced only by writer
+      private volatile boolean closed = false;
+      private volatile Thread reader;  // reading thread, to wake when writer is waiting
+   
+    /**
+     *  Receives records as they are taken from the buffer.
+     */
+       interface Handler {
+          void accessEvent(int source, int type, int address, int length, int value);
+      }
+   
+    /**
+     *  Create an empty buffer.
+     *  @param capacity maximum number of records held, must be a power of 2
+     */
+       AccessEventBuffer(int capacity) {
+         if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity "+capacity+" is not a power of 2");
+         }
+         records = new int[capacity * RECORD_LENGTH];
+         mask = capacity - 1;
+      }
+   
+    /**
+     *  Add a record.  Must be called only from the writing thread.  Waits while the 
+     *  buffer is full.  If the reading thread has ended meanwhile, the buffer is closed.
+     *  @return true if the record was added, false if the buffer is closed
+     */
+       boolean put(int source, int type, int address, int length, int value) {
+         long t = tail.get();
+         while (t - head.get() > mask) {
+            if (closed) {
+               return false;
+            }
+            Thread r = reader;
+            if (r != null) {
+               if (!r.isAlive()) {
+                  close();
+                  return false;
+               }
+               LockSupport.unpark(r);
+            }
+            Thread.yield();
+         }
+         if (closed) {
+            return false;
+         }
+         int i = (int) (t & mask) * RECORD_LENGTH;
+         records[i] = source;
+         records[i+1] = (type << 8) | length;
+         records[i+2] = address;
+         records[i+3] = value;
+         tail.lazySet(t + 1); // publishes the record
+         return true;
+      }
+   
+    /**
+     *  Take up to the given number of records, oldest first, passing each to the handler.
+     *  Must be called only from the reading thread.
+     *  @return number of records taken
+     */
+       int drain(Handler handler, int maximum) {
+         reader = Thread.currentThread();
+         long h = head.get();
+         int count = (int) Math.min(tail.get() - h, maximum);
+         for (int n = 0; n < count; n++) {
+            int i = (int) ((h + n) & mask) * RECORD_LENGTH;
+            handler.accessEvent(records[i], records[i+1] >>> 8, records[i+2], records[i+1] & 0xFF, records[i+3]);
+         }
+         head.lazySet(h + count); // frees the slots
+         return count;
+      }
+   
+    /**
+     *  Called by the reading thread when it finds the buffer empty.  Waits up to the
+     *  given time, less if the writer finds the buffer full.
+     */
+       void await(long nanos) {
+         reader = Thread.currentThread();
+         if (tail.get() == head.get() && !closed) {
+            LockSupport.parkNanos(this, nanos);
+         }
+      }
+   
+       boolean isEmpty() {
+         return tail.get() == head.get();
+      }
+   
+    /**
+     *  Stop accepting records.  Those already in the buffer can still be drained.
+     */
+       void close() {
+         closed = true;
+         Thread r = reader;
+         if (r != null) {
+            LockSupport.unpark(r);
+         }
+      }
+   
+       boolean isClosed() {
+         return closed;
+      }
+   }
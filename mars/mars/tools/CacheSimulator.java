@@ -412,14 +412,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       //////////////////////////////////////////////////////////////////////////////////////
    	
       /**
-   	 * Apply caching policies and update display when connected MIPS program accesses (data) memory.
-   	 * @param memory the attached memory
-   	 * @param accessNotice information provided by memory in MemoryAccessNotice object
+   	 * The cache is simulated on the tool's own thread, so that animation and display
+   	 * updates do not hold up the MIPS program.
+   	 * @return false
    	 */
-       protected void processMIPSUpdate(Observable memory, AccessNotice accessNotice) {
-         MemoryAccessNotice notice = (MemoryAccessNotice) accessNotice;
+       protected boolean requiresSynchronousUpdates() {
+         return false;
+      }
+   
+      /**
+   	 * Apply caching policies when connected MIPS program accesses (data) memory.  The display
+   	 * is updated after each batch of accesses.
+   	 * @param type the type of access (read or write)
+   	 * @param address the memory address accessed
+   	 * @param length the length of the access in bytes
+   	 * @param value the value read or written
+   	 */
+       protected void processMemoryAccess(int type, int address, int length, int value) {
          memoryAccessCount++;
-         CacheAccessResult cacheAccessResult = theCache.isItAHitThenReadOnMiss(notice.getAddress());
+         CacheAccessResult cacheAccessResult = theCache.isItAHitThenReadOnMiss(address);
          if (cacheAccessResult.isHit()) {
             cacheHitCount++;
             animations.showHit(cacheAccessResult.getBlock());
@@ -202,16 +202,20 @@ public class InstructionCounter extends AbstractMarsToolAndApplication {
 	}
 
 //	@Override
-	protected void processMIPSUpdate(Observable resource, AccessNotice notice) {
-		if (!notice.accessIsFromMIPS()) return;
-		if (notice.getAccessType() != AccessNotice.READ) return;
-		MemoryAccessNotice m = (MemoryAccessNotice) notice;
-		int a = m.getAddress();
-		if (a == lastAddress) return;
-		lastAddress = a;
+	protected boolean requiresSynchronousUpdates() {
+		return false;
+	}
+
+//	@Override
+	protected void processMemoryAccess(int type, int address, int length, int value) {
+		if (type != AccessNotice.READ) return;
+		if (address == lastAddress) return;
+		lastAddress = address;
 		counter++;
 		try {
-			ProgramStatement stmt = Memory.getInstance().getStatement(a);
+			ProgramStatement stmt = Memory.getInstance().getStatementNoNotify(address);
+			// null if the program has run off the end of the text segment
+			if (stmt == null) return;
 			BasicInstruction instr = (BasicInstruction) stmt.getInstruction();
 			BasicInstructionFormat format = instr.getInstructionFormat();
 			if (format == BasicInstructionFormat.R_FORMAT)
@@ -225,7 +229,6 @@ public class InstructionCounter extends AbstractMarsToolAndApplication {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
-		updateDisplay();
 	}
 	
 //	@Override
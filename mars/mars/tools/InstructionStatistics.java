@@ -262,28 +262,36 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    	
+   /**
+    * The tool only gathers statistics, so it receives accesses through its own thread 
+    * rather than holding up the simulator.
+    * 
+    * @return false
+    */
+       protected boolean requiresSynchronousUpdates() {
+         return false;
+      }
+   
+   	
    /**
     * method that is called each time the MIPS simulator accesses the text segment.
     * Before an instruction is executed by the simulator, the instruction is fetched from the program memory. 
     * This memory access is observed and the corresponding instruction is decoded and categorized by the tool.
-    * According to the category the counter values are increased and the display gets updated. 
+    * According to the category the counter values are increased; the display is updated
+    * after each batch of accesses. 
     * 
-    * @param resource the observed resource
-    * @param notice signals the type of access (memory, register etc.)
+    * @param type the type of access (read or write)
+    * @param address the memory address accessed
+    * @param length the length of the access in bytes
+    * @param value the value read or written
     */
-       protected void processMIPSUpdate(Observable resource, AccessNotice notice) {
-      		
-         if (!notice.accessIsFromMIPS()) 
-            return;			
+       protected void processMemoryAccess(int type, int address, int length, int value) {
       
       // check for a read access in the text segment 
-         if (notice.getAccessType() == AccessNotice.READ && notice instanceof MemoryAccessNotice) {
-         
-         // now it is safe to make a cast of the notice
-            MemoryAccessNotice memAccNotice = (MemoryAccessNotice) notice;		
+         if (type == AccessNotice.READ) {
          
          // The next three statments are from Felipe Lessa's instruction counter.  Prevents double-counting.			
-            int a = memAccNotice.getAddress();
+            int a = address;
             if (a == lastAddress) 
                return;
             lastAddress = a;
@@ -291,7 +299,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             try {
             
             // access the statement in the text segment without notifying other tools etc.
-               ProgramStatement stmt = Memory.getInstance().getStatementNoNotify(memAccNotice.getAddress());
+               ProgramStatement stmt = Memory.getInstance().getStatementNoNotify(address);
             
             // necessary to handle possible null pointers at the end of the program 
             // (e.g., if the simulator tries to execute the next instruction after the last instruction in the text segment) 
@@ -300,7 +308,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                			
                   m_totalCounter ++;
                   m_counters[category] ++;
-                  updateDisplay();					
                }								
             } 
                 catch (AddressErrorException e) {			
@@ -195,13 +195,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       //////////////////////////////////////////////////////////////////////////////////////
    	
       /**
-   	 * Update display when connected MIPS program accesses (data) memory.
-   	 * @param memory the attached memory
-   	 * @param accessNotice information provided by memory in MemoryAccessNotice object
+   	 * Accesses are only counted and displayed, so they are received on the tool's own
+   	 * thread rather than holding up the MIPS program while the display is repainted.
+   	 * @return false
    	 */
-       protected void processMIPSUpdate(Observable memory, AccessNotice accessNotice) {
-         incrementReferenceCountForAddress(((MemoryAccessNotice)accessNotice).getAddress());
-         updateDisplay();
+       protected boolean requiresSynchronousUpdates() {
+         return false;
+      }
+   
+      /**
+   	 * Count the reference when connected MIPS program accesses (data) memory.  The
+   	 * display is updated after each batch of accesses.
+   	 * @param type the type of access (read or write)
+   	 * @param address the memory address accessed
+   	 * @param length the length of the access in bytes
+   	 * @param value the value read or written
+   	 */
+       protected void processMemoryAccess(int type, int address, int length, int value) {
+         incrementReferenceCountForAddress(address);
       }
    	
    
@@ -0,0 +1,241 @@
+   package mars.util;
+   import java.io.*;
+   import java.nio.charset.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+
+/**
+ * Console input read in full before the program first asks for any, then handed out
+ * from memory.  Enabled from the command line for runs whose input comes from a file,
+ * it spares the read syscalls a BufferedReader and lets an integer be parsed where it
+ * lies, with no String made for it.  Each read syscall still takes one line, just as
+ * through the BufferedReader, so results are the same.  Reads from file descriptor 0
+ * take bytes from the same place, since this is the STDIN stream while enabled.
+ * <p>
+ * Waiting for all the input before starting suits redirected input, not a person at a
+ * keyboard.  Lines are found in the bytes, so this is used only where the default 
+ * character set encodes the ASCII characters as single bytes that occur in no other 
+ * character, as UTF-8 and the ISO-8859 sets do.
+ *
+ * @see SystemIO
+ */
+    public final class InputScanner extends InputStream
+   {
+    /** Returned by readIntLine() when the next line is not simply an integer. */
+      public static final long NOT_AN_INT = Long.MIN_VALUE;
+   
+      private static volatile boolean enabled = false;
+      private static final Charset charset = Charset.defaultCharset();
+      private static final boolean asciiCompatible = 
+         charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) ||
+         charset.name().startsWith("ISO-8859-");
+   
+      private final InputStream source;
+      private byte[] bytes; // all of the input, once read
+      private int position; // index of the next byte to hand out
+   
+    /**
+     * Set whether console input is read in full and scanned, for every machine whose console 
+     * input is not yet being read.
+     * @param enable true to read console input in full, false to read it a line at a time
+     */
+       public static void setEnabled(boolean enable)
+      {
+         enabled = enable;
+      }
+   
+    /**
+     * Determine whether console input is read in full and scanned.  It is only if so set, 
+     * and the default character set allows it.
+     * @return true if console input should be read through an InputScanner
+     */
+       public static boolean isEnabled()
+      {
+         return enabled && asciiCompatible;
+      }
+   
+    /**
+     * Create a scanner of the given input.  Nothing is read until first asked for.
+     * @param source the console input stream
+     */
+       public InputScanner(InputStream source)
+      {
+         this.source = source;
+      }
+   
+    /**
+     * Read the next line, as BufferedReader.readLine() would.  It ends at a line feed, a
+     * carriage return, or a carriage return followed by a line feed.
+     * @return the line, not including its terminator, or null at the end of the input
+     */
+       public String readLine()
+      {
+         fill();
+         if (position >= bytes.length)
+         {
+            return null;
+         }
+         int start = position;
+         int end = lineEnd(start);
+         skipLine(end);
+         return new String(bytes, start, end - start, charset);
+      }
+   
+    /**
+     * Read the next line as an integer, if it is simply one: optional spaces or other 
+     * control characters, an optional sign, decimal digits giving a value within int range,
+     * then optional spaces.  Otherwise nothing is read and NOT_AN_INT is returned, and the 
+     * line should be read by readLine() and parsed as a string, so that whatever happens to 
+     * such a line there happens the same here.
+     * @return the value, or NOT_AN_INT
+     */
+       public long readIntLine()
+      {
+         fill();
+         int end = lineEnd(position);
+         int i = position;
+         while (i < end && (bytes[i] & 0xFF) <= ' ')
+         {
+            i++;
+         }
+         boolean negative = false;
+         if (i < end && (bytes[i] == '-' || bytes[i] == '+'))
+         {
+            negative = bytes[i] == '-';
+            i++;
+         }
+         int digits = i;
+         long value = 0;
+         while (i < end && bytes[i] >= '0' && bytes[i] <= '9')
+         {
+            value = value * 10 + (bytes[i] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1)
+            {
+               return NOT_AN_INT;
+            }
+            i++;
+         }
+         if (i == digits || (!negative && value > Integer.MAX_VALUE))
+         {
+            return NOT_AN_INT;
+         }
+         while (i < end && (bytes[i] & 0xFF) <= ' ')
+         {
+            i++;
+         }
+         if (i < end)
+         {
+            return NOT_AN_INT;
+         }
+         skipLine(end);
+         return negative ? -value : value;
+      }
+   
+    /**
+     * Read one byte of the input.
+     * @return the byte, or -1 at the end of the input
+     */
+       public int read()
+      {
+         fill();
+         return (position < bytes.length) ? (bytes[position++] & 0xFF) : -1;
+      }
+   
+    /**
+     * Read bytes of the input.
+     * @param buffer the array to put them in
+     * @param offset index in the array of the first byte read
+     * @param length most bytes to read
+     * @return number of bytes read, or -1 at the end of the input
+     */
+       public int read(byte[] buffer, int offset, int length)
+      {
+         fill();
+         if (length == 0)
+         {
+            return 0;
+         }
+         if (position >= bytes.length)
+         {
+            return -1;
+         }
+         int count = Math.min(length, bytes.length - position);
+         System.arraycopy(bytes, position, buffer, offset, count);
+         position += count;
+         return count;
+      }
+   
+    /**
+     * Determine how many bytes of the input remain.
+     * @return number of bytes not yet read
+     */
+       public int available()
+      {
+         fill();
+         return bytes.length - position;
+      }
+   
+      // Read all of the input the first time any is needed.  A failure to read ends the input.
+       private void fill()
+      {
+         if (bytes == null)
+         {
+            try
+            {
+               bytes = source.readAllBytes();
+            } 
+                catch (IOException e)
+               {
+                  bytes = new byte[0];
+               }
+         }
+      }
+   
+      // Index of the terminator of the line starting at the given index, or of the end of the input.
+       private int lineEnd(int start)
+      {
+         int end = start;
+         while (end < bytes.length && bytes[end] != '\n' && bytes[end] != '\r')
+         {
+            end++;
+         }
+         return end;
+      }
+   
+      // Move past the line terminator at the given index, if there is one.
+       private void skipLine(int end)
+      {
+         position = end;
+         if (position < bytes.length && bytes[position++] == '\r' && position < bytes.length && bytes[position] == '\n')
+         {
+            position++;
+         }
+      }
+   }
@@ -125,7 +125,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public static int getAddressOfFirstNull(int baseAddress, int limitAddress) throws AddressErrorException {
          int address = baseAddress;
          for (; address < limitAddress; address += Memory.WORD_LENGTH_BYTES) {
-            if (Globals.memory.getRawWordOrNull(address) == null) {
+            if (Memory.getInstance().getRawWordOrNull(address) == null) {
                break;
             } 
          }
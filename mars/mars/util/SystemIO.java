@@ -1,6 +1,15 @@
    package mars.util;
    import mars.*;
    import java.io.*;
+   import mars.mips.hardware.*;
+   import java.nio.ByteBuffer;
+   import java.nio.ByteOrder;
+   import java.nio.channels.FileChannel;
+   import java.nio.file.InvalidPathException;
+   import java.nio.file.Path;
+   import java.nio.file.Paths;
+   import java.nio.file.StandardOpenOption;
+   import java.util.Timer; // not javax.swing.Timer
    import javax.swing.*;
    import java.util.*;
 	
@@ -37,7 +46,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  * routines.  These methods will detect whether the simulator is being
  * run from the command line or through the GUI, then do I/O to
  * System.in and System.out in the former situation, and interact with
- * the GUI in the latter.
+ * the GUI in the latter.  Both the console and the open files are those
+ * of the current MachineContext.
  *
  * @author Pete Sanderson and Ken Vollmar
  * @version August 2003-2005
@@ -48,8 +58,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       public static final int SYSCALL_BUFSIZE = 128;
     /** Maximum number of files that can be open */
       public static final int SYSCALL_MAXFILES = 32;
-    /** String used for description of file error */
-      public static String fileErrorString = new String("File operation OK");
+    /** Console output held before it is written in command mode: once a line ends with
+     *  this much pending, it is written out.  Less is written out after OUTPUT_DELAY. */
+      public static final int OUTPUT_BUFSIZE = 8192;
+    /** Longest time, in milliseconds, that console output is held in command mode. */
+      public static final int OUTPUT_DELAY = 50;
+   
+      // Writes out held console output in command mode.  Created on first use.
+      private static Timer outputTimer;
+      // The consoles whose output is waiting for the timer, to be written out at exit.
+      private static final LinkedHashSet<FileIOData> heldOutput = new LinkedHashSet<FileIOData>();
    
       private static final int O_RDONLY = 0x00000000;
       private static final int O_WRONLY = 0x00000001;
@@ -64,9 +82,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final int STDOUT = 1;
       private static final int STDERR = 2;
    
-      // Will use one buffered reader for all keyboard/redirected/piped input.
-   	// Added by DPS 28 Feb 2008.  See getInputReader() below.
-      private static BufferedReader inputReader = null;
+      // origins of the offset given to seekFile()
+      private static final int SEEK_SET = 0;
+      private static final int SEEK_CUR = 1;
+      private static final int SEEK_END = 2;
+   
+      // most bytes moved at a time between a file and memory
+      private static final int TRANSFER_BUFSIZE = 65536;
    
     /**
      * Implements syscall to read an integer value.  
@@ -77,12 +99,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
        public static int readInteger(int serviceNumber)
       {
+         flushOutput();
          String input = "0";
-         if (Globals.getGui() == null)
+         if (!MachineContext.current().usesGui())
          {
+            InputScanner scanner = MachineContext.current().getInputScanner();
+            long value = (scanner == null) ? InputScanner.NOT_AN_INT : scanner.readIntLine();
+            if (value != InputScanner.NOT_AN_INT)
+            {
+               return (int) value;
+            }
             try
             {  
-               input = getInputReader().readLine();
+               input = readInputLine();
             } 
                 catch (IOException e)
                {}
@@ -112,12 +141,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
        public static float readFloat(int serviceNumber)
       {
+         flushOutput();
          String input = "0";
-         if (Globals.getGui() == null)
+         if (!MachineContext.current().usesGui())
          {
             try
             {
-               input = getInputReader().readLine();
+               input = readInputLine();
             } 
                 catch (IOException e)
                {}
@@ -146,12 +176,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
        public static double readDouble(int serviceNumber)
       {
+         flushOutput();
          String input = "0";
-         if (Globals.getGui() == null)
+         if (!MachineContext.current().usesGui())
          {
             try
             {
-               input = getInputReader().readLine();
+               input = readInputLine();
             } 
                 catch (IOException e)
                {}
@@ -172,19 +203,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
     
     /**
-     * Implements syscall having 4 in $v0, to print a string.
+     * Implements syscall having 4 in $v0, to print a string.  The string goes to the
+     * console output buffer, see flushOutput().  In the IDE it is shown at the next 
+     * turn of the event thread, along with anything else printed meanwhile.
      */
        public static void printString(String string)
       {
-         if (Globals.getGui() == null)
-         {
-            System.out.print(string);
-         } 
-         else
-         {
-            Globals.getGui().getMessagesPane().postRunMessage(string);
-         }
-      
+         files().bufferOutput(string);
+      }
+   
+    /**
+     * Write out any console output still held in the buffer.  This is done before input
+     * is read, before anything is written through a file descriptor, and when the 
+     * program stops or its files are reset.  Otherwise output is held no longer than 
+     * OUTPUT_DELAY in command mode, and is written out if MARS exits meanwhile.
+     */
+       public static void flushOutput()
+      {
+         files().flushOutput();
       }
    	
    	
@@ -196,12 +232,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
        public static String readString(int serviceNumber, int maxLength)
       {
+         flushOutput();
          String input = "";
-         if (Globals.getGui() == null)
+         if (!MachineContext.current().usesGui())
          {
             try
             {
-               input = getInputReader().readLine();
+               input = readInputLine();
             } 
                 catch (IOException e)
                {}
@@ -238,13 +275,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
        public static int readChar(int serviceNumber)
       {
+         flushOutput();
          String input = "0";
          int returnValue = 0;
-         if (Globals.getGui() == null)
+         if (!MachineContext.current().usesGui())
          {
             try
             {
-               input = getInputReader().readLine();
+               input = readInputLine();
             } 
                 catch (IOException e)
                {}
@@ -276,128 +314,231 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    
-    /** Write bytes to file.
+    /** Write bytes from memory to file.  They go from memory to the file a buffer at a 
+     * time, with no copy made of the whole.
      *
      * @param fd file descriptor
-     * @param myBuffer byte array containing characters to write
+     * @param address memory address of the first byte to write
      * @param lengthRequested number of bytes to write
      * @return number of bytes written, or -1 on error
+     * @throws AddressErrorException if the bytes to be written cannot all be read from memory
      */
    
-       public static int writeToFile(int fd, byte[] myBuffer, int lengthRequested)
+       public static int writeToFile(int fd, int address, int lengthRequested) throws AddressErrorException
       {
+         flushOutput();
+         if (lengthRequested < 0)
+         {
+            files().fileErrorString = new String(
+                    "Negative length " + lengthRequested + " on write of file with fd " + fd);
+            return -1;
+         }
+         ByteBuffer buffer = files().transferBuffer();
        /////////////// DPS 8-Jan-2013  ////////////////////////////////////////////////////
        /// Write to STDOUT or STDERR file descriptor while using IDE - write to Messages pane. 
-         if ((fd==STDOUT || fd==STDERR) && Globals.getGui() != null) {
-            String data = new String(myBuffer);
-            Globals.getGui().getMessagesPane().postRunMessage(data);
-            return data.length();
+         if ((fd==STDOUT || fd==STDERR) && MachineContext.current().usesGui()) {
+            for (int written = 0; written < lengthRequested; )
+            {
+               int length = Math.min(buffer.capacity(), lengthRequested - written);
+               buffer.clear().limit(length);
+               Memory.getInstance().getBytes(address + written, buffer);
+               Globals.getGui().getMessagesPane().postRunMessage(new String(buffer.array(), 0, length));
+               written += length;
+            }
+            return lengthRequested;
          }
        ///////////////////////////////////////////////////////////////////////////////////
        //// When running in command mode, code below works for either regular file or STDOUT/STDERR
       
-         if (!FileIOData.fdInUse(fd, 1)) // Check the existence of the "write" fd
+         if (!files().fdInUse(fd, 1)) // Check the existence of the "write" fd
          {
-            fileErrorString = new String(
+            files().fileErrorString = new String(
                     "File descriptor " + fd + " is not open for writing");
             return -1;
          }
-         // retrieve FileOutputStream from storage
-         OutputStream outputStream = (OutputStream) FileIOData.getStreamInUse(fd);
+         // retrieve FileChannel, or for STDOUT and STDERR the OutputStream, from storage
+         Object stream = files().getStreamInUse(fd);
          try
          {
-            // Oct. 9 2005 Ken Vollmar
-            // Observation: made a call to outputStream.write(myBuffer, 0, lengthRequested)
-            //     with myBuffer containing 6(ten) 32-bit-words <---> 24(ten) bytes, where the
-            //     words are MIPS integers with values such that many of the bytes are ZEROES.
-            //     The effect is apparently that the write stops after encountering a zero-valued
-            //     byte. (The method write does not return a value and so this can't be verified
-            //     by the return value.)
-            // Writes up to lengthRequested bytes of data to this output stream from an array of bytes.
-            // outputStream.write(myBuffer, 0, lengthRequested); // write is a void method -- no verification value returned
-            
-            // Oct. 9 2005 Ken Vollmar  Force the write statement to write exactly
-            // the number of bytes requested, even though those bytes include many ZERO values.
-            for (int ii = 0; ii < lengthRequested; ii++)
-            {
-               outputStream.write(myBuffer[ii]); 
-            }
-            outputStream.flush();// DPS 7-Jan-2013
+            // The bytes are written exactly as requested, including any that are zero.
+            for (int written = 0; written < lengthRequested; )
+            {
+               int length = Math.min(buffer.capacity(), lengthRequested - written);
+               buffer.clear().limit(length);
+               Memory.getInstance().getBytes(address + written, buffer);
+               buffer.flip();
+               if (stream instanceof FileChannel)
+               {
+                  FileChannel channel = (FileChannel) stream;
+                  while (buffer.hasRemaining())
+                  {
+                     channel.write(buffer);
+                  }
+               } 
+               else
+               {
+                  ((OutputStream) stream).write(buffer.array(), 0, length);
+               }
+               written += length;
+            }
+            if (stream instanceof OutputStream)
+            {
+               ((OutputStream) stream).flush();// DPS 7-Jan-2013
+            }
          } 
              catch (IOException e)
             {
-               fileErrorString = new String(
+               files().fileErrorString = new String(
                     "IO Exception on write of file with fd " + fd);
                return -1;
             } 
-             catch (IndexOutOfBoundsException e)
-            {
-               fileErrorString = new String(
-                    "IndexOutOfBoundsException on write of file with fd" + fd);
-               return -1;
-            }
       
          return lengthRequested;
       
       } // end writeToFile
    
    
-     /** Read bytes from file.
+     /** Read bytes from file into memory.  They go from the file to memory a buffer at a 
+     * time, with no copy made of the whole.
      *
      * @param fd file descriptor
-     * @param myBuffer byte array to contain bytes read
+     * @param address memory address the first byte read goes to
      * @param lengthRequested number of bytes to read
      * @return number of bytes read, 0 on EOF, or -1 on error
+     * @throws AddressErrorException if the bytes read cannot all be written to memory
      */
-       public static int readFromFile(int fd, byte[] myBuffer, int lengthRequested)
+       public static int readFromFile(int fd, int address, int lengthRequested) throws AddressErrorException
       {
-         int retValue = -1;  
+         flushOutput();
+         if (lengthRequested < 0)
+         {
+            files().fileErrorString = new String(
+                    "Negative length " + lengthRequested + " on read of file with fd " + fd);
+            return -1;
+         }
        /////////////// DPS 8-Jan-2013  //////////////////////////////////////////////////
        /// Read from STDIN file descriptor while using IDE - get input from Messages pane. 
-         if (fd==STDIN && Globals.getGui() != null) {
+         if (fd==STDIN && MachineContext.current().usesGui()) {
             String input = Globals.getGui().getMessagesPane().getInputString(lengthRequested);
-            byte[] bytesRead = input.getBytes();;
-            for (int i=0; i < myBuffer.length; i++) {
-               myBuffer[i] = (i < bytesRead.length) ? bytesRead[i] : 0 ;
-            }
-            return Math.min(myBuffer.length, bytesRead.length);
+            byte[] bytesRead = input.getBytes();
+            int length = Math.min(lengthRequested, bytesRead.length);
+            Memory.getInstance().setBytes(address, ByteBuffer.wrap(bytesRead, 0, length));
+            return length;
          }
        ////////////////////////////////////////////////////////////////////////////////////
        //// When running in command mode, code below works for either regular file or STDIN
        
-         if (!FileIOData.fdInUse(fd, 0)) // Check the existence of the "read" fd
+         if (!files().fdInUse(fd, 0)) // Check the existence of the "read" fd
          {
-            fileErrorString = new String(
+            files().fileErrorString = new String(
                     "File descriptor " + fd + " is not open for reading");
             return -1;
          }
-        // retrieve FileInputStream from storage
-         InputStream InputStream = (InputStream) FileIOData.getStreamInUse(fd);
+        // retrieve FileChannel, or for STDIN the InputStream, from storage
+         Object stream = files().getStreamInUse(fd);
+         ByteBuffer buffer = files().transferBuffer();
+         int total = 0;
          try
          {
-            // Reads up to lengthRequested bytes of data from this Input stream into an array of bytes.
-            retValue = InputStream.read(myBuffer, 0, lengthRequested);
-         	// This method will return -1 upon EOF, but our spec says that negative
-         	// value represents an error, so we return 0 for EOF.  DPS 10-July-2008.
-            if (retValue == -1) {
-               retValue = 0;
+            // Reads up to lengthRequested bytes.  A file is read until that many or EOF,
+            // STDIN only as long as more is available without waiting.
+            while (total < lengthRequested)
+            {
+               int length = Math.min(buffer.capacity(), lengthRequested - total);
+               buffer.clear().limit(length);
+               int count;
+               if (stream instanceof FileChannel)
+               {
+                  count = ((FileChannel) stream).read(buffer);
+               } 
+               else
+               {
+                  count = ((InputStream) stream).read(buffer.array(), 0, length);
+                  if (count > 0)
+                  {
+                     buffer.position(count);
+                  }
+               }
+               // read() returns -1 upon EOF, but our spec says that negative value 
+               // represents an error, so we return 0 for EOF.  DPS 10-July-2008.
+               if (count <= 0)
+               {
+                  break;
+               }
+               buffer.flip();
+               Memory.getInstance().setBytes(address + total, buffer);
+               total += count;
+               if (stream instanceof InputStream && (count < length || ((InputStream) stream).available() <= 0))
+               {
+                  break;
+               }
             }
          } 
              catch (IOException e)
             {
-               fileErrorString = new String(
+               files().fileErrorString = new String(
                     "IO Exception on read of file with fd " + fd);
                return -1;
             } 
-             catch (IndexOutOfBoundsException e)
+         return total;
+      
+      } // end readFromFile
+   
+   
+    /** Set the position of a file, from which it is next read or written.
+     *
+     * @param fd file descriptor of an open file other than STDIN, STDOUT and STDERR
+     * @param offset offset of the new position, in bytes
+     * @param whence 0 if the offset is from the start of the file, 1 if from the
+     * current position, or 2 if from the end of the file
+     * @return the new position, or -1 on error
+     */
+       public static long seekFile(int fd, long offset, int whence)
+      {
+         if (fd <= STDERR || !(files().fdInUse(fd, 0) || files().fdInUse(fd, 1)))
+         {
+            files().fileErrorString = new String(
+                    "File descriptor " + fd + " is not open for seeking");
+            return -1;
+         }
+         FileChannel channel = (FileChannel) files().getStreamInUse(fd);
+         try
+         {
+            long position;
+            if (whence == SEEK_SET)
+            {
+               position = offset;
+            } 
+            else if (whence == SEEK_CUR)
             {
-               fileErrorString = new String(
-                    "IndexOutOfBoundsException on read of file with fd" + fd);
+               position = channel.position() + offset;
+            } 
+            else if (whence == SEEK_END)
+            {
+               position = channel.size() + offset;
+            } 
+            else
+            {
+               files().fileErrorString = new String(
+                    "Unknown seek origin " + whence + " for file with fd " + fd);
                return -1;
             }
-         return retValue;
-      
-      } // end readFromFile
+            if (position < 0)
+            {
+               files().fileErrorString = new String(
+                    "Seek to negative position in file with fd " + fd);
+               return -1;
+            }
+            channel.position(position);
+            return position;
+         } 
+             catch (IOException e)
+            {
+               files().fileErrorString = new String(
+                    "IO Exception on seek of file with fd " + fd);
+               return -1;
+            }
+      } // end seekFile
    
    
    /**
@@ -412,17 +553,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public static int openFile(String filename, int flags)
       {
         // Internally, a "file descriptor" is an index into a table
-        // of the filename, flag, and the File???putStream associated with
+        // of the filename, flag, and the FileChannel associated with
         // that file descriptor.
       
          int retValue = -1;
-         char ch[] = { ' '}; // Need an array to convert to String
-         FileInputStream inputStream;
-         FileOutputStream outputStream;
          int fdToUse;
       
         // Check internal plausibility of opening this file
-         fdToUse = FileIOData.nowOpening(filename, flags);
+         fdToUse = files().nowOpening(filename, flags);
          retValue = fdToUse; // return value is the fd
          if (fdToUse < 0)
          { 
@@ -430,35 +568,27 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }   // fileErrorString would have been set
          
       	
-         if (flags == O_RDONLY) // Open for reading only
+         try
          {
-            try
+            // Set up channel to disk file, emptying a file opened for writing
+            // unless it is appended to.
+            files().setStreamInUse(fdToUse, openChannel(filename, flags, (flags & O_APPEND) == 0)); // Save channel for later use
+         } 
+             catch (IOException e)
             {
-                // Set up input stream from disk file
-               inputStream = new FileInputStream(filename);
-               FileIOData.setStreamInUse(fdToUse, inputStream); // Save stream for later use
+               files().fileErrorString = new String(
+                     "File " + filename + " not found, open for " + ((flags == O_RDONLY) ? "input." : "output."));
+               retValue = -1;
             } 
-                catch (FileNotFoundException e)
-               {
-                  fileErrorString = new String(
-                        "File " + filename + " not found, open for input.");
-                  retValue = -1;
-               }
-         } 
-         else if ( (flags & O_WRONLY) != 0 ) // Open for writing only
+             catch (InvalidPathException e)
+            {
+               files().fileErrorString = new String(
+                     "File name " + filename + " is not valid.");
+               retValue = -1;
+            }
+         if (retValue < 0)
          {
-            // Set up output stream to disk file
-            try
-            { 
-               outputStream = new FileOutputStream(filename, ((flags & O_APPEND) != 0) );
-               FileIOData.setStreamInUse(fdToUse, outputStream); // Save stream for later use
-            } 
-                catch (FileNotFoundException e)
-               {
-                  fileErrorString = new String(
-                        "File " + filename + " not found, open for output.");
-                  retValue = -1;
-               }
+            files().close(fdToUse); // give the descriptor back
          }
          return retValue; // return the "file descriptor"
       
@@ -470,7 +600,72 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
        public static void closeFile(int fd)
       {
-         FileIOData.close(fd);
+         files().close(fd);
+      }
+   
+    /** Map a file for reading.  Its contents are not read here; the host brings them
+     * in as they are used.  The file is not left open.
+     *
+     * @param filename string containing filename
+     * @return the bytes of the file, or null if error
+     */
+       public static ByteBuffer mapFile(String filename)
+      {
+         FileChannel channel = null;
+         try
+         {
+            channel = openChannel(filename, O_RDONLY, false);
+            if (channel.size() > Integer.MAX_VALUE)
+            {
+               files().fileErrorString = new String(
+                     "File " + filename + " is too large to map.");
+               return null;
+            }
+            files().fileErrorString = new String("File operation OK");
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         } 
+             catch (IOException e)
+            {
+               files().fileErrorString = new String(
+                     "File " + filename + " not found, open for input.");
+               return null;
+            } 
+             catch (InvalidPathException e)
+            {
+               files().fileErrorString = new String(
+                     "File name " + filename + " is not valid.");
+               return null;
+            }
+         finally
+         {
+            if (channel != null)
+            {
+               try {
+                  channel.close(); // the mapping remains valid
+               } 
+                   catch (IOException ioe) {
+                  // not concerned with this exception
+                  }
+            }
+         }
+      }
+   
+    // Open the channel of a disk file, for reading if the flags are O_RDONLY and for writing
+    // otherwise.  A file opened for writing is created if need be, and emptied if so directed.
+       private static FileChannel openChannel(String filename, int flags, boolean truncate) throws IOException
+      {
+         Path path = Paths.get(filename);
+         if (flags == O_RDONLY)
+         {
+            return FileChannel.open(path, StandardOpenOption.READ);
+         }
+         if ((flags & O_APPEND) != 0)
+         {
+            return FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+         }
+         return truncate
+            ? FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)
+            : FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
       }
    
     /** 
@@ -478,7 +673,43 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
        public static void resetFiles()
       {
-         FileIOData.resetFiles();
+         files().resetFiles();
+      }
+   
+    /** 
+     * Save the state of the file descriptor table: which files are open, how, and
+     * the size of each and the position reached in it.  Used for simulator checkpoints.
+     *
+     * @return file state to be given to restoreFiles()
+     */
+       public static FileState saveFiles()
+      {
+         return files().saveState();
+      }
+   
+    /** 
+     * Return the file descriptor table to a saved state.  Files open at the time are 
+     * reopened if need be and positioned where they were, and files opened since are 
+     * closed.  Files being written are cut back to their saved sizes, since anything 
+     * beyond was written later.  Bytes within the saved size that were overwritten later
+     * are not put back.  STDIN, STDOUT and STDERR are not affected.
+     *
+     * @param state file state returned by saveFiles()
+     */
+       public static void restoreFiles(FileState state)
+      {
+         files().restoreState(state);
+      }
+   
+    /** 
+     * State of the file descriptor table, as returned by saveFiles().
+     */
+       public static final class FileState
+      {
+         private final String[] fileNames = new String[SYSCALL_MAXFILES];
+         private final int[] fileFlags = new int[SYSCALL_MAXFILES];
+         private final long[] positions = new long[SYSCALL_MAXFILES];
+         private final long[] sizes = new long[SYSCALL_MAXFILES];
       }
    
      /**
@@ -488,7 +719,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	*/
        public static String getFileErrorMessage()
       {
-         return fileErrorString;
+         return files().fileErrorString;
       }
    
       ///////////////////////////////////////////////////////////////////////
@@ -496,12 +727,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// keyboard input, redirected input, or piped input.
    	// These are all equivalent in the eyes of the program because they are 
    	// transparent to it.  Lazy instantiation.  DPS.  28 Feb 2008
+   	// The reader is kept by the current MachineContext, over its console input.
    	
        private static BufferedReader getInputReader() {
-         if (inputReader == null) {
-            inputReader = new BufferedReader(new InputStreamReader(System.in));  
-         }
-         return inputReader;
+         return MachineContext.current().getInputReader();
+      }
+   
+      // Read a line of console input: from the InputScanner, if the current MachineContext
+      // reads its input in full, otherwise from the BufferedReader.
+       private static String readInputLine() throws IOException {
+         InputScanner scanner = MachineContext.current().getInputScanner();
+         return (scanner != null) ? scanner.readLine() : getInputReader().readLine();
+      }
+   
+      // The file descriptor table of the current MachineContext.
+       private static FileIOData files() {
+         return MachineContext.current().getFiles();
       }
    	
    	
@@ -509,15 +750,35 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     // Maintain information on files in use. The index to the arrays is the "file descriptor."
     // Ken Vollmar, August 2005
     
-       private static class FileIOData
+    /** 
+     * The file descriptor table of one MachineContext, which creates it.  Only SystemIO 
+     * uses its contents.
+     */
+       public static final class FileIOData
       {
-         private static String[] fileNames = new String[ SYSCALL_MAXFILES ]; // The filenames in use. Null if file descriptor i is not in use.
-         private static int[] fileFlags = new int[ SYSCALL_MAXFILES ]; // The flags of this file, 0=READ, 1=WRITE. Invalid if this file descriptor is not in use.
-         private static Object[] streams = new Object[SYSCALL_MAXFILES]; // The streams in use, associated with the filenames
+         private final MachineContext context; // provides the streams for STDIN, STDOUT and STDERR
+         private final String[] fileNames = new String[ SYSCALL_MAXFILES ]; // The filenames in use. Null if file descriptor i is not in use.
+         private final int[] fileFlags = new int[ SYSCALL_MAXFILES ]; // The flags of this file, 0=READ, 1=WRITE. Invalid if this file descriptor is not in use.
+         private final Object[] streams = new Object[SYSCALL_MAXFILES]; // The streams in use, associated with the filenames
+         private final StringBuilder pendingOutput = new StringBuilder(); // Console output not yet written
+         private boolean outputScheduled; // Whether writing out pendingOutput is queued on the timer or event thread
+         private ByteBuffer transferBuffer; // Holds file data between a channel or stream and memory
+         private String fileErrorString = new String("File operation OK"); // Description of the latest file error
+      
+       /**
+        * Create an empty file descriptor table.  STDIN, STDOUT and STDERR are set up when
+        * the files are reset.
+        * @param context the MachineContext whose console they use
+        */
+          public FileIOData(MachineContext context)
+         {
+            this.context = context;
+         }
       
         // Reset all file information. Closes any open files and resets the arrays
-          private static void resetFiles()
+          private void resetFiles()
          {
+            flushOutput();
             for (int i = 0; i < SYSCALL_MAXFILES; i++)
             {
                close(i);
@@ -525,54 +786,186 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             setupStdio();
          }
       	// DPS 8-Jan-2013
-          private static void setupStdio() {
+          private void setupStdio() {
             fileNames[STDIN]  = "STDIN";
             fileNames[STDOUT] = "STDOUT";
             fileNames[STDERR] = "STDERR";
             fileFlags[STDIN]  = SystemIO.O_RDONLY;
             fileFlags[STDOUT] = SystemIO.O_WRONLY;
             fileFlags[STDERR] = SystemIO.O_WRONLY;
-            streams[STDIN]  = System.in;
-            streams[STDOUT] = System.out;
-            streams[STDERR] = System.err;
-            System.out.flush();
-            System.err.flush();
+            streams[STDIN]  = (context.getInputScanner() != null) ? context.getInputScanner() : context.getInput();
+            streams[STDOUT] = context.getOutput();
+            streams[STDERR] = context.getError();
+            context.getOutput().flush();
+            context.getError().flush();
+         }
+      
+        // Add to the console output.  In the IDE, the event thread is asked to show it, 
+        // unless it has been asked already and not got to it yet.  In command mode it is 
+        // written when a line ends with enough of it pending, if it grows too long without
+        // one, or by the timer OUTPUT_DELAY after output first became pending.
+          private void bufferOutput(String string)
+         {
+            synchronized (pendingOutput)
+            {
+               pendingOutput.append(string);
+               if (context.usesGui())
+               {
+                  if (!outputScheduled)
+                  {
+                     outputScheduled = true;
+                     SwingUtilities.invokeLater(
+                            new Runnable() {
+                               public void run() {
+                                 showOutput();
+                              }
+                           });
+                  }
+               }
+               else if ((pendingOutput.length() >= OUTPUT_BUFSIZE && string.indexOf('\n') >= 0) 
+                    || pendingOutput.length() >= 8 * OUTPUT_BUFSIZE) 
+               {
+                  flushOutput();
+               } 
+               else if (!outputScheduled)
+               {
+                  outputScheduled = true;
+                  holdOutput(this, true);
+                  outputTimer().schedule(
+                         new TimerTask() {
+                            public void run() {
+                              writeHeldOutput();
+                           }
+                        }, OUTPUT_DELAY);
+               }
+            }
+         }
+      
+        // Write out the console output held for the timer, or held at exit, in command mode.
+          private void writeHeldOutput()
+         {
+            synchronized (pendingOutput)
+            {
+               outputScheduled = false;
+               holdOutput(this, false);
+               flushOutput();
+            }
+            context.getOutput().flush();
+         }
+      
+        // Show the pending console output in the Messages pane.  Runs on the event thread,
+        // so it is shown ahead of any message posted later.
+          private void showOutput()
+         {
+            String string;
+            synchronized (pendingOutput)
+            {
+               outputScheduled = false;
+               string = pendingOutput.toString();
+               pendingOutput.setLength(0);
+            }
+            if (string.length() > 0) 
+            {
+               Globals.getGui().getMessagesPane().appendRunMessage(string);
+            }
+         }
+      
+        // Write out the pending console output, to the Messages pane when using the IDE.
+          private void flushOutput()
+         {
+            String string;
+            synchronized (pendingOutput)
+            {
+               if (pendingOutput.length() == 0) 
+               {
+                  return;
+               }
+               string = pendingOutput.toString();
+               pendingOutput.setLength(0);
+               if (!context.usesGui())
+               {
+                  context.getOutput().print(string);
+                  return;
+               }
+            }
+            Globals.getGui().getMessagesPane().postRunMessage(string);
+         }
+      
+        // The timer that writes out console output in command mode.  Creating it also
+        // arranges for console output still held at exit to be written out then.
+          private static synchronized Timer outputTimer()
+         {
+            if (outputTimer == null)
+            {
+               outputTimer = new Timer("MARS console output", true);
+               Runtime.getRuntime().addShutdownHook(
+                      new Thread("MARS console output at exit") {
+                         public void run() {
+                           FileIOData[] held;
+                           synchronized (heldOutput)
+                           {
+                              held = heldOutput.toArray(new FileIOData[heldOutput.size()]);
+                           }
+                           for (int i = 0; i < held.length; i++)
+                           {
+                              held[i].writeHeldOutput();
+                           }
+                        }
+                     });
+            }
+            return outputTimer;
+         }
+      
+        // Add or remove a console from those whose output is held for the timer.
+          private static void holdOutput(FileIOData files, boolean held)
+         {
+            synchronized (heldOutput)
+            {
+               if (held)
+               {
+                  heldOutput.add(files);
+               } 
+               else
+               {
+                  heldOutput.remove(files);
+               }
+            }
          }
       
         // Preserve a stream that is in use
-          private static void setStreamInUse(int fd, Object s)
+          private void setStreamInUse(int fd, Object s)
          {
             streams[fd] = s;
          
          }
       
         // Retrieve a stream for use
-          private static Object getStreamInUse(int fd)
+          private Object getStreamInUse(int fd)
          {
             return streams[fd];
          
          }
       
         // Determine whether a given filename is already in use.
-          private static boolean filenameInUse(String requestedFilename)
+          private boolean filenameInUse(String requestedFilename)
          {
             for (int i = 0; i < SYSCALL_MAXFILES; i++)
             {
                if (fileNames[i] != null
                         && fileNames[i].equals(requestedFilename))
                {
-                    // System.out.println("Mars.SystemIO.FileIOData.filenameInUse: rtng TRUE for " + requestedFilename);
+                    // System.out.println("Mars.SystemIO.files().filenameInUse: rtng TRUE for " + requestedFilename);
                   return true;
                }
             }
          
-            // System.out.println("Mars.SystemIO.FileIOData.filenameInUse: rtng TRUE for " + requestedFilename);
+            // System.out.println("Mars.SystemIO.files().filenameInUse: rtng TRUE for " + requestedFilename);
             return false;
          
          }
       
         // Determine whether a given fd is already in use with the given flag.
-          private static boolean fdInUse(int fd, int flag)
+          private boolean fdInUse(int fd, int flag)
          {
             if (fd < 0 || fd >= SYSCALL_MAXFILES)
             {
@@ -592,7 +985,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
         // Close the file with file descriptor fd. No errors are recoverable -- if the user's
         // made an error in the call, it will come back to him.
-          private static void close(int fd)
+          private void close(int fd)
          {
             // Can't close STDIN, STDOUT, STDERR, or invalid fd
             if (fd <= STDERR || fd >= SYSCALL_MAXFILES) 
@@ -602,15 +995,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          	// All this code will be executed only if the descriptor is open.
             if (streams[fd] != null)
             {
-               int keepFlag = fileFlags[fd];
                Object keepStream = streams[fd];
                fileFlags[fd] = -1;
                streams[fd] = null;
                try {
-                  if (keepFlag == O_RDONLY)
-                     ((FileInputStream)keepStream).close();
-                  else
-                     ((FileOutputStream)keepStream).close();
+                  ((FileChannel)keepStream).close();
                } 
                    catch (IOException ioe) {
                   // not concerned with this exception
@@ -621,10 +1010,79 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
          }
       
+        // Record the name, flag, size and position of each open file other than STDIN, STDOUT and STDERR.
+          private FileState saveState()
+         {
+            FileState state = new FileState();
+            for (int i = STDERR + 1; i < SYSCALL_MAXFILES; i++)
+            {
+               if (fileNames[i] != null && streams[i] != null)
+               {
+                  try {
+                     state.positions[i] = ((FileChannel) streams[i]).position();
+                     state.sizes[i] = ((FileChannel) streams[i]).size();
+                     state.fileNames[i] = fileNames[i];
+                     state.fileFlags[i] = fileFlags[i];
+                  } 
+                      catch (IOException e) {
+                     // not recorded, so it will be closed on restore
+                     }
+               }
+            }
+            return state;
+         }
+      
+        // Put back the files recorded by saveState().  Any descriptor now used differently is
+        // closed first, then those recorded are opened again if need be, cut back to their
+        // saved size if they have grown, and repositioned.
+          private void restoreState(FileState state)
+         {
+            for (int i = STDERR + 1; i < SYSCALL_MAXFILES; i++)
+            {
+               if (fileNames[i] != null && 
+                   !(fileNames[i].equals(state.fileNames[i]) && fileFlags[i] == state.fileFlags[i] && streams[i] != null))
+               {
+                  close(i);
+               }
+               if (state.fileNames[i] == null)
+               {
+                  continue;
+               }
+               try {
+                  if (fileNames[i] == null)
+                  {
+                     streams[i] = openChannel(state.fileNames[i], state.fileFlags[i], false);
+                     fileNames[i] = state.fileNames[i];
+                     fileFlags[i] = state.fileFlags[i];
+                  }
+                  FileChannel channel = (FileChannel) streams[i];
+                  if (fileFlags[i] != O_RDONLY && channel.size() > state.sizes[i])
+                  {
+                     channel.truncate(state.sizes[i]);
+                  }
+                  channel.position(state.positions[i]);
+               } 
+                   catch (IOException e) {
+                     close(i);
+                  }
+            }
+         }
+      
+        // The buffer that file data passes through on its way to or from memory.  Allocated 
+        // when first used, then kept for the life of the table.
+          private ByteBuffer transferBuffer()
+         {
+            if (transferBuffer == null)
+            {
+               transferBuffer = ByteBuffer.allocate(TRANSFER_BUFSIZE).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return transferBuffer;
+         }
+      
         // Attempt to open a new file with the given flag, using the lowest available file descriptor.
         // Check that filename is not in use, flag is reasonable, and there is an available file descriptor.
         // Return: file descriptor in 0...(SYSCALL_MAXFILES-1), or -1 if error
-          private static int nowOpening(String filename, int flag)
+          private int nowOpening(String filename, int flag)
          {
             int i = 0;
             if (filenameInUse(filename))
@@ -664,7 +1122,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          
          }
       
-      } // end private class FileIOData
+      } // end class FileIOData
     ////////////////////////////////////////////////////////////////////////////////
    
    
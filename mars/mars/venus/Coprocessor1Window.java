@@ -247,8 +247,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             SimulatorNotice notice = (SimulatorNotice) obj;
             if (notice.getAction()==SimulatorNotice.SIMULATOR_START) {
                // Simulated MIPS execution starts.  Respond to memory changes if running in timed
-            	// or stepped mode.
-               if (notice.getRunSpeed() != RunSpeedPanel.UNLIMITED_SPEED || notice.getMaxSteps()==1) {
+            	// or stepped mode, at speeds slow enough to follow each change.
+               if (notice.getRunSpeed() <= RunSpeedPanel.ACCESS_HIGHLIGHTING_LIMIT || notice.getMaxSteps()==1) {
                   Coprocessor1.addRegistersObserver(this);
                   this.highlighting = true;
                }
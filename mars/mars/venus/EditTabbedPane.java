@@ -616,6 +616,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             FileStatus.setFile(theFile);
             FileStatus.set(FileStatus.OPENING);// DPS 9-Aug-2011
             if (theFile.canRead()) {
+               if (Globals.program != null) {
+                  Globals.program.discardBackSteps();
+               }
                Globals.program = new MIPSprogram();
                try {
                   Globals.program.readSource(currentFilePath);
@@ -303,22 +303,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          SwingUtilities.invokeLater(
                 new Runnable() { 
                    public void run() { 
-                     setSelectedComponent(runTab);
-                     run.append(mess);
-                  // can do some crude cutting here.  If the document gets "very large", 
-                  // let's cut off the oldest text. This will limit scrolling but the limit 
-                  // can be set reasonably high.
-                     if (run.getDocument().getLength() > MAXIMUM_SCROLLED_CHARACTERS) {
-                        try {
-                           run.getDocument().remove(0, NUMBER_OF_CHARACTERS_TO_CUT);
-                        } 
-                            catch (BadLocationException ble) { 
-                           // only if NUMBER_OF_CHARACTERS_TO_CUT > MAXIMUM_SCROLLED_CHARACTERS
-                           }
-                     }
+                     appendRunMessage(mess);
                   } 
                });
       }
+   
+   	/**
+   	 * Append a message to the runtime display at once.  Call only from the event
+   	 * dispatch thread; other threads use postRunMessage.
+   	 *
+   	 * @param message String to append to runtime display text
+   	 */
+       public void appendRunMessage(String message) {
+         setSelectedComponent(runTab);
+         run.append(message);
+         // can do some crude cutting here.  If the document gets "very large", 
+         // let's cut off the oldest text. This will limit scrolling but the limit 
+         // can be set reasonably high.
+         if (run.getDocument().getLength() > MAXIMUM_SCROLLED_CHARACTERS) {
+            try {
+               run.getDocument().remove(0, NUMBER_OF_CHARACTERS_TO_CUT);
+            } 
+                catch (BadLocationException ble) { 
+               // only if NUMBER_OF_CHARACTERS_TO_CUT > MAXIMUM_SCROLLED_CHARACTERS
+               }
+         }
+      }
    	
    	/**
    	 * Make the assembler message tab current (up front)
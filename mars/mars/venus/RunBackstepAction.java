@@ -66,7 +66,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 				RegisterFile.addRegistersObserver(executePane.getRegistersWindow());
 				Coprocessor0.addRegistersObserver(executePane.getCoprocessor0Window());
 				Coprocessor1.addRegistersObserver(executePane.getCoprocessor1Window());
+            boolean undone = !Globals.program.getBackStepper().empty();
             Globals.program.getBackStepper().backStep();
+            if (undone && Globals.program.getCheckpointer() != null) {
+               Globals.program.getCheckpointer().backStepped();
+            }
 				Memory.getInstance().deleteObserver(executePane.getDataSegmentWindow());
 				RegisterFile.deleteRegistersObserver(executePane.getRegistersWindow());
             executePane.getRegistersWindow().updateRegisters();
@@ -74,8 +74,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             	//FileStatus.set(FileStatus.RUNNING);
                mainUI.setMenuState(FileStatus.RUNNING);
                try {
-                  int[] breakPoints = executePane.getTextSegmentWindow().getSortedBreakPointsArray();
-                  boolean done = Globals.program.simulateFromPC(breakPoints,maxSteps,this);
+                  Breakpoints breakPoints = executePane.getTextSegmentWindow().getBreakpoints();
+                  boolean done = Globals.program.simulateFromPCWithBreakpoints(breakPoints,maxSteps,this);
                } 
                    catch (ProcessingException pe) {
                   }
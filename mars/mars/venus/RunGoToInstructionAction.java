@@ -0,0 +1,160 @@
+   package mars.venus;
+   import mars.*;
+   import mars.simulator.*;
+   import mars.mips.hardware.*;
+   import java.awt.event.*;
+   import javax.swing.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+    * Action for the Run -> Go to Instruction menu item.  Takes execution to a given
+    * instruction number, counting instructions executed since assembly or reset.  An
+    * earlier instruction is reached by restoring the nearest checkpoint before it and 
+    * running forward from there, a later one by running forward.  See Checkpointer.
+    */
+    public class RunGoToInstructionAction extends GuiAction {
+      private static final long serialVersionUID = 1L;
+   
+      private String name;
+      private ExecutePane executePane;
+   	
+       public RunGoToInstructionAction(String name, Icon icon, String descrip,
+                             Integer mnemonic, KeyStroke accel, VenusUI gui) {
+         super(name, icon, descrip, mnemonic, accel, gui);
+      }
+   
+   	/**
+   	 * Ask for the instruction number, then go there.
+   	 */
+       public void actionPerformed(ActionEvent e) {
+         name = this.getValue(Action.NAME).toString();
+         executePane = mainUI.getMainPane().getExecutePane();
+         Checkpointer checkpointer = Globals.program.getCheckpointer();
+         if (!FileStatus.isAssembled() || checkpointer == null) {
+            // note: this should never occur since this is only enabled after successful assembly.
+            JOptionPane.showMessageDialog(mainUI,"The program must be assembled before it can be run.");
+            return;
+         }
+         long current = checkpointer.getInstructionCount();
+         String response = JOptionPane.showInputDialog(mainUI, 
+               "Instructions executed: "+current+"\nGo to instruction number:", 
+               "Go to Instruction", JOptionPane.QUESTION_MESSAGE);
+         if (response == null) {
+            return;
+         }
+         long target;
+         try {
+            target = Long.parseLong(response.trim());
+         } 
+             catch (NumberFormatException nfe) {
+               target = -1;
+            }
+         if (target < 0) {
+            JOptionPane.showMessageDialog(mainUI,"\""+response.trim()+"\" is not an instruction number.");
+            return;
+         }
+         if (target > current && FileStatus.get() == FileStatus.TERMINATED) {
+            JOptionPane.showMessageDialog(mainUI,"Execution ended at instruction "+current+".");
+            return;
+         }
+         if (target < current) {
+            current = checkpointer.restore(target);
+            if (current < 0) {
+               JOptionPane.showMessageDialog(mainUI,"Instruction "+target+" is before the earliest checkpoint.");
+               return;
+            }
+         }
+         if (!VenusUI.getStarted()) {
+            processProgramArgumentsIfAny();
+         }
+         VenusUI.setStarted(true);
+         if (target == current) {
+            arrived(false, Simulator.MAX_STEPS, null);
+            return;
+         }
+         executePane.getTextSegmentWindow().setCodeHighlighting(false);
+         executePane.getTextSegmentWindow().unhighlightAllSteps();
+         mainUI.setMenuState(FileStatus.RUNNING);
+         try {
+            Globals.program.simulateFromPC(null, (int) Math.min(target - current, Integer.MAX_VALUE), this);
+         } 
+             catch (ProcessingException pe) {
+            }
+      }
+   
+   	// When execution has run forward to the instruction, or was cut short, control 
+   	// returns here (from execution thread, indirectly) to update the GUI.
+       public void arrived(boolean done, int reason, ProcessingException pe) {
+         executePane.getRegistersWindow().updateRegisters();
+         executePane.getCoprocessor1Window().updateRegisters();
+         executePane.getCoprocessor0Window().updateRegisters();
+         executePane.getDataSegmentWindow().updateValues();
+         executePane.getTextSegmentWindow().setCodeHighlighting(true);
+         long count = Globals.program.getCheckpointer().getInstructionCount();
+         if (!done) {
+            executePane.getTextSegmentWindow().highlightStepAtPC();
+            FileStatus.set(FileStatus.RUNNABLE);
+            mainUI.getMessagesPane().postMarsMessage(
+                             name+": at instruction "+count+"\n\n");
+         } 
+         else if (pe != null) {
+            mainUI.getMessagesPane().postMarsMessage(
+                                pe.errors().generateErrorReport());
+            mainUI.getMessagesPane().postMarsMessage(
+                                "\n"+name+": execution terminated with errors.\n\n");
+            mainUI.getRegistersPane().setSelectedComponent(executePane.getCoprocessor0Window());
+            executePane.getTextSegmentWindow().unhighlightAllSteps();
+            executePane.getTextSegmentWindow().highlightStepAtAddress(RegisterFile.getProgramCounter()-4);
+            FileStatus.set(FileStatus.TERMINATED);
+         } 
+         else {
+            mainUI.getMessagesPane().postMarsMessage("\n"+name+": execution "+
+                             ((reason == Simulator.PAUSE_OR_STOP) ? "terminated by user" : "ended")+
+                             " at instruction "+count+".\n\n");
+            executePane.getTextSegmentWindow().unhighlightAllSteps();
+            FileStatus.set(FileStatus.TERMINATED);
+         }
+         VenusUI.setReset(false);
+      }
+   
+		////////////////////////////////////////////////////////////////////////////////////
+		// Method to store any program arguments into MIPS memory and registers before
+		// execution begins. Arguments go into the gap between $sp and kernel memory.  
+		// Argument pointers and count go into runtime stack and $sp is adjusted accordingly.
+		// $a0 gets argument count (argc), $a1 gets stack address of first arg pointer (argv).
+       private void processProgramArgumentsIfAny() {
+         String programArguments = executePane.getTextSegmentWindow().getProgramArguments();
+         if (programArguments == null || programArguments.length() == 0 ||
+		       !Globals.getSettings().getBooleanSetting(Settings.PROGRAM_ARGUMENTS)) {
+            return;
+         }
+         new ProgramArgumentList(programArguments).storeProgramArguments();
+      }
+   }
@@ -47,17 +47,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 	  *  will not attempt to update register and memory contents as each instruction
 	  *  is executed.  This is the only possible value for command-line use of Mars. */
       public final static double UNLIMITED_SPEED = 40;
+    /** Fastest run speed at which the register and memory displays observe each access,
+     *  highlighting it as it happens.  Faster speeds are only refreshed once per frame. */
+      public final static double ACCESS_HIGHLIGHTING_LIMIT = 30;
 		
       private final static int SPEED_INDEX_MIN = 0;
-      private final static int SPEED_INDEX_MAX = 40;
-      private final static int SPEED_INDEX_INIT = 40;
-      private static final int SPEED_INDEX_INTERACTION_LIMIT = 35;		
+      private final static int SPEED_INDEX_MAX = 50;
+      private final static int SPEED_INDEX_INIT = 50;
+      private static final int SPEED_INDEX_INTERACTION_LIMIT = 45;		
+      // Speeds above 30 skip 40, which is the value of UNLIMITED_SPEED.  The simulator 
+      // runs these in bursts of one display frame and refreshes the GUI once per burst.
       private double[] speedTable = { 
                .05, .1, .2, .3, .4, .5,  1,  2,  3,  4,  5,      // 0-10
                      6,  7,  8,  9, 10, 11, 12, 13, 14, 15,      // 11-20
                     16, 17, 18, 19, 20, 21, 22, 23, 24, 25,      // 21-30
-                    26, 27, 28, 29, 30, UNLIMITED_SPEED,UNLIMITED_SPEED, // 31-37
-         			  UNLIMITED_SPEED,UNLIMITED_SPEED,UNLIMITED_SPEED // 38-40
+                    26, 27, 28, 29, 30, 50, 75,100,200,300,      // 31-40
+                   500,750,1000,2000,5000,                       // 41-45
+                   UNLIMITED_SPEED,UNLIMITED_SPEED,UNLIMITED_SPEED, // 46-48
+         			  UNLIMITED_SPEED,UNLIMITED_SPEED                 // 49-50
          		};	 													 													 
       private JLabel sliderLabel=null;
       private JSlider runSpeedSlider=null;
@@ -96,7 +103,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          this.add(runSpeedSlider, BorderLayout.CENTER);
 			this.setToolTipText("Simulation speed for \"Go\".  At "+
 			       ((int)speedTable[SPEED_INDEX_INTERACTION_LIMIT])+" inst/sec or less, tables updated "+
-					 "after each instruction.");
+					 "as the program runs.");
       }
    	
    	/**
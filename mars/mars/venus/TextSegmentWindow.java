@@ -66,6 +66,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private Font tableCellFont = new Font("Monospaced",Font.PLAIN,12);
       private  boolean codeHighlighting;
       private boolean breakpointsEnabled;  // Added 31 Dec 2009
+      private Breakpoints breakpoints;     // enabled breakpoints, read by the simulator as it runs
       private int highlightAddress;
       private TableModelListener tableModelListener;
       private boolean inDelaySlot; // Added 25 June 2007
@@ -108,6 +109,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          int addressBase = Globals.getGui().getMainPane().getExecutePane().getAddressDisplayBase();
          codeHighlighting = true;
          breakpointsEnabled = true;
+         breakpoints = new Breakpoints();
          ArrayList sourceStatementList = Globals.program.getMachineList();
          data = new Object[sourceStatementList.size()][columnNames.length];
          intAddresses = new int[data.length];
@@ -456,6 +458,41 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return breakpoints;
       }
    	
+   	/**
+   	 *  Returns the current breakpoints.  The returned object is kept up to date as breakpoints
+   	 *  are set, cleared, enabled and disabled, including while the program is running.
+   	 *  @return the enabled breakpoints.
+   	 */
+       public Breakpoints getBreakpoints() {
+         if (breakpoints == null) {
+            breakpoints = new Breakpoints();
+         }
+         return breakpoints;
+      }
+   	
+   	/*
+   	 *  Bring the breakpoints up to date with the break column after a change to it.  
+   	 *  Row -1 means all rows.  Done while holding the memory and registers lock so the
+   	 *  simulator sees the change before its next instruction.
+   	 */
+       private void updateBreakpoints(int row) {
+         synchronized (Globals.memoryAndRegistersLock) {
+            Breakpoints bits = getBreakpoints();
+            if (row >= 0) {
+               bits.set(intAddresses[row], breakpointsEnabled && ((Boolean)data[row][BREAK_COLUMN]).booleanValue());
+               return;
+            }
+            bits.clear();
+            if (breakpointsEnabled) {
+               for (int i=0; i < data.length; i++) {
+                  if (((Boolean)data[i][BREAK_COLUMN]).booleanValue()) {
+                     bits.set(intAddresses[i], true);
+                  }
+               }
+            }
+         }
+      }
+   	
    	/**
    	 * Clears all breakpoints that have been set since last assemble, and
    	 * updates the display of the breakpoint column.
@@ -737,6 +774,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
           public void setValueAt(Object value, int row, int col) {
             if (col != CODE_COLUMN) {
                data[row][col] = value;
+               if (col == BREAK_COLUMN) {
+                  updateBreakpoints(row);
+               }
                fireTableCellUpdated(row, col);
                return;
             }	
@@ -897,6 +937,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             setVerticalAlignment(SwingConstants.CENTER);
          	
          /**********************************************
+         Breakpoint changes made during a run now reach the simulator through the
+         Breakpoints object kept by updateBreakpoints(), so the following is history.
+
          Use this if you want to add "instant" recognition of breakpoint changes
          during simulation run.  Currently, the simulator gets array of breakpoints
          only when "Go" is selected.  Thus the system does not respond to breakpoints
@@ -1057,6 +1100,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   if (realIndex == BREAK_COLUMN) {
                      JCheckBox check = ((JCheckBox)((DefaultCellEditor)table.getCellEditor(0,index)).getComponent());
                      breakpointsEnabled = !breakpointsEnabled;
+                     updateBreakpoints(-1);
                      check.setEnabled(breakpointsEnabled);
                      table.tableChanged(new TableModelEvent(tableModel,0,data.length-1, BREAK_COLUMN));
                   }
@@ -71,7 +71,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private JMenu file, run, window, help, edit, settings;
       private JMenuItem fileNew, fileOpen, fileClose, fileCloseAll, fileSave, fileSaveAs, fileSaveAll, fileDumpMemory, filePrint, fileExit;
       private JMenuItem editUndo, editRedo, editCut, editCopy, editPaste, editFindReplace, editSelectAll;
-      private JMenuItem runGo, runStep, runBackstep, runReset, runAssemble, runStop, runPause, runClearBreakpoints, runToggleBreakpoints;
+      private JMenuItem runGo, runStep, runBackstep, runGoToInstruction, runReset, runAssemble, runStop, runPause, runClearBreakpoints, runToggleBreakpoints;
       private JCheckBoxMenuItem settingsLabel, settingsPopupInput, settingsValueDisplayBase, settingsAddressDisplayBase,
               settingsExtended, settingsAssembleOnOpen, settingsAssembleAll, settingsWarningsAreErrors, settingsStartAtMain,
       		  settingsDelayedBranching, settingsProgramArguments, settingsSelfModifyingCode;
@@ -93,7 +93,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       EditUndoAction editUndoAction;
       EditRedoAction editRedoAction;
       private Action editCutAction, editCopyAction, editPasteAction, editFindReplaceAction, editSelectAllAction;
-      private Action runAssembleAction, runGoAction, runStepAction, runBackstepAction, runResetAction, 
+      private Action runAssembleAction, runGoAction, runStepAction, runBackstepAction, runGoToInstructionAction, runResetAction, 
                      runStopAction, runPauseAction, runClearBreakpointsAction, runToggleBreakpointsAction;
       private Action settingsLabelAction, settingsPopupInputAction, settingsValueDisplayBaseAction, settingsAddressDisplayBaseAction,
                      settingsExtendedAction, settingsAssembleOnOpenAction, settingsAssembleAllAction,
@@ -334,6 +334,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                									  "Undo the last step", new Integer(KeyEvent.VK_B),
                									  KeyStroke.getKeyStroke( KeyEvent.VK_F8, 0), 
                									  mainUI);	
+            runGoToInstructionAction = new RunGoToInstructionAction("Go to Instruction...", 
+                                            null,
+               									  "Go back or ahead to a given instruction number", new Integer(KeyEvent.VK_I),
+               									  null, 
+               									  mainUI);	
             runPauseAction = new RunPauseAction("Pause", 
                                             new ImageIcon(tk.getImage(cs.getResource(Globals.imagesPath+"Pause22.png"))),
                									  "Pause the currently running program", new Integer(KeyEvent.VK_P),
@@ -549,6 +554,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          runStep.setIcon(new ImageIcon(tk.getImage(cs.getResource(Globals.imagesPath+"StepForward16.png"))));//"MyStepForward16.gif"))));
          runBackstep = new JMenuItem(runBackstepAction);
          runBackstep.setIcon(new ImageIcon(tk.getImage(cs.getResource(Globals.imagesPath+"StepBack16.png"))));//"MyStepBack16.gif"))));
+         runGoToInstruction = new JMenuItem(runGoToInstructionAction);
+         runGoToInstruction.setIcon(new ImageIcon(tk.getImage(cs.getResource(Globals.imagesPath+"MyBlank16.gif"))));
          runReset = new JMenuItem(runResetAction);
          runReset.setIcon(new ImageIcon(tk.getImage(cs.getResource(Globals.imagesPath+"Reset16.png"))));//"MyReset16.gif"))));
          runStop = new JMenuItem(runStopAction);
@@ -564,6 +571,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          run.add(runGo);
          run.add(runStep);
          run.add(runBackstep);
+         run.add(runGoToInstruction);
          run.add(runPause);
          run.add(runStop);
          run.add(runReset);
@@ -800,6 +808,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          runGoAction.setEnabled(false);
          runStepAction.setEnabled(false);
          runBackstepAction.setEnabled(false);
+         runGoToInstructionAction.setEnabled(false);
          runResetAction.setEnabled(false);
          runStopAction.setEnabled(false);
          runPauseAction.setEnabled(false);
@@ -840,6 +849,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             runGoAction.setEnabled(false);
             runStepAction.setEnabled(false);
             runBackstepAction.setEnabled(false);
+            runGoToInstructionAction.setEnabled(false);
             runResetAction.setEnabled(false);
             runStopAction.setEnabled(false);
             runPauseAction.setEnabled(false);
@@ -878,6 +888,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          runGoAction.setEnabled(false);
          runStepAction.setEnabled(false);
          runBackstepAction.setEnabled(false);
+         runGoToInstructionAction.setEnabled(false);
          runResetAction.setEnabled(false);
          runStopAction.setEnabled(false);
          runPauseAction.setEnabled(false);
@@ -914,6 +925,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          runGoAction.setEnabled(false);
          runStepAction.setEnabled(false);
          runBackstepAction.setEnabled(false);
+         runGoToInstructionAction.setEnabled(false);
          runResetAction.setEnabled(false);
          runStopAction.setEnabled(false);
          runPauseAction.setEnabled(false);
@@ -952,6 +964,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          runBackstepAction.setEnabled(
             (Globals.getSettings().getBackSteppingEnabled()&& !Globals.program.getBackStepper().empty())
              ? true : false);
+         runGoToInstructionAction.setEnabled(
+            Globals.program.getCheckpointer() != null && Globals.program.getCheckpointer().enabled());
          runResetAction.setEnabled(true);
          runStopAction.setEnabled(false);
          runPauseAction.setEnabled(false);
@@ -987,6 +1001,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          runGoAction.setEnabled(false);
          runStepAction.setEnabled(false);
          runBackstepAction.setEnabled(false);
+         runGoToInstructionAction.setEnabled(false);
          runResetAction.setEnabled(false);
          runStopAction.setEnabled(true);
          runPauseAction.setEnabled(true);
@@ -1023,6 +1038,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          runBackstepAction.setEnabled(
             (Globals.getSettings().getBackSteppingEnabled()&& !Globals.program.getBackStepper().empty())
              ? true : false);
+         runGoToInstructionAction.setEnabled(
+            Globals.program.getCheckpointer() != null && Globals.program.getCheckpointer().enabled());
          runResetAction.setEnabled(true);
          runStopAction.setEnabled(false);
          runPauseAction.setEnabled(false);